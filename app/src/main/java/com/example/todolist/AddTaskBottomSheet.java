@@ -2,6 +2,7 @@ package com.example.todolist;
 
 import android.app.AlertDialog;
 import android.app.TimePickerDialog;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -389,15 +390,17 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
         RecyclerView rvCategories = dialogView.findViewById(R.id.rv_categories);
         LinearLayout btnCreateCategory = dialogView.findViewById(R.id.btn_create_category);
 
-        List<Category> categories = dm.getAllCategories();
-
         rvCategories.setLayoutManager(new LinearLayoutManager(requireContext()));
-        CategoryAdapter categoryAdapter = new CategoryAdapter(categories, selectedCategory, category -> {
-            selectedCategory = category.getName();
-            chipCategory.setText(selectedCategory);
-            dialog.dismiss();
+        dm.getAllCategoriesAsync(categories -> {
+            if (!isAdded())
+                return;
+            CategoryAdapter categoryAdapter = new CategoryAdapter(categories, selectedCategory, category -> {
+                selectedCategory = category.getName();
+                chipCategory.setText(selectedCategory);
+                dialog.dismiss();
+            });
+            rvCategories.setAdapter(categoryAdapter);
         });
-        rvCategories.setAdapter(categoryAdapter);
 
         btnCreateCategory.setOnClickListener(v -> {
             dialog.dismiss();
@@ -424,7 +427,7 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
             String name = etCategoryName.getText().toString().trim();
             if (!name.isEmpty()) {
                 Category newCategory = new Category(name, "#4A90D9", false);
-                dm.insertCategory(newCategory);
+                dm.insertCategoryAsync(newCategory, null);
                 selectedCategory = name;
                 chipCategory.setText(selectedCategory);
                 dialog.dismiss();
@@ -995,8 +998,6 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
         // Set time/details if provided
         String details = etTaskDetails.getText().toString().trim();
 
-        long taskId;
-
         if (isEditMode && editingTask != null) {
             // Update existing task
             editingTask.setTask(taskTitle);
@@ -1026,8 +1027,8 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
                 editingTask.setTime(details);
             }
 
-            dm.updateTask(editingTask);
-            taskId = editingTask.getId();
+            dm.updateTaskAsync(editingTask);
+            long taskId = editingTask.getId();
 
             // Cancel old reminders and schedule new ones
             NotificationHelper notificationHelper = new NotificationHelper(requireContext());
@@ -1045,6 +1046,8 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
             }
 
             Toast.makeText(requireContext(), "Task updated", Toast.LENGTH_SHORT).show();
+            // The listener's reload is queued behind the update
+            onSaved();
         } else {
             // Create new task(s): if Calendar multi-selected dates were provided, create
             // one per date.
@@ -1074,13 +1077,7 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
                 }
             }
 
-            NotificationHelper notificationHelper = null;
-            if (!selectedTime.isEmpty() && !reminderMinutesStr.isEmpty()) {
-                notificationHelper = new NotificationHelper(requireContext());
-            }
-
-            long lastInsertedId = 0;
-            int created = 0;
+            List<TaskList> newTasks = new ArrayList<>();
             for (Long due : dueDates) {
                 long dueMs = due == null ? 0 : due;
                 TaskList newTask = new TaskList(taskTitle);
@@ -1100,40 +1097,82 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
                 if (!details.isEmpty()) {
                     newTask.setTime(details);
                 }
+                newTasks.add(newTask);
+            }
 
-                long insertedId = dm.insertAndGetId(newTask);
-                lastInsertedId = insertedId;
-                created++;
-
-                // Schedule reminders per task id/date
-                if (notificationHelper != null && dueMs > 0) {
-                    notificationHelper.scheduleReminders(
-                            (int) insertedId,
-                            taskTitle,
-                            dueMs,
-                            selectedTime,
-                            reminderMinutesStr,
-                            useAlarm,
-                            selectedScreenLock);
-                }
+            NotificationHelper notificationHelper = null;
+            if (!selectedTime.isEmpty() && !reminderMinutesStr.isEmpty()) {
+                notificationHelper = new NotificationHelper(requireContext().getApplicationContext());
+            }
 
-                // Save subtasks per created task
-                for (String st : subtaskTitles) {
-                    SubTask subTask = new SubTask((int) insertedId, st);
-                    dm.insertSubTask(subTask);
+            // Inserts run on the DataManager thread; the sheet reports the result
+            // and closes only once they are written.
+            final NotificationHelper reminderHelper = notificationHelper;
+            final String reminders = reminderMinutesStr;
+            final boolean alarm = useAlarm;
+            final boolean screenLock = selectedScreenLock;
+            final String time = selectedTime;
+            final Context appContext = requireContext().getApplicationContext();
+            dm.runAsync(() -> {
+                long lastInsertedId = 0;
+                try {
+                    for (TaskList newTask : newTasks) {
+                        lastInsertedId = insertNewTask(newTask, reminderHelper, taskTitle, time, reminders, alarm,
+                                screenLock, subtaskTitles);
+                    }
+                } catch (Exception e) {
+                    android.util.Log.e("AddTaskBottomSheet", "Could not add task", e);
+                    return -1L;
                 }
-            }
+                return lastInsertedId;
+            }, taskId -> {
+                // The id of the last task inserted, or -1 if an insert failed
+                if (taskId <= 0) {
+                    Toast.makeText(appContext, "Could not add task", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                int created = newTasks.size();
+                Toast.makeText(appContext, created > 1 ? ("Added " + created + " tasks") : "Task added",
+                        Toast.LENGTH_SHORT).show();
+                onSaved();
+            });
+        }
+    }
 
-            taskId = lastInsertedId;
-            Toast.makeText(requireContext(), created > 1 ? ("Added " + created + " tasks") : "Task added",
-                    Toast.LENGTH_SHORT).show();
+    // Runs on the DataManager thread. Returns the new task's id.
+    private long insertNewTask(TaskList newTask, NotificationHelper reminderHelper, String taskTitle,
+            String time, String reminders, boolean alarm, boolean screenLock, List<String> subtaskTitles) {
+        long insertedId = dm.insertAndGetId(newTask);
+
+        // Schedule reminders per task id/date
+        if (reminderHelper != null && newTask.dueDate > 0) {
+            reminderHelper.scheduleReminders(
+                    (int) insertedId,
+                    taskTitle,
+                    newTask.dueDate,
+                    time,
+                    reminders,
+                    alarm,
+                    screenLock);
         }
 
+        // Save subtasks per created task
+        for (String st : subtaskTitles) {
+            SubTask subTask = new SubTask((int) insertedId, st);
+            dm.insertSubTask(subTask);
+        }
+        return insertedId;
+    }
+
+    // Reloads the listener's list and closes the sheet, once the save is queued
+    // (update) or written (insert)
+    private void onSaved() {
         if (listener != null) {
             listener.onTaskAdded();
         }
-
-        dismiss();
+        if (isAdded()) {
+            dismiss();
+        }
     }
 
     private List<Calendar> generateDaysForMonth(Calendar currentCalendar) {
@@ -19,29 +19,50 @@ public class AlarmReceiver extends BroadcastReceiver {
         if (Intent.ACTION_BOOT_COMPLETED.equals(action)) {
             Log.d(TAG, "Boot completed, rescheduling alarms...");
             rescheduleAlarms(context);
-            // Also schedule midnight alarm and generate today's tasks
+            // Also schedule midnight alarm and resume recurring instances
             MidnightTaskScheduler scheduler = new MidnightTaskScheduler(context);
             scheduler.scheduleMidnightAlarm();
-            DataManager.getInstance(context).generateTodaysRecurringTasks();
+            PendingResult bootResult = goAsync();
+            DataManager.getInstance(context).runAsync(
+                    DataManager.getInstance(context)::generateRecurringInstances, bootResult::finish);
+            return;
+        }
+
+        // Stored due days are local to the old zone, and midnight has moved
+        if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            Log.d(TAG, "Time zone changed, recomputing due days");
+            PendingResult zoneResult = goAsync();
+            DataManager dm = DataManager.getInstance(context);
+            dm.runAsync(() -> {
+                dm.recomputeDueDays();
+                new MidnightTaskScheduler(context).scheduleMidnightAlarm();
+            }, zoneResult::finish);
             return;
         }
 
         // Handle midnight task generation alarm
         if (MidnightTaskScheduler.ACTION_MIDNIGHT_TASK_GENERATION.equals(action)) {
             Log.d(TAG, "Midnight alarm triggered - generating today's recurring tasks");
-            try {
-                DataManager dm = DataManager.getInstance(context);
-                dm.generateTodaysRecurringTasks();
+            PendingResult midnightResult = goAsync();
+            DataManager dm = DataManager.getInstance(context);
+            dm.runAsync(() -> {
+                try {
+                    dm.generateRecurringInstances();
+                    // Yesterday's tasks may now be past the archive cutoff
+                    dm.archiveOldTasks();
+                    // Keep the recurring forecast a full horizon ahead
+                    dm.refreshOccurrences();
 
-                // Reschedule for next midnight
-                MidnightTaskScheduler scheduler = new MidnightTaskScheduler(context);
-                scheduler.scheduleMidnightAlarm();
+                    // Reschedule for next midnight
+                    MidnightTaskScheduler scheduler = new MidnightTaskScheduler(context);
+                    scheduler.scheduleMidnightAlarm();
 
-                Log.d(TAG, "Today's recurring tasks generated successfully");
-            } catch (Exception e) {
-                Log.e(TAG, "Error generating today's recurring tasks: " + e.getMessage());
-                e.printStackTrace();
-            }
+                    Log.d(TAG, "Today's recurring tasks generated successfully");
+                } catch (Exception e) {
+                    Log.e(TAG, "Error generating today's recurring tasks: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }, midnightResult::finish);
             return;
         }
 
@@ -67,8 +88,14 @@ public class AlarmReceiver extends BroadcastReceiver {
             taskName = "Task Reminder";
         }
 
-        // Show the notification
-        NotificationHelper.showNotification(context, notificationId, taskName, minutesBefore, useAlarm, useScreenLock);
+        // Show the notification; it looks up the task for theming, so build it on the
+        // database thread and keep the broadcast alive until it is posted
+        final String title = taskName;
+        PendingResult reminderResult = goAsync();
+        DataManager.getInstance(context).runAsync(
+                () -> NotificationHelper.showNotification(context, notificationId, title, minutesBefore, useAlarm,
+                        useScreenLock),
+                reminderResult::finish);
     }
 
     private void rescheduleAlarms(Context context) {
@@ -1,14 +1,19 @@
 package com.example.todolist;
 
 import android.content.Context;
+import android.database.Cursor;
 
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.annotation.NonNull;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = { TaskList.class, Category.class, SubTask.class }, version = 3, exportSchema = false)
+@Database(entities = { TaskList.class, Category.class, SubTask.class,
+        TaskSearch.class, TaskTemplate.class, TaskAttachment.class, ArchivedTask.class,
+        ArchiveTotal.class, ChangeJournalEntry.class, TaskOccurrence.class,
+        RecurrenceCheckpoint.class }, version = 18, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     private static volatile AppDatabase INSTANCE;
 
@@ -18,6 +23,18 @@ public abstract class AppDatabase extends RoomDatabase {
 
     public abstract SubTaskDao subTaskDao();
 
+    public abstract TaskTemplateDao taskTemplateDao();
+
+    public abstract TaskAttachmentDao taskAttachmentDao();
+
+    public abstract TaskArchiveDao taskArchiveDao();
+
+    public abstract ChangeJournalDao changeJournalDao();
+
+    public abstract TaskOccurrenceDao taskOccurrenceDao();
+
+    public abstract RecurrenceCheckpointDao recurrenceCheckpointDao();
+
     static final Migration MIGRATION_2_3 = new Migration(2, 3) {
         @Override
         public void migrate(SupportSQLiteDatabase database) {
@@ -25,16 +42,418 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    // Indices backing the date-range queries in TaskDao. Names follow Room's
+    // index_<table>_<columns> convention so the schema validates on open.
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_due_date` ON `tasks` (`due_date`)");
+            database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_tasks_check_status_due_date` ON `tasks` (`check_status`, `due_date`)");
+            database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_tasks_created_from_due_date` ON `tasks` (`created_from`, `due_date`)");
+        }
+    };
+
+    // Tasks reference their category by id, and category names become unique
+    // ignoring case. Categories are rebuilt with a NOCASE name column, keeping the
+    // oldest row of any names that differ only by case; tasks are then linked by
+    // name. The category name stays on tasks for display and export.
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `categories_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`name` TEXT COLLATE NOCASE, `color` TEXT, `icon` TEXT, `is_default` INTEGER NOT NULL)");
+            database.execSQL("INSERT INTO `categories_new` (`id`, `name`, `color`, `icon`, `is_default`) "
+                    + "SELECT `id`, `name`, `color`, `icon`, `is_default` FROM `categories` "
+                    + "WHERE `id` IN (SELECT MIN(`id`) FROM `categories` GROUP BY `name` COLLATE NOCASE)");
+            database.execSQL("DROP TABLE `categories`");
+            database.execSQL("ALTER TABLE `categories_new` RENAME TO `categories`");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_categories_name` ON `categories` (`name`)");
+
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `category_id` INTEGER "
+                    + "REFERENCES `categories`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL");
+            database.execSQL("UPDATE `tasks` SET `category_id` = "
+                    + "(SELECT `id` FROM `categories` WHERE `categories`.`name` = `tasks`.`category`)");
+            database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_tasks_category_id_check_status` ON `tasks` (`category_id`, `check_status`)");
+        }
+    };
+
+    // Indices for paging completed tasks by completed_at (the rowid breaks ties).
+    // The category index gains completed_at so filtered pages stay in the index.
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("DROP INDEX IF EXISTS `index_tasks_category_id_check_status`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_check_status_completed_at` "
+                    + "ON `tasks` (`check_status`, `completed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_category_id_check_status_completed_at` "
+                    + "ON `tasks` (`category_id`, `check_status`, `completed_at`)");
+        }
+    };
+
+    // Full-text search table (see TaskSearch), filled from existing tasks
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `task_search` "
+                    + "USING FTS4(`title` TEXT, `notes` TEXT, `subtasks` TEXT)");
+            database.execSQL("INSERT INTO `task_search` (`rowid`, `title`, `notes`, `subtasks`) "
+                    + "SELECT `id`, `task`, `time`, " + SUBTASK_TITLES_OF + "`tasks`.`id`) FROM `tasks`");
+            createSearchTriggers(database);
+        }
+    };
+
+    // Subtask counters on tasks, filled from the existing subtasks
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `subtask_total` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `subtask_done` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("UPDATE `tasks` SET "
+                    + "`subtask_total` = (SELECT COUNT(*) FROM `subtasks` WHERE `parent_task_id` = `tasks`.`id`), "
+                    + "`subtask_done` = (SELECT COUNT(*) FROM `subtasks` "
+                    + "WHERE `parent_task_id` = `tasks`.`id` AND `is_completed` = 1)");
+            createSubtaskCountTriggers(database);
+        }
+    };
+
+    // Templates move from memory into their own table; DataManager seeds the
+    // built-in ones into it when it is empty
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `task_templates` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`name` TEXT, `emoji` TEXT, `category` TEXT, `is_built_in` INTEGER NOT NULL, "
+                    + "`usage_count` INTEGER NOT NULL, `last_used_at` INTEGER NOT NULL, `frecency` REAL NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_templates_frecency` ON `task_templates` (`frecency`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_templates_category_frecency` "
+                    + "ON `task_templates` (`category`, `frecency`)");
+        }
+    };
+
+    // Local due day next to due_date. The day depends on the device time zone,
+    // which SQL cannot see, so existing rows are filled in from Java; the zone is
+    // recorded by DataManager.initializeData when it next runs.
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `tasks` ADD COLUMN `due_day` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_check_status_due_day` "
+                    + "ON `tasks` (`check_status`, `due_day`)");
+            try (Cursor cursor = database.query("SELECT DISTINCT `due_date` FROM `tasks` WHERE `due_date` > 0")) {
+                while (cursor.moveToNext()) {
+                    long dueDate = cursor.getLong(0);
+                    database.execSQL("UPDATE `tasks` SET `due_day` = ? WHERE `due_date` = ?",
+                            new Object[] { EpochDays.of(dueDate), dueDate });
+                }
+            }
+        }
+    };
+
+    // Attachments move from the comma-joined tasks.attachments string into their
+    // own table, in their original order. Names, types and sizes need the
+    // ContentResolver, so DataManager fills them in when the rows are first listed.
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `attachments` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`task_id` INTEGER NOT NULL, `uri` TEXT, `display_name` TEXT, `mime_type` TEXT, "
+                    + "`size` INTEGER NOT NULL, `added_at` INTEGER NOT NULL, FOREIGN KEY(`task_id`) "
+                    + "REFERENCES `tasks`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_attachments_task_id` ON `attachments` (`task_id`)");
+            database.execSQL("WITH RECURSIVE `split`(`task_id`, `pos`, `uri`, `rest`) AS ("
+                    + "SELECT `id`, 0, '', `attachments` || ',' FROM `tasks` "
+                    + "WHERE `attachments` IS NOT NULL AND `attachments` != '' "
+                    + "UNION ALL SELECT `task_id`, `pos` + 1, trim(substr(`rest`, 1, instr(`rest`, ',') - 1)), "
+                    + "substr(`rest`, instr(`rest`, ',') + 1) FROM `split` WHERE `rest` != '') "
+                    + "INSERT INTO `attachments` (`task_id`, `uri`, `size`, `added_at`) "
+                    + "SELECT `task_id`, `uri`, -1, 0 FROM `split` WHERE `uri` != '' ORDER BY `task_id`, `pos`");
+            database.execSQL("UPDATE `tasks` SET `attachments` = '' WHERE `attachments` != ''");
+        }
+    };
+
+    // Archive tier for old completed and missed tasks (see TaskArchiveDao); it
+    // starts empty and DataManager.archiveOldTasks fills it in the background
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `archived_tasks` (`category_id` INTEGER, "
+                    + "`archived_at` INTEGER NOT NULL, `id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`check_status` INTEGER NOT NULL, `task` TEXT, `time` TEXT, `category` TEXT, "
+                    + "`is_starred` INTEGER NOT NULL, `due_date` INTEGER NOT NULL, "
+                    + "`due_day` INTEGER NOT NULL DEFAULT 0, `repeat_type` TEXT, `repeat_interval` INTEGER NOT NULL, "
+                    + "`task_time` TEXT, `completed_at` INTEGER NOT NULL, `marker_type` TEXT, `marker_value` TEXT, "
+                    + "`marker_color` INTEGER NOT NULL, `rejection_reason` TEXT, `repeat_days` TEXT, "
+                    + "`recurring_parent_id` INTEGER NOT NULL, `subtask_total` INTEGER NOT NULL DEFAULT 0, "
+                    + "`subtask_done` INTEGER NOT NULL DEFAULT 0)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_archived_tasks_check_status_completed_at` "
+                    + "ON `archived_tasks` (`check_status`, `completed_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_archived_tasks_category_id_check_status_completed_at` "
+                    + "ON `archived_tasks` (`category_id`, `check_status`, `completed_at`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `archive_totals` (`id` INTEGER PRIMARY KEY AUTOINCREMENT "
+                    + "NOT NULL, `category` TEXT, `category_id` INTEGER, `check_status` INTEGER NOT NULL, "
+                    + "`day_of_week` INTEGER NOT NULL, `count` INTEGER NOT NULL)");
+        }
+    };
+
+    // Change journal for the incremental export. It starts empty; the first
+    // export after the upgrade writes every category.
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `change_journal` (`seq` INTEGER PRIMARY KEY AUTOINCREMENT "
+                    + "NOT NULL, `entity_type` TEXT, `entity_id` INTEGER NOT NULL, `operation` TEXT, "
+                    + "`changed_at` INTEGER NOT NULL, `category_id` INTEGER)");
+            createChangeJournalTriggers(database);
+        }
+    };
+
+    // Forecast table for recurring tasks. It starts empty; DataManager fills it
+    // on the next start (see refreshOccurrences).
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `task_occurrences` (`task_id` INTEGER NOT NULL, "
+                    + "`day` INTEGER NOT NULL, `minute_of_day` INTEGER NOT NULL, PRIMARY KEY(`task_id`, `day`), "
+                    + "FOREIGN KEY(`task_id`) REFERENCES `tasks`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_occurrences_day` ON `task_occurrences` (`day`)");
+        }
+    };
+
+    // At most one instance of a recurring series per day. Existing duplicates
+    // are kept; only new ones are skipped.
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_recurring_parent_id_due_day` "
+                    + "ON `tasks` (`recurring_parent_id`, `due_day`)");
+            createInstanceTriggers(database);
+        }
+    };
+
+    // Generation checkpoints for recurring series. Existing series start from
+    // today on the next run of DataManager.generateRecurringInstances.
+    static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `recurrence_checkpoints` (`series_id` INTEGER NOT NULL, "
+                    + "`next_day` INTEGER NOT NULL, PRIMARY KEY(`series_id`), FOREIGN KEY(`series_id`) "
+                    + "REFERENCES `tasks`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_recurrence_checkpoints_next_day` "
+                    + "ON `recurrence_checkpoints` (`next_day`)");
+            database.execSQL("INSERT OR IGNORE INTO `recurrence_checkpoints` (`series_id`, `next_day`) "
+                    + "SELECT `id`, " + RecurrenceCheckpoint.NOT_STARTED + " FROM `tasks` "
+                    + "WHERE `recurring_parent_id` = 0 AND `repeat_type` IS NOT NULL AND `repeat_type` != 'none'");
+            createCheckpointTriggers(database);
+        }
+    };
+
+    // Checkpoint generations, so a checkpoint reset to the day a generator
+    // read still counts as changed. The triggers are replaced to bump them.
+    static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `recurrence_checkpoints` ADD COLUMN `generation` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("DROP TRIGGER IF EXISTS `checkpoint_task_insert`");
+            database.execSQL("DROP TRIGGER IF EXISTS `checkpoint_task_update`");
+            createCheckpointTriggers(database);
+        }
+    };
+
+    // Archived tasks keep their reminder settings and origin, which the 11-12
+    // archive table dropped
+    static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `archived_tasks` ADD COLUMN `reminder_minutes` TEXT");
+            database.execSQL("ALTER TABLE `archived_tasks` ADD COLUMN `use_alarm` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `archived_tasks` ADD COLUMN `screen_lock` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `archived_tasks` ADD COLUMN `attachments` TEXT");
+            database.execSQL("ALTER TABLE `archived_tasks` ADD COLUMN `created_from` TEXT");
+        }
+    };
+
+    // Runs after Room creates the tables, both on first install and after a
+    // destructive migration (which drops the triggers along with the tables)
+    static final RoomDatabase.Callback CREATE_TRIGGERS = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase database) {
+            createSearchTriggers(database);
+            createSubtaskCountTriggers(database);
+            createChangeJournalTriggers(database);
+            createInstanceTriggers(database);
+            createCheckpointTriggers(database);
+        }
+    };
+
+    // Completed with the parent task id and a closing parenthesis
+    private static final String SUBTASK_TITLES_OF = "(SELECT group_concat(`title`, ' ') FROM `subtasks` "
+            + "WHERE `parent_task_id` = ";
+
+    /**
+     * Keeps task_search in step with tasks and subtasks. The insert trigger
+     * deletes first because TaskDao inserts with REPLACE, which does not fire
+     * delete triggers for the row it replaces.
+     */
+    static void createSearchTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `task_search_task_insert` AFTER INSERT ON `tasks` BEGIN "
+                + "DELETE FROM `task_search` WHERE `rowid` = new.`id`; "
+                + "INSERT INTO `task_search` (`rowid`, `title`, `notes`, `subtasks`) "
+                + "VALUES (new.`id`, new.`task`, new.`time`, " + SUBTASK_TITLES_OF + "new.`id`)); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `task_search_task_update` AFTER UPDATE OF `task`, `time` "
+                + "ON `tasks` BEGIN "
+                + "UPDATE `task_search` SET `title` = new.`task`, `notes` = new.`time` WHERE `rowid` = new.`id`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `task_search_task_delete` AFTER DELETE ON `tasks` BEGIN "
+                + "DELETE FROM `task_search` WHERE `rowid` = old.`id`; END");
+
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `task_search_subtask_insert` AFTER INSERT ON `subtasks` BEGIN "
+                + "UPDATE `task_search` SET `subtasks` = " + SUBTASK_TITLES_OF + "new.`parent_task_id`) "
+                + "WHERE `rowid` = new.`parent_task_id`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `task_search_subtask_update` AFTER UPDATE OF `title`, "
+                + "`parent_task_id` ON `subtasks` BEGIN "
+                + "UPDATE `task_search` SET `subtasks` = " + SUBTASK_TITLES_OF + "old.`parent_task_id`) "
+                + "WHERE `rowid` = old.`parent_task_id`; "
+                + "UPDATE `task_search` SET `subtasks` = " + SUBTASK_TITLES_OF + "new.`parent_task_id`) "
+                + "WHERE `rowid` = new.`parent_task_id`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `task_search_subtask_delete` AFTER DELETE ON `subtasks` BEGIN "
+                + "UPDATE `task_search` SET `subtasks` = " + SUBTASK_TITLES_OF + "old.`parent_task_id`) "
+                + "WHERE `rowid` = old.`parent_task_id`; END");
+    }
+
+    /**
+     * Keeps tasks.subtask_total and tasks.subtask_done in step with the
+     * subtasks table, adjusting the counts by the one row that changed.
+     */
+    static void createSubtaskCountTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `subtask_count_insert` AFTER INSERT ON `subtasks` BEGIN "
+                + "UPDATE `tasks` SET `subtask_total` = `subtask_total` + 1, "
+                + "`subtask_done` = `subtask_done` + (new.`is_completed` = 1) "
+                + "WHERE `id` = new.`parent_task_id`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `subtask_count_update` AFTER UPDATE OF `is_completed`, "
+                + "`parent_task_id` ON `subtasks` BEGIN "
+                + "UPDATE `tasks` SET `subtask_total` = `subtask_total` - 1, "
+                + "`subtask_done` = `subtask_done` - (old.`is_completed` = 1) "
+                + "WHERE `id` = old.`parent_task_id`; "
+                + "UPDATE `tasks` SET `subtask_total` = `subtask_total` + 1, "
+                + "`subtask_done` = `subtask_done` + (new.`is_completed` = 1) "
+                + "WHERE `id` = new.`parent_task_id`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `subtask_count_delete` AFTER DELETE ON `subtasks` BEGIN "
+                + "UPDATE `tasks` SET `subtask_total` = `subtask_total` - 1, "
+                + "`subtask_done` = `subtask_done` - (old.`is_completed` = 1) "
+                + "WHERE `id` = old.`parent_task_id`; END");
+    }
+
+    /**
+     * Skips inserting an instance of a recurring series on a day the series
+     * already has a task: another instance, or the series' first task itself.
+     * Works like INSERT OR IGNORE against a unique (recurring_parent_id,
+     * due_day) index, which can't be declared because every task that is not
+     * an instance has recurring_parent_id 0. Only inserts are checked, so
+     * moving an instance onto a taken day is still allowed. Ignored rows come
+     * back from the insert with id -1.
+     */
+    static void createInstanceTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `tasks_skip_duplicate_instance` BEFORE INSERT ON `tasks` "
+                + "WHEN new.`recurring_parent_id` > 0 AND new.`due_day` != 0 AND ("
+                + "EXISTS (SELECT 1 FROM `tasks` WHERE `recurring_parent_id` = new.`recurring_parent_id` "
+                + "AND `due_day` = new.`due_day` AND `id` IS NOT new.`id`) "
+                + "OR EXISTS (SELECT 1 FROM `tasks` WHERE `id` = new.`recurring_parent_id` "
+                + "AND `due_day` = new.`due_day`)) "
+                + "BEGIN SELECT RAISE(IGNORE); END");
+    }
+
+    // Whether the new row is a recurring task that is not an instance
+    private static final String SERIES_START = "new.`recurring_parent_id` = 0 AND new.`repeat_type` IS NOT NULL "
+            + "AND new.`repeat_type` != 'none'";
+
+    /**
+     * Keeps recurrence_checkpoints to one row per recurring series, starting
+     * over whenever the series' schedule changes: its due date, repeat
+     * settings, or whether it is an instance. Room updates write every column,
+     * so the update trigger compares the values. Every reset bumps the row's
+     * generation; a task that is no longer a series keeps its row as NEVER
+     * rather than losing it, so the generation never starts over.
+     */
+    static void createCheckpointTriggers(SupportSQLiteDatabase database) {
+        String checkpointOf = "(SELECT `generation` FROM `recurrence_checkpoints` WHERE `series_id` = new.`id`)";
+        String checkpointNew = "INSERT OR REPLACE INTO `recurrence_checkpoints` "
+                + "(`series_id`, `next_day`, `generation`) SELECT new.`id`, CASE WHEN " + SERIES_START + " THEN "
+                + RecurrenceCheckpoint.NOT_STARTED + " ELSE " + RecurrenceCheckpoint.NEVER + " END, "
+                + "COALESCE(" + checkpointOf + " + 1, 0) WHERE " + SERIES_START + " OR " + checkpointOf
+                + " IS NOT NULL; ";
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `checkpoint_task_insert` AFTER INSERT ON `tasks` BEGIN "
+                + checkpointNew + "END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `checkpoint_task_update` AFTER UPDATE OF `due_date`, "
+                + "`repeat_type`, `repeat_interval`, `repeat_days`, `recurring_parent_id` ON `tasks` "
+                + "WHEN old.`due_date` IS NOT new.`due_date` OR old.`repeat_type` IS NOT new.`repeat_type` "
+                + "OR old.`repeat_interval` IS NOT new.`repeat_interval` OR old.`repeat_days` IS NOT new.`repeat_days` "
+                + "OR old.`recurring_parent_id` IS NOT new.`recurring_parent_id` BEGIN "
+                + checkpointNew + "END");
+    }
+
+    // Current time in epoch milliseconds, inside a trigger
+    private static final String NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    private static final String JOURNAL_INSERT = "INSERT INTO `change_journal` "
+            + "(`entity_type`, `entity_id`, `operation`, `changed_at`, `category_id`) ";
+
+    /**
+     * Logs task, subtask and category changes to change_journal, each with the
+     * category whose export file it affects. Task updates are logged only for
+     * the exported columns, so due_day recomputes and subtask counters do not
+     * mark categories as changed; a task moved between categories logs both.
+     */
+    static void createChangeJournalTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_task_insert` AFTER INSERT ON `tasks` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('task', new.`id`, 'insert', " + NOW_MILLIS + ", new.`category_id`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_task_update` AFTER UPDATE OF `task`, `time`, "
+                + "`category`, `category_id`, `is_starred`, `due_date`, `check_status`, `repeat_type`, "
+                + "`repeat_interval` ON `tasks` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('task', new.`id`, 'update', " + NOW_MILLIS + ", new.`category_id`); "
+                + JOURNAL_INSERT + "SELECT 'task', old.`id`, 'update', " + NOW_MILLIS + ", old.`category_id` "
+                + "WHERE old.`category_id` IS NOT new.`category_id`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_task_delete` AFTER DELETE ON `tasks` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('task', old.`id`, 'delete', " + NOW_MILLIS + ", old.`category_id`); END");
+
+        String categoryOfNew = "(SELECT `category_id` FROM `tasks` WHERE `id` = new.`parent_task_id`)";
+        String categoryOfOld = "(SELECT `category_id` FROM `tasks` WHERE `id` = old.`parent_task_id`)";
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_subtask_insert` AFTER INSERT ON `subtasks` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('subtask', new.`id`, 'insert', " + NOW_MILLIS + ", " + categoryOfNew
+                + "); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_subtask_update` AFTER UPDATE OF `title`, "
+                + "`is_completed`, `parent_task_id` ON `subtasks` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('subtask', new.`id`, 'update', " + NOW_MILLIS + ", " + categoryOfNew
+                + "); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_subtask_delete` AFTER DELETE ON `subtasks` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('subtask', old.`id`, 'delete', " + NOW_MILLIS + ", " + categoryOfOld
+                + "); END");
+
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_category_insert` AFTER INSERT ON `categories` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('category', new.`id`, 'insert', " + NOW_MILLIS + ", new.`id`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_category_update` AFTER UPDATE OF `name`, `color` "
+                + "ON `categories` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('category', new.`id`, 'update', " + NOW_MILLIS + ", new.`id`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `journal_category_delete` AFTER DELETE ON `categories` BEGIN "
+                + JOURNAL_INSERT + "VALUES ('category', old.`id`, 'delete', " + NOW_MILLIS + ", old.`id`); END");
+    }
+
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             AppDatabase.class, "todo_database")
-                            .addMigrations(MIGRATION_2_3)
-                            // Allowing main thread queries for simplicity in migration from synchronous
-                            // usage
-                            .allowMainThreadQueries()
+                            .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+                                    MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10,
+                                    MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14,
+                                    MIGRATION_14_15, MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18)
+                            .addCallback(CREATE_TRIGGERS)
+                            // WAL lets DataManager's readers run alongside a write
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            // No allowMainThreadQueries(): UI code goes through the
+                            // DataManager *Async methods instead
                             .fallbackToDestructiveMigration()
                             .build();
                 }
@@ -0,0 +1,36 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Counts of archived tasks, added by each archive batch so the statistics can
+ * include archived tasks without reading them. Rows are only ever summed, so a
+ * batch appends its own rows rather than updating existing ones.
+ */
+@Entity(tableName = "archive_totals")
+public class ArchiveTotal {
+
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    @ColumnInfo(name = "category")
+    public String category;
+
+    @ColumnInfo(name = "category_id")
+    public Integer categoryId;
+
+    @ColumnInfo(name = "check_status")
+    public int check;
+
+    // Completion weekday as in DayCount (1 = Sunday); 0 when not completed
+    @ColumnInfo(name = "day_of_week")
+    public int dayOfWeek;
+
+    @ColumnInfo(name = "count")
+    public int count;
+
+    public ArchiveTotal() {
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * A completed or missed task moved out of the tasks table once it is older than
+ * the archive age (see DataManager.archiveOldTasks). Every column of the task
+ * is kept. Tasks with subtasks or attachments are never archived, since those
+ * rows would go with the task (see TaskArchiveDao.ARCHIVABLE). Archived tasks
+ * are read-only history, read a page at a time.
+ *
+ * category_id is not a foreign key here: DataManager unlinks archived rows when
+ * a category is deleted.
+ */
+@Entity(tableName = "archived_tasks", indices = {
+        @Index({ "check_status", "completed_at" }),
+        @Index({ "category_id", "check_status", "completed_at" }) })
+public class ArchivedTask extends TaskRow {
+
+    @ColumnInfo(name = "reminder_minutes")
+    public String reminderMinutes;
+
+    @ColumnInfo(name = "use_alarm", defaultValue = "0")
+    public int useAlarm = 0;
+
+    @ColumnInfo(name = "screen_lock", defaultValue = "0")
+    public int screenLock = 0;
+
+    // Legacy attachment string, see TaskList.attachments
+    @ColumnInfo(name = "attachments")
+    public String attachments;
+
+    @ColumnInfo(name = "created_from")
+    public String createdFrom;
+
+    @ColumnInfo(name = "archived_at")
+    public long archivedAt = 0;
+
+    public ArchivedTask() {
+    }
+}
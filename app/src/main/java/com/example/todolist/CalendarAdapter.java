@@ -122,9 +122,10 @@ public class CalendarAdapter extends RecyclerView.Adapter<CalendarAdapter.DayVie
 
         boolean isCurrentMonth = day.get(Calendar.MONTH) == currentMonth.get(Calendar.MONTH);
         boolean isToday = isSameDay(day, today);
-        boolean isSelected = selectedDays.contains(normalizeToStartOfDay(day.getTimeInMillis()));
+        long dayMillis = normalizeToStartOfDay(day.getTimeInMillis());
+        boolean isSelected = selectedDays.contains(dayMillis);
 
-        boolean isMissed = missedDays.contains(normalizeToStartOfDay(day.getTimeInMillis()));
+        boolean isMissed = missedDays.contains(dayMillis);
 
         // Style based on state
         if (isSelected) {
@@ -146,7 +147,6 @@ public class CalendarAdapter extends RecyclerView.Adapter<CalendarAdapter.DayVie
         }
 
         // Show task indicator dot if this day has tasks or is important
-        long dayMillis = normalizeToStartOfDay(day.getTimeInMillis());
         boolean hasTasks = daysWithTasks.contains(dayMillis);
         boolean isImportant = importantDays.contains(dayMillis);
 
@@ -183,13 +183,7 @@ public class CalendarAdapter extends RecyclerView.Adapter<CalendarAdapter.DayVie
     }
 
     private long normalizeToStartOfDay(long millis) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(millis);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        return cal.getTimeInMillis();
+        return EpochDays.startOfDay(millis);
     }
 
     @Override
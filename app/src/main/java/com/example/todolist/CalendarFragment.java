@@ -19,9 +19,11 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.room.InvalidationTracker;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -42,9 +44,15 @@ public class CalendarFragment extends Fragment {
     private Calendar selectedDate;
     private final Set<Long> selectedDates = new LinkedHashSet<>(); // normalized start-of-day millis
     private DataManager dm;
+    // Bumped per request so that only the latest async result is applied
+    private int indicatorGeneration = 0;
+    private int dayTasksGeneration = 0;
+    // Set when tasks change while the calendar is not showing
+    private boolean stale = false;
+    private InvalidationTracker.Observer tableObserver;
     private CalendarAdapter calendarAdapter;
     private TaskListAdaptar taskAdapter;
-    private ArrayList<TaskList> dayTasks;
+    private ArrayList<TaskRow> dayTasks;
 
     private static final String[] MONTH_NAMES = {
             "Jan", "Feb", "Mar", "Apr", "May", "Jun",
@@ -52,13 +60,7 @@ public class CalendarFragment extends Fragment {
     };
 
     private static long normalizeToStartOfDay(long millis) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(millis);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        return cal.getTimeInMillis();
+        return EpochDays.startOfDay(millis);
     }
 
     public CalendarFragment() {
@@ -211,11 +213,30 @@ public class CalendarFragment extends Fragment {
 
             updateCalendar();
             loadTasksForSelectedDay();
+
+            tableObserver = dm.addTableObserver(tables -> onTasksChanged(),
+                    DataManager.TABLE_TASKS, DataManager.TABLE_SUBTASKS);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private void onTasksChanged() {
+        if (getView() == null)
+            return;
+        if (isResumed() && !isHidden()) {
+            reload();
+        } else {
+            stale = true;
+        }
+    }
+
+    private void reload() {
+        stale = false;
+        updateCalendar();
+        loadTasksForSelectedDay();
+    }
+
     /**
      * Called by MainActivity's single FAB.
      * - Tap a date = select single date
@@ -354,8 +375,6 @@ public class CalendarFragment extends Fragment {
         if (days == null || days.isEmpty())
             return;
 
-        Set<Long> daysWithTasks = new HashSet<>();
-
         // Get the date range for all visible days
         Calendar firstDay = days.get(0);
         Calendar lastDay = days.get(days.size() - 1);
@@ -368,26 +387,45 @@ public class CalendarFragment extends Fragment {
         endCal.set(Calendar.SECOND, 59);
         long endMillis = endCal.getTimeInMillis();
 
-        // Get all calendar tasks in this range
-        // Get all calendar tasks in this range
-        List<TaskList> tasks = dm.getTasksByDateRange(startMillis, endMillis + 86400000);
-
-        Set<Long> missedDays = new HashSet<>();
-        for (TaskList task : tasks) {
-            if (task.dueDate > 0) {
-                long dayStart = normalizeToStartOfDay(task.dueDate);
-                daysWithTasks.add(dayStart);
-                if (task.check == 2) {
-                    missedDays.add(dayStart);
+        // Query the range and project recurring tasks on the database thread
+        final int generation = ++indicatorGeneration;
+        dm.runAsync(() -> {
+            Set<Long> daysWithTasks = new HashSet<>();
+            Set<Long> missedDays = new HashSet<>();
+            List<TaskRow> tasks = dm.getTaskRowsByDateRange(startMillis, endMillis + 86400000);
+            for (TaskRow task : tasks) {
+                if (task.dueDay != EpochDays.NONE) {
+                    long dayStart = EpochDays.startOf(task.dueDay);
+                    daysWithTasks.add(dayStart);
+                    if (task.check == 2) {
+                        missedDays.add(dayStart);
+                    }
                 }
             }
-        }
 
-        // Add projected recurring tasks
-        daysWithTasks.addAll(getRecurringTaskDays(startMillis, endMillis));
+            // Add projected recurring tasks
+            int startDay = EpochDays.of(startMillis);
+            BitSet recurringDays = dm.getRecurringDays(startDay, EpochDays.of(endMillis));
+            for (int i = recurringDays.nextSetBit(0); i >= 0; i = recurringDays.nextSetBit(i + 1)) {
+                daysWithTasks.add(EpochDays.startOf(startDay + i));
+            }
+            return new MonthIndicators(daysWithTasks, missedDays);
+        }, indicators -> {
+            if (generation != indicatorGeneration || !isAdded() || getView() == null)
+                return;
+            calendarAdapter.setDaysWithTasks(indicators.daysWithTasks);
+            calendarAdapter.setMissedDays(indicators.missedDays);
+        });
+    }
+
+    private static final class MonthIndicators {
+        final Set<Long> daysWithTasks;
+        final Set<Long> missedDays;
 
-        calendarAdapter.setDaysWithTasks(daysWithTasks);
-        calendarAdapter.setMissedDays(missedDays);
+        MonthIndicators(Set<Long> daysWithTasks, Set<Long> missedDays) {
+            this.daysWithTasks = daysWithTasks;
+            this.missedDays = missedDays;
+        }
     }
 
     private List<Calendar> generateDaysForMonth() {
@@ -432,8 +470,6 @@ public class CalendarFragment extends Fragment {
     }
 
     private void loadTasksForSelectedDay() {
-        dayTasks.clear();
-
         // Get start and end of selected day
         Calendar startOfDay = (Calendar) selectedDate.clone();
         startOfDay.set(Calendar.HOUR_OF_DAY, 0);
@@ -457,195 +493,93 @@ public class CalendarFragment extends Fragment {
         updateFabState();
 
         // Load ALL tasks for selected date (from both tasks tab and calendar tab)
-        List<TaskList> tasks = dm.getTasksByDateRange(
-                startOfDay.getTimeInMillis(),
-                endOfDay.getTimeInMillis());
-
-        // Add projected recurring tasks for this specific day
-        List<TaskList> projected = getRecurringForecasts(startOfDay.getTimeInMillis());
-        // Filter out if we already have a real task for this recurring series on this
-        // day
-        // (Simple check: if we have a real task with same title? No, title isn't
-        // unique.)
-        // Ideally we check createdFrom or ID, but projected tasks have ID -1.
-        // For now, just show them. Duplicate detection is complex without lineage
-        // tracking.
-        tasks.addAll(projected);
-
-        dayTasks.addAll(tasks);
-        taskAdapter.notifyDataSetChanged();
-
-        if (dayTasks.isEmpty()) {
-            calendarEmptyState.setVisibility(View.VISIBLE);
-            recyclerDayTasks.setVisibility(View.GONE);
-        } else {
-            calendarEmptyState.setVisibility(View.GONE);
-            recyclerDayTasks.setVisibility(View.VISIBLE);
-        }
+        final long dayStart = startOfDay.getTimeInMillis();
+        final long dayEnd = endOfDay.getTimeInMillis();
+        final int generation = ++dayTasksGeneration;
+        dm.runAsync(() -> {
+            List<TaskRow> tasks = dm.getTaskRowsByDateRange(dayStart, dayEnd);
+
+            // Add projected recurring tasks for this specific day
+            List<TaskRow> projected = getRecurringForecasts(dayStart);
+            // Filter out if we already have a real task for this recurring series on this
+            // day
+            // (Simple check: if we have a real task with same title? No, title isn't
+            // unique.)
+            // Ideally we check createdFrom or ID, but projected tasks have ID -1.
+            // For now, just show them. Duplicate detection is complex without lineage
+            // tracking.
+            tasks.addAll(projected);
+            return tasks;
+        }, tasks -> {
+            if (generation != dayTasksGeneration || !isAdded() || getView() == null)
+                return;
+            dayTasks.clear();
+            dayTasks.addAll(tasks);
+            taskAdapter.invalidateSubtasks();
+            taskAdapter.notifyDataSetChanged();
+
+            if (dayTasks.isEmpty()) {
+                calendarEmptyState.setVisibility(View.VISIBLE);
+                recyclerDayTasks.setVisibility(View.GONE);
+            } else {
+                calendarEmptyState.setVisibility(View.GONE);
+                recyclerDayTasks.setVisibility(View.VISIBLE);
+            }
+        });
     }
 
     /**
-     * Calculate virtual task instances for a single specific day.
+     * Calculate virtual task instances for a single specific day from the
+     * recurring tasks forecast on it (see DataManager.getRecurringForecastRows).
+     * Runs on the database thread.
      */
-    private List<TaskList> getRecurringForecasts(long targetDate) {
-        List<TaskList> results = new ArrayList<>();
-        List<TaskList> allTasks = dm.getAllTasks();
-
-        // Normalize target
-        long normalizedTarget = normalizeToStartOfDay(targetDate);
-        long targetEnd = normalizedTarget + 86400000L - 1;
-
-        // Collect parent IDs that already have a real task on this day
-        Set<Integer> existingParentIds = new HashSet<>();
-        Set<Integer> existingTaskIds = new HashSet<>();
-        for (TaskList t : allTasks) {
-            if (t.dueDate >= normalizedTarget && t.dueDate <= targetEnd) {
-                existingTaskIds.add(t.id);
-                if (t.recurringParentId > 0) {
-                    existingParentIds.add(t.recurringParentId);
-                }
-            }
-        }
-
-        for (TaskList t : allTasks) {
-            // Only look at pending recurring tasks
-            if (t.check == 0 && t.repeatType != null && !t.repeatType.equals("none")) {
-                // If due date is 0 (unscheduled), skip
-                if (t.dueDate == 0)
-                    continue;
-
-                // Skip if this task's due date is already on the target day (handled by DB
-                // query)
-                if (t.dueDate >= normalizedTarget && t.dueDate <= targetEnd)
-                    continue;
-
-                // Skip if a child instance already exists on target day for this parent
-                int parentId = t.recurringParentId > 0 ? t.recurringParentId : t.id;
-                if (existingParentIds.contains(parentId) || existingTaskIds.contains(parentId))
-                    continue;
-
-                // Check if this task recurs on 'targetDate'
-                if (isRecurringMatch(t, normalizedTarget)) {
-                    TaskList virtual = new TaskList();
-                    // Manually copy relevant fields
-                    virtual.id = -1; // Virtual ID
-                    virtual.setTask(t.getTask());
-                    virtual.setCategory(t.getCategory());
-                    virtual.setDueDate(normalizedTarget); // Set to target date
-                    virtual.setTaskTime(t.getTaskTime());
-                    virtual.setTime(t.getTime());
-                    virtual.setRepeatType(t.getRepeatType());
-                    virtual.setRepeatInterval(t.getRepeatInterval());
-                    virtual.setRepeatDays(t.getRepeatDays());
-                    virtual.setUseAlarm(t.getUseAlarm());
-                    virtual.setStarred(t.getIsStarred());
-
-                    results.add(virtual);
-                }
-            }
+    private List<TaskRow> getRecurringForecasts(long targetDate) {
+        List<TaskRow> results = new ArrayList<>();
+        int day = EpochDays.of(targetDate);
+        long normalizedTarget = EpochDays.startOf(day);
+
+        for (TaskRow t : dm.getRecurringForecastRows(day)) {
+            TaskRow virtual = new TaskRow();
+            // Manually copy relevant fields
+            virtual.id = -1; // Virtual ID
+            virtual.setTask(t.getTask());
+            virtual.setCategory(t.getCategory());
+            virtual.setDueDate(normalizedTarget); // Set to target date
+            virtual.setTaskTime(t.getTaskTime());
+            virtual.setTime(t.getTime());
+            virtual.setRepeatType(t.getRepeatType());
+            virtual.setRepeatInterval(t.getRepeatInterval());
+            virtual.setRepeatDays(t.getRepeatDays());
+            virtual.setStarred(t.getIsStarred());
+
+            results.add(virtual);
         }
         return results;
     }
 
-    /**
-     * Get all dates that have recurring tasks in the given range.
-     */
-    private Set<Long> getRecurringTaskDays(long start, long end) {
-        Set<Long> days = new HashSet<>();
-        List<TaskList> allTasks = dm.getAllTasks();
-
-        Calendar cursor = Calendar.getInstance();
-
-        for (TaskList t : allTasks) {
-            if (t.check == 0 && t.repeatType != null && !t.repeatType.equals("none") && t.dueDate > 0) {
-                // Determine next occurrence after 'start'
-                // Optimization: Don't loop from task creation date if it's years ago.
-                // Just check days in the range?
-
-                // Brute force check every day in range? (Max 42 days).
-                // 42 * N_Tasks. If 100 recurring tasks -> 4200 checks. Fast enough.
-
-                for (long d = start; d <= end; d += 86400000L) {
-                    if (d <= t.dueDate)
-                        continue; // Only project future
-                    if (isRecurringMatch(t, d)) {
-                        days.add(d);
-                    }
-                }
-            }
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (stale) {
+            reload();
         }
-        return days;
     }
 
-    private boolean isRecurringMatch(TaskList task, long targetDate) {
-        Calendar targetCal = Calendar.getInstance();
-        targetCal.setTimeInMillis(targetDate);
-
-        Calendar dueCal = Calendar.getInstance();
-        dueCal.setTimeInMillis(task.dueDate);
-
-        // Fast fail logic - target must be strictly after the original due date
-        if (targetDate <= task.dueDate)
-            return false;
-
-        // Handle custom_days first (before the switch)
-        if ("custom_days".equals(task.repeatType)) {
-            String repeatDays = task.getRepeatDays();
-            if (repeatDays == null || repeatDays.isEmpty())
-                return false;
-            int targetDow = targetCal.get(Calendar.DAY_OF_WEEK);
-            String[] dayParts = repeatDays.split(",");
-            for (String dp : dayParts) {
-                try {
-                    int dayNum = Integer.parseInt(dp.trim());
-                    if (dayNum == targetDow)
-                        return true;
-                } catch (NumberFormatException ignored) {
-                }
-            }
-            return false;
-        }
-
-        switch (task.repeatType) {
-            case "days":
-                long diffDays = (targetDate - task.dueDate) / (24 * 60 * 60 * 1000);
-                // Need to account for DST??
-                // Safest: Use Calendar add loop if interval > 1.
-                // If interval is 1, it matches every day.
-                if (task.repeatInterval == 1)
-                    return true;
-
-                // For interval > 1, allow slight margin or use strict calendar loop?
-                // Let's use strict calendar loop for correctness but optimize.
-                // Actually (diffDays % interval == 0) is usually fine for "days".
-                return diffDays % task.repeatInterval == 0;
-
-            case "weeks":
-                if (targetCal.get(Calendar.DAY_OF_WEEK) != dueCal.get(Calendar.DAY_OF_WEEK))
-                    return false;
-                long diffWeeks = (targetDate - task.dueDate) / (7 * 24 * 60 * 60 * 1000);
-                return diffWeeks % task.repeatInterval == 0;
-
-            case "months":
-                if (targetCal.get(Calendar.DAY_OF_MONTH) != dueCal.get(Calendar.DAY_OF_MONTH))
-                    return false;
-                // Calculate month diff
-                int diffMonths = (targetCal.get(Calendar.YEAR) - dueCal.get(Calendar.YEAR)) * 12 +
-                        (targetCal.get(Calendar.MONTH) - dueCal.get(Calendar.MONTH));
-                return diffMonths > 0 && diffMonths % task.repeatInterval == 0;
-
-            case "years":
-                return targetCal.get(Calendar.DAY_OF_YEAR) == dueCal.get(Calendar.DAY_OF_YEAR) &&
-                        (targetCal.get(Calendar.YEAR) - dueCal.get(Calendar.YEAR)) % task.repeatInterval == 0;
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (!hidden && stale) {
+            reload();
         }
-        return false;
     }
 
     @Override
-    public void onResume() {
-        super.onResume();
-        updateCalendar();
-        loadTasksForSelectedDay();
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (dm != null) {
+            dm.removeTableObserver(tableObserver);
+        }
+        tableObserver = null;
     }
 
     private void showMonthYearPicker() {
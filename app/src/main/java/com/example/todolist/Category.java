@@ -3,18 +3,20 @@ package com.example.todolist;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * Category model for Room database
  */
-@Entity(tableName = "categories")
+@Entity(tableName = "categories", indices = { @Index(value = "name", unique = true) })
 public class Category {
 
     @PrimaryKey(autoGenerate = true)
     public int id;
 
-    @ColumnInfo(name = "name")
+    // NOCASE so the unique index treats "work" and "Work" as the same name
+    @ColumnInfo(name = "name", collate = ColumnInfo.NOCASE)
     public String name;
 
     @ColumnInfo(name = "color")
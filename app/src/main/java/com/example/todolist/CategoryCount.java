@@ -1,7 +1,9 @@
 package com.example.todolist;
 
+import androidx.room.Ignore;
+
 /**
- * Simple model for category task counts (Room annotations removed)
+ * Simple model for category task counts, filled directly by aggregate queries in TaskDao
  */
 public class CategoryCount {
     public String category;
@@ -10,6 +12,7 @@ public class CategoryCount {
     public CategoryCount() {
     }
 
+    @Ignore
     public CategoryCount(String category, int count) {
         this.category = category;
         this.count = count;
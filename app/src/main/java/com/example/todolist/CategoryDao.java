@@ -20,7 +20,9 @@ public interface CategoryDao {
     @Query("SELECT * FROM categories WHERE name = :name LIMIT 1")
     Category getCategoryByName(String name);
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    // IGNORE rather than REPLACE: replacing would delete the existing row and
+    // null out category_id on its tasks. Returns -1 if the name is taken.
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
     long insert(Category category);
 
     @Update
@@ -0,0 +1,20 @@
+package com.example.todolist;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface ChangeJournalDao {
+
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM change_journal")
+    long getLatestSeq();
+
+    @Query("SELECT DISTINCT category_id FROM change_journal "
+            + "WHERE seq > :afterSeq AND seq <= :upToSeq AND category_id IS NOT NULL")
+    List<Integer> getChangedCategoryIds(long afterSeq, long upToSeq);
+
+    @Query("DELETE FROM change_journal WHERE seq <= :upToSeq")
+    void deleteUpTo(long upToSeq);
+}
@@ -0,0 +1,46 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * One change to a task, subtask or category, in commit order. Written by the
+ * triggers in AppDatabase, in the same transaction as the change itself, and
+ * read by the incremental export in TaskStorageManager.
+ */
+@Entity(tableName = "change_journal")
+public class ChangeJournalEntry {
+
+    public static final String TASK = "task";
+    public static final String SUBTASK = "subtask";
+    public static final String CATEGORY = "category";
+
+    public static final String INSERT = "insert";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    // AUTOINCREMENT, so sequence numbers are never reused after the exported
+    // entries are trimmed
+    @PrimaryKey(autoGenerate = true)
+    public long seq;
+
+    @ColumnInfo(name = "entity_type")
+    public String entityType;
+
+    @ColumnInfo(name = "entity_id")
+    public int entityId;
+
+    @ColumnInfo(name = "operation")
+    public String operation;
+
+    @ColumnInfo(name = "changed_at")
+    public long changedAt;
+
+    // Category whose export file the change lands in; null for tasks without one
+    @ColumnInfo(name = "category_id")
+    public Integer categoryId;
+
+    public ChangeJournalEntry() {
+    }
+}
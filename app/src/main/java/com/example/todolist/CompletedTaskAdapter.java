@@ -20,14 +20,14 @@ import java.util.Map;
 
 public class CompletedTaskAdapter extends RecyclerView.Adapter<CompletedTaskAdapter.CompletedTaskViewHolder> {
 
-    private final List<TaskList> tasks;
+    private final List<TaskRow> tasks;
     private final Map<String, String> categoryColors;
     private final Context context;
     private final SimpleDateFormat completedFormat = new SimpleDateFormat("EEE, dd MMM yyyy, HH:mm",
             Locale.getDefault());
     private final SimpleDateFormat dueDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy", Locale.getDefault());
 
-    public CompletedTaskAdapter(Context context, List<TaskList> tasks, Map<String, String> categoryColors) {
+    public CompletedTaskAdapter(Context context, List<TaskRow> tasks, Map<String, String> categoryColors) {
         this.context = context;
         this.tasks = tasks;
         this.categoryColors = categoryColors;
@@ -42,7 +42,7 @@ public class CompletedTaskAdapter extends RecyclerView.Adapter<CompletedTaskAdap
 
     @Override
     public void onBindViewHolder(@NonNull CompletedTaskViewHolder holder, int position) {
-        TaskList task = tasks.get(position);
+        TaskRow task = tasks.get(position);
 
         holder.tvTaskName.setText(task.getTask());
 
@@ -87,6 +87,12 @@ public class CompletedTaskAdapter extends RecyclerView.Adapter<CompletedTaskAdap
         });
     }
 
+    public void appendTasks(List<TaskRow> page) {
+        int start = tasks.size();
+        tasks.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
     @Override
     public int getItemCount() {
         return tasks.size();
@@ -1,8 +1,6 @@
 package com.example.todolist;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.View;
 import android.widget.TextView;
 
@@ -13,20 +11,27 @@ import androidx.core.view.WindowCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CompletedTasksActivity extends AppCompatActivity {
 
+    private static final int PAGE_SIZE = 50;
+    // Start loading the next page when this close to the end of the list
+    private static final int PREFETCH_DISTANCE = 10;
+
     private RecyclerView recyclerView;
     private TextView emptyView;
     private DataManager dm;
     private CompletedTaskAdapter adapter;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // Keyset of the last loaded row; the next page starts after it
+    private long lastCompletedAt = Long.MAX_VALUE;
+    private int lastId = Integer.MAX_VALUE;
+    private boolean loadingPage = false;
+    private boolean reachedEnd = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -48,48 +53,79 @@ public class CompletedTasksActivity extends AppCompatActivity {
         recyclerView = findViewById(R.id.recycler_completed_tasks);
         emptyView = findViewById(R.id.tv_empty_completed);
 
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
-
-        // Use single thread for DB access
-        executor.execute(() -> {
-            dm = DataManager.getInstance(this);
-            loadData();
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount()
+                        - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
         });
+
+        dm = DataManager.getInstance(this);
+        loadData();
     }
 
     private void loadData() {
         if (dm == null)
             return;
 
-        List<TaskList> completedTasks = dm.getCompletedTasks();
-        List<Category> categories = dm.getAllCategories();
-
-        // Build color map
-        Map<String, String> colorMap = new HashMap<>();
-        for (Category c : categories) {
-            colorMap.put(c.getName(), c.getColor());
-        }
-
-        // Sort by completed time descending (newest first)
-        Collections.sort(completedTasks, (t1, t2) -> Long.compare(t2.getCompletedAt(), t1.getCompletedAt()));
+        final Map<String, String> colorMap = new HashMap<>();
+        loadingPage = true;
+        dm.runAsync(() -> {
+            // Pages come newest first from the completed_at index
+            List<TaskRow> firstPage = dm.getCompletedTaskRowsPage(null, lastCompletedAt, lastId, PAGE_SIZE);
+            List<Category> categories = dm.getAllCategories();
 
-        new Handler(Looper.getMainLooper()).post(() -> {
-            if (completedTasks.isEmpty()) {
+            // Build color map
+            for (Category c : categories) {
+                colorMap.put(c.getName(), c.getColor());
+            }
+            return firstPage;
+        }, firstPage -> {
+            loadingPage = false;
+            if (isFinishing() || isDestroyed())
+                return;
+            onPageLoaded(firstPage);
+            if (firstPage.isEmpty()) {
                 recyclerView.setVisibility(View.GONE);
                 emptyView.setVisibility(View.VISIBLE);
             } else {
                 recyclerView.setVisibility(View.VISIBLE);
                 emptyView.setVisibility(View.GONE);
 
-                adapter = new CompletedTaskAdapter(CompletedTasksActivity.this, completedTasks, colorMap);
+                adapter = new CompletedTaskAdapter(CompletedTasksActivity.this, new ArrayList<>(firstPage),
+                        colorMap);
                 recyclerView.setAdapter(adapter);
             }
         });
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        executor.shutdownNow();
+    private void loadNextPage() {
+        if (loadingPage || reachedEnd || adapter == null)
+            return;
+        loadingPage = true;
+        final long beforeCompletedAt = lastCompletedAt;
+        final int beforeId = lastId;
+        dm.runAsync(() -> dm.getCompletedTaskRowsPage(null, beforeCompletedAt, beforeId, PAGE_SIZE), page -> {
+            loadingPage = false;
+            if (isFinishing() || isDestroyed())
+                return;
+            onPageLoaded(page);
+            adapter.appendTasks(page);
+        });
+    }
+
+    private void onPageLoaded(List<TaskRow> page) {
+        if (page.size() < PAGE_SIZE)
+            reachedEnd = true;
+        if (!page.isEmpty()) {
+            TaskRow last = page.get(page.size() - 1);
+            lastCompletedAt = last.completedAt;
+            lastId = last.id;
+        }
     }
 }
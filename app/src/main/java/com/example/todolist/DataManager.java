@@ -1,9 +1,24 @@
 package com.example.todolist;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * Data manager with Room persistence and sample data generation.
@@ -11,27 +26,77 @@ import java.util.List;
 public class DataManager {
     private static DataManager instance;
 
-    // In-memory cache for synchronous access if needed, but we should rely on DB
-    // where possible.
-    // However, keeping these lists updated ensures minimal changes to existing
-    // adapters that might reference these list objects (if any).
-    // Actually, most adapters call getAllTasks(), so they get a fresh list.
-    // We will keep maintaining these lists to avoid breakage in complex UI flows
-    // that might expect object reference equality in the short term.
-    private final ArrayList<TaskList> tasks = new ArrayList<>();
-    private final ArrayList<Category> categories = new ArrayList<>();
-    private final ArrayList<SubTask> subTasks = new ArrayList<>();
-    private final ArrayList<TaskTemplate> templates = new ArrayList<>();
+    // Category rows, for resolving names to ids and colors without a query.
+    // Replaced as a whole (never modified in place) so readers holding the read
+    // lock can iterate it while another reader refreshes it.
+    private volatile List<Category> categories = new ArrayList<>();
+    // Same rows keyed by id; replaced together with categories
+    private volatile java.util.Map<Integer, Category> categoriesById = new java.util.HashMap<>();
+
+    // The tasks table in memory, indexed for the list filters and counters.
+    // Replaced (never modified) under the write lock, so readers use it
+    // without locking. Null until first read, and after bulk SQL changes.
+    private volatile TaskSnapshot taskSnapshot;
 
     private AppDatabase db;
     private Context context;
     private TaskStorageManager storageManager; // Helper for migration only
+    private WidgetRefreshDispatcher widgetRefresher;
+
+    // Single background thread for all database work requested by the UI.
+    // Being single threaded, queued writes and the reads queued after them run
+    // in order, so a screen can fire a write and then reload without waiting.
+    private final ExecutorService dbExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "DataManager-db");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Reads share the lock and writes take it alone, so a widget or statistics
+    // reload no longer holds up a checkbox tap (SQLite in WAL mode serves the
+    // concurrent reads). Never call a write while holding only the read lock:
+    // the read lock cannot be upgraded.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentHashMap<String, LockWait> lockWaits = new ConcurrentHashMap<>();
+    // Waits longer than a frame are logged
+    private static final long SLOW_LOCK_WAIT_NANOS = 16_000_000L;
+
+    // Time zone the stored due_day values were computed in
+    private static final String DUE_DAY_ZONE_KEY = "due_day_zone";
+
+    // Completed and missed tasks older than this many days move to
+    // archived_tasks (0 or less keeps everything in tasks). Off until the user
+    // turns it on: archived tasks can no longer be edited.
+    private static final String ARCHIVE_AFTER_DAYS_KEY = "archive_after_days";
+    private static final int DEFAULT_ARCHIVE_AFTER_DAYS = 0;
+    // Tasks moved per write lock, so UI reads interleave with a large backlog
+    private static final int ARCHIVE_BATCH_SIZE = 200;
+
+    // Last epoch day task_occurrences is filled to (0: needs a full build)
+    private static final String OCCURRENCE_HORIZON_KEY = "occurrence_horizon_day";
+    // How far past today the forecast reaches; the calendar computes days
+    // beyond it on the fly
+    private static final int OCCURRENCE_HORIZON_DAYS = 180;
+    // The stored horizon, or -1 until read. Changed under the write lock.
+    private volatile int occurrenceHorizon = -1;
+
+    // Recurring instances are generated through this many days after today
+    // (see getInstanceAheadDays), so a missed midnight alarm still finds
+    // today's instances in place
+    private static final String INSTANCE_AHEAD_DAYS_KEY = "instance_ahead_days";
+    private static final int DEFAULT_INSTANCE_AHEAD_DAYS = 2;
+    // A series is generated again once its next occurrence is this close
+    private static final int INSTANCE_REFILL_DAYS = 1;
 
     private DataManager(Context context) {
         this.context = context;
         db = AppDatabase.getDatabase(context);
         storageManager = new TaskStorageManager(context);
-        initializeData();
+        widgetRefresher = WidgetRefreshDispatcher.getInstance(context);
+        // getInstance() is usually first called from the UI thread
+        dbExecutor.execute(this::initializeData);
+        dbExecutor.execute(this::archiveOldTasks);
     }
 
     public static synchronized DataManager getInstance(Context context) {
@@ -41,120 +106,458 @@ public class DataManager {
         return instance;
     }
 
-    private boolean isDirty = false;
+    private volatile boolean isDirty = false;
 
-    // ==================== INITIALIZATION ====================
+    // ==================== LOCKING ====================
 
-    public synchronized void initializeData() {
-        // 1. Load Categories
-        categories.clear();
-        categories.addAll(db.categoryDao().getAllCategories());
-
-        if (categories.isEmpty()) {
-            // Attempt migration from JSON
-            List<Category> jsonCats = storageManager.loadCategories();
-            if (!jsonCats.isEmpty()) {
-                for (Category c : jsonCats) {
-                    // Reset ID to let AutoGenerate handle it, or keep if we want to preserve IDs?
-                    // Preserving IDs is risky if they conflict, but since table is empty, it's
-                    // fine.
-                    // However, we should let DB handle IDs to be safe.
-                    // But if we reset IDs, we break relationships?
-                    // Categories don't have relationships pointing to them by ID (Tasks use
-                    // category NAME string).
-                    // So we can let DB generate IDs.
-                    c.id = 0;
-                    db.categoryDao().insert(c);
-                }
-                categories.addAll(db.categoryDao().getAllCategories());
-            } else {
-                // Defaults
-                insertCategory(new Category("No Category", "#9BA5B0", 1));
-                insertCategory(new Category("Work", "#5B9BD5", 1));
-                insertCategory(new Category("Personal", "#7CB342", 1));
-                insertCategory(new Category("Wishlist", "#FF7043", 1));
-                insertCategory(new Category("Birthday", "#AB47BC", 1));
-                insertCategory(new Category("Health", "#EC407A", 1));
-                insertCategory(new Category("Study", "#5C6BC0", 1));
+    private <T> T read(String op, Supplier<T> body) {
+        Lock readLock = lock.readLock();
+        acquire(readLock, op);
+        try {
+            return body.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <T> T write(String op, Supplier<T> body) {
+        Lock writeLock = lock.writeLock();
+        acquire(writeLock, op);
+        try {
+            return body.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(String op, Runnable body) {
+        write(op, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    private void acquire(Lock l, String op) {
+        long start = System.nanoTime();
+        l.lock();
+        long waited = System.nanoTime() - start;
+        lockWaits.computeIfAbsent(op, k -> new LockWait()).record(waited);
+        if (waited > SLOW_LOCK_WAIT_NANOS) {
+            android.util.Log.w("DataManager", op + " waited " + waited / 1_000_000 + " ms for the lock on "
+                    + Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Lock wait statistics per method since start (or the last reset), one line
+     * per method: calls, total and longest wait. For comparing contention
+     * before and after a change.
+     */
+    public String getLockWaitReport() {
+        StringBuilder sb = new StringBuilder();
+        for (java.util.Map.Entry<String, LockWait> e : new java.util.TreeMap<>(lockWaits).entrySet()) {
+            LockWait w = e.getValue();
+            sb.append(e.getKey())
+                    .append(": calls=").append(w.calls.get())
+                    .append(" totalWaitMs=").append(w.totalNanos.get() / 1_000_000)
+                    .append(" maxWaitMs=").append(w.maxNanos.get() / 1_000_000)
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    public void resetLockWaitStats() {
+        lockWaits.clear();
+    }
+
+    private static final class LockWait {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            calls.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // Another thread raised the max first; retry against it
             }
         }
+    }
+
+    // ==================== ASYNC ====================
+
+    /**
+     * Receives the result of an async DataManager call on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public interface TaskEdit {
+        void apply(TaskList task);
+    }
+
+    /**
+     * Run {@code query} on the database thread and hand its result to
+     * {@code callback} on the main thread. Failures are logged and the callback
+     * is skipped.
+     */
+    public <T> void runAsync(Callable<T> query, Callback<T> callback) {
+        dbExecutor.execute(() -> {
+            final T result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                android.util.Log.e("DataManager", "Async query failed", e);
+                return;
+            }
+            if (callback != null) {
+                mainHandler.post(() -> callback.onResult(result));
+            }
+        });
+    }
+
+    /**
+     * Run {@code work} on the database thread, then {@code onDone} (may be null)
+     * on the main thread.
+     */
+    public void runAsync(Runnable work, Runnable onDone) {
+        runAsync(() -> {
+            work.run();
+            return null;
+        }, onDone == null ? null : ignored -> onDone.run());
+    }
+
+    public void runAsync(Runnable work) {
+        runAsync(work, null);
+    }
+
+    public void getAllTasksAsync(Callback<List<TaskList>> callback) {
+        runAsync(this::getAllTasks, callback);
+    }
+
+    public void getTasksByStatusAsync(int status, Callback<List<TaskList>> callback) {
+        runAsync(() -> getTasksByStatus(status), callback);
+    }
+
+    public void getTasksByStatusAndCategoryAsync(int status, String category, Callback<List<TaskList>> callback) {
+        runAsync(() -> getTasksByStatusAndCategory(status, category), callback);
+    }
+
+    public void getStarredTasksAsync(Callback<List<TaskList>> callback) {
+        runAsync(this::getStarredTasks, callback);
+    }
+
+    public void getAllTaskRowsAsync(Callback<List<TaskRow>> callback) {
+        runAsync(this::getAllTaskRows, callback);
+    }
+
+    public void getTaskRowsByStatusAsync(int status, Callback<List<TaskRow>> callback) {
+        runAsync(() -> getTaskRowsByStatus(status), callback);
+    }
+
+    public void getTaskRowsByStatusAndCategoryAsync(int status, String category,
+            Callback<List<TaskRow>> callback) {
+        runAsync(() -> getTaskRowsByStatusAndCategory(status, category), callback);
+    }
+
+    public void getStarredTaskRowsAsync(Callback<List<TaskRow>> callback) {
+        runAsync(this::getStarredTaskRows, callback);
+    }
+
+    public void getTaskRowsByDateRangeAsync(long start, long end, Callback<List<TaskRow>> callback) {
+        runAsync(() -> getTaskRowsByDateRange(start, end), callback);
+    }
+
+    public void getTaskByIdAsync(int id, Callback<TaskList> callback) {
+        runAsync(() -> getTaskById(id), callback);
+    }
+
+    public void getTasksByDateRangeAsync(long start, long end, Callback<List<TaskList>> callback) {
+        runAsync(() -> getTasksByDateRange(start, end), callback);
+    }
+
+    public void getAllCategoriesAsync(Callback<List<Category>> callback) {
+        runAsync(this::getAllCategories, callback);
+    }
+
+    public void getSubTasksForTaskAsync(int taskId, Callback<List<SubTask>> callback) {
+        runAsync(() -> getSubTasksForTask(taskId), callback);
+    }
+
+    public void getAttachmentsForTaskAsync(int taskId, Callback<List<TaskAttachment>> callback) {
+        runAsync(() -> getAttachmentsForTask(taskId), callback);
+    }
+
+    public void addAttachmentAsync(int taskId, String uri, Callback<TaskAttachment> callback) {
+        runAsync(() -> addAttachment(taskId, uri), callback);
+    }
+
+    public void deleteAttachmentAsync(int attachmentId, Runnable onDone) {
+        runAsync(() -> deleteAttachment(attachmentId), onDone);
+    }
+
+    public void getSubTasksForTasksAsync(List<Integer> taskIds,
+            Callback<java.util.Map<Integer, List<SubTask>>> callback) {
+        runAsync(() -> getSubTasksForTasks(taskIds), callback);
+    }
+
+    public void insertTaskAsync(TaskList task, Callback<Long> callback) {
+        runAsync(() -> insertTask(task), callback);
+    }
+
+    public void getAllTemplatesAsync(Callback<List<TaskTemplate>> callback) {
+        runAsync(this::getAllTemplates, callback);
+    }
+
+    public void recordTemplateUsageAsync(int templateId) {
+        runAsync(() -> recordTemplateUsage(templateId));
+    }
+
+    public void updateTaskAsync(TaskList task) {
+        runAsync(() -> updateTask(task));
+    }
+
+    public void updateTaskAsync(TaskList task, Runnable onDone) {
+        runAsync(() -> updateTask(task), onDone);
+    }
+
+    public void updateStatusAndCompletedAtAsync(int id, int status, long completedAt) {
+        runAsync(() -> updateStatusAndCompletedAt(id, status, completedAt));
+    }
+
+    public void updateStatusAndCompletedAtAsync(int id, int status, long completedAt, Runnable onDone) {
+        runAsync(() -> updateStatusAndCompletedAt(id, status, completedAt), onDone);
+    }
+
+    public void updateStarredAsync(int id, int starred) {
+        runAsync(() -> updateStarred(id, starred));
+    }
+
+    public void deleteTaskAsync(TaskList task, Runnable onDone) {
+        runAsync(() -> deleteTask(task), onDone);
+    }
+
+    public void deleteTaskAsync(int id, Runnable onDone) {
+        runAsync(() -> {
+            TaskList task = getTaskById(id);
+            if (task != null)
+                deleteTask(task);
+        }, onDone);
+    }
+
+    /**
+     * Loads the full task by id, applies {@code edit} and saves it. Used by
+     * screens that only hold a TaskRow.
+     */
+    public void editTaskAsync(int id, TaskEdit edit, Runnable onDone) {
+        runAsync(() -> {
+            TaskList task = getTaskById(id);
+            if (task != null) {
+                edit.apply(task);
+                updateTask(task);
+            }
+        }, onDone);
+    }
+
+    public void insertCategoryAsync(Category category, Runnable onDone) {
+        runAsync(() -> insertCategory(category), onDone);
+    }
+
+    public void deleteCategoryAsync(int categoryId, Runnable onDone) {
+        runAsync(() -> deleteCategory(categoryId), onDone);
+    }
+
+    public void insertSubTaskAsync(SubTask subTask, Runnable onDone) {
+        runAsync(() -> insertSubTask(subTask), onDone);
+    }
+
+    public void updateSubTaskAsync(SubTask subTask) {
+        runAsync(() -> updateSubTask(subTask));
+    }
+
+    public void updateSubTaskAsync(SubTask subTask, Runnable onDone) {
+        runAsync(() -> updateSubTask(subTask), onDone);
+    }
+
+    public void deleteSubTaskAsync(int subTaskId, Runnable onDone) {
+        runAsync(() -> deleteSubTask(subTaskId), onDone);
+    }
+
+    // ==================== CHANGE OBSERVERS ====================
 
-        // 2. Load Tasks
-        tasks.clear();
-        tasks.addAll(db.taskDao().getAllTasks());
-
-        if (tasks.isEmpty()) {
-            // Attempt migration
-            List<TaskList> jsonTasks = storageManager.loadTasks();
-            if (!jsonTasks.isEmpty()) {
-                // We must preserve IDs if possible because SubTasks point to them.
-                // Or we migrate SubTasks intelligently.
-                // Let's try to insert assuming IDs are safe (DB is empty).
-                // Actually, jsonTasks IDs are integers.
-
-                // Map old ID to new ID if we wanted to be perfectly safe, but since DB is
-                // empty,
-                // we can insert with specific IDs if we remove 'autoGenerate' or simple insert.
-                // Room allows inserting object with ID if it doesn't conflict.
-
-                for (TaskList t : jsonTasks) {
-                    // Check if SubTasks exist for this task
-                    // We need to handle this carefully.
-                    long newId = db.taskDao().insert(t); // if t.id is set and not 0, Room tries to use it.
+    public static final String TABLE_TASKS = "tasks";
+    public static final String TABLE_CATEGORIES = "categories";
+    public static final String TABLE_SUBTASKS = "subtasks";
+
+    /**
+     * Call {@code onChanged} on the main thread with the names of the changed
+     * tables whenever a write touches one of {@code tables}. Keep the returned
+     * observer and pass it to {@link #removeTableObserver} when done.
+     */
+    public InvalidationTracker.Observer addTableObserver(Callback<Set<String>> onChanged, String... tables) {
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changedTables) {
+                mainHandler.post(() -> onChanged.onResult(changedTables));
+            }
+        };
+        // Registering may sync Room's triggers, which touches the database
+        dbExecutor.execute(() -> db.getInvalidationTracker().addObserver(observer));
+        return observer;
+    }
+
+    public void removeTableObserver(InvalidationTracker.Observer observer) {
+        if (observer == null)
+            return;
+        dbExecutor.execute(() -> db.getInvalidationTracker().removeObserver(observer));
+    }
+
+    // ==================== INITIALIZATION ====================
+
+    public void initializeData() {
+        write("initializeData", () -> {
+            // 1. Load Categories
+            setCategories(db.categoryDao().getAllCategories());
+
+            if (categories.isEmpty()) {
+                // Attempt migration from JSON
+                List<Category> jsonCats = storageManager.loadCategories();
+                if (!jsonCats.isEmpty()) {
+                    for (Category c : jsonCats) {
+                        // Reset ID to let AutoGenerate handle it, or keep if we want to preserve IDs?
+                        // Preserving IDs is risky if they conflict, but since table is empty, it's
+                        // fine.
+                        // However, we should let DB handle IDs to be safe.
+                        // But if we reset IDs, we break relationships?
+                        // Tasks are linked to categories by name after import
+                        // (linkUncategorizedTasks), so we can let DB generate IDs.
+                        c.id = 0;
+                        db.categoryDao().insert(c);
+                    }
+                    setCategories(db.categoryDao().getAllCategories());
+                } else {
+                    // Defaults
+                    insertCategory(new Category("No Category", "#9BA5B0", 1));
+                    insertCategory(new Category("Work", "#5B9BD5", 1));
+                    insertCategory(new Category("Personal", "#7CB342", 1));
+                    insertCategory(new Category("Wishlist", "#FF7043", 1));
+                    insertCategory(new Category("Birthday", "#AB47BC", 1));
+                    insertCategory(new Category("Health", "#EC407A", 1));
+                    insertCategory(new Category("Study", "#5C6BC0", 1));
                 }
+            }
+            // Pin the widget categories by id before anything can rename them
+            getWidgetCategoryId(WidgetRefreshDispatcher.WORK_CATEGORY);
+            getWidgetCategoryId(WidgetRefreshDispatcher.PERSONAL_CATEGORY);
+
+            // 2. Load Tasks
+            if (db.taskDao().getTaskCount() == 0) {
+                // Attempt migration
+                List<TaskList> jsonTasks = storageManager.loadTasks();
+                if (!jsonTasks.isEmpty()) {
+                    // We must preserve IDs if possible because SubTasks point to them.
+                    // Or we migrate SubTasks intelligently.
+                    // Let's try to insert assuming IDs are safe (DB is empty).
+                    // Actually, jsonTasks IDs are integers.
+
+                    // Map old ID to new ID if we wanted to be perfectly safe, but since DB is
+                    // empty,
+                    // we can insert with specific IDs if we remove 'autoGenerate' or simple insert.
+                    // Room allows inserting object with ID if it doesn't conflict.
+
+                    for (TaskList t : jsonTasks) {
+                        // Check if SubTasks exist for this task
+                        // We need to handle this carefully.
+                        // Old exports carry attachments as a comma-joined string
+                        String legacyAttachments = t.attachments;
+                        t.attachments = "";
+                        long newId = db.taskDao().insert(t); // if t.id is set and not 0, Room tries to use it.
+                        if (t.importedAttachments != null) {
+                            for (TaskAttachment a : t.importedAttachments) {
+                                a.taskId = (int) newId;
+                                db.taskAttachmentDao().insert(a);
+                            }
+                        }
+                        if (legacyAttachments != null) {
+                            for (String uri : legacyAttachments.split(",")) {
+                                if (!uri.trim().isEmpty())
+                                    db.taskAttachmentDao().insert(new TaskAttachment((int) newId, uri.trim()));
+                            }
+                        }
+                    }
 
-                // Reload to get properly saved tasks
-                tasks.addAll(db.taskDao().getAllTasks());
+                    // Imported rows only carry category names
+                    db.taskDao().linkUncategorizedTasks();
+                    resetOccurrences();
 
-                // Migrate SubTasks
-                List<SubTask> jsonSub = storageManager.loadSubTasks();
-                for (SubTask st : jsonSub) {
-                    db.subTaskDao().insert(st);
+                    // Migrate SubTasks
+                    List<SubTask> jsonSub = storageManager.loadSubTasks();
+                    for (SubTask st : jsonSub) {
+                        db.subTaskDao().insert(st);
+                    }
+                } else {
+                    // Only generate sample data on FIRST RUN ever
+                    android.content.SharedPreferences prefs = context.getSharedPreferences("app_prefs",
+                            Context.MODE_PRIVATE);
+                    boolean isFirstRun = prefs.getBoolean("is_first_run", true);
+                    if (isFirstRun) {
+                        generateSampleData();
+                        prefs.edit().putBoolean("is_first_run", false).apply();
+                    }
                 }
             } else {
-                // Only generate sample data on FIRST RUN ever
+                // Data exists, so this is definitely not the first run.
+                // Mark it as such to prevent future sample generation if user clears all tasks.
                 android.content.SharedPreferences prefs = context.getSharedPreferences("app_prefs",
                         Context.MODE_PRIVATE);
-                boolean isFirstRun = prefs.getBoolean("is_first_run", true);
-                if (isFirstRun) {
-                    generateSampleData();
+                if (prefs.getBoolean("is_first_run", true)) {
                     prefs.edit().putBoolean("is_first_run", false).apply();
                 }
             }
-        } else {
-            // Data exists, so this is definitely not the first run.
-            // Mark it as such to prevent future sample generation if user clears all tasks.
-            android.content.SharedPreferences prefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
-            if (prefs.getBoolean("is_first_run", true)) {
-                prefs.edit().putBoolean("is_first_run", false).apply();
-            }
-        }
 
-        // 3. Load SubTasks
-        subTasks.clear();
-        // Since we don't have a specific getAllSubTasks() because it's usually by
-        // Parent,
-        // we can iterate tasks or just leave this empty and query on demand.
-        // But to keep 'subTasks' list populated if needed:
-        // We really should query these on demand.
-        // But for compatibility with existing code that might access 'subTasks'
-        // directly?
-        // Let's assuming getSubTasksForTask is the main access point.
-
-        // Templates (In-memory only usually, or we can persist)
-        if (templates.isEmpty()) {
-            insertTemplate(new TaskTemplate("Drink water, keep healthy", "🥤", "Health", 0, 1));
-            insertTemplate(new TaskTemplate("Brush teeth", "🦷", "Health", 1, 0));
-            insertTemplate(new TaskTemplate("Take a shower", "🚿", "Health", 1, 0));
-            insertTemplate(new TaskTemplate("Go to bed early", "🌙", "Health", 0, 1));
-            insertTemplate(new TaskTemplate("Get up early", "🌅", "Health", 0, 0));
-            insertTemplate(new TaskTemplate("Shopping", "🛒", "Life", 0, 1));
-            insertTemplate(new TaskTemplate("Pay bills", "💳", "Life", 0, 0));
-            insertTemplate(new TaskTemplate("Team meeting", "👥", "Work", 0, 1));
-            insertTemplate(new TaskTemplate("Read a book", "📚", "Study", 0, 0));
-        }
+            // 3. SubTasks are queried per task on demand
+
+            // due_day is local to the zone it was computed in; catch up on a
+            // zone change that happened while the app was not running
+            android.content.SharedPreferences dayPrefs = context.getSharedPreferences("app_prefs",
+                    Context.MODE_PRIVATE);
+            if (!EpochDays.zoneId().equals(dayPrefs.getString(DUE_DAY_ZONE_KEY, null))) {
+                db.taskDao().recomputeDueDays();
+                db.recurrenceCheckpointDao().resetAll();
+                resetOccurrences();
+                dayPrefs.edit().putString(DUE_DAY_ZONE_KEY, EpochDays.zoneId()).apply();
+            }
+            // The import, links and recompute above bypass the task cache
+            invalidateTasks();
+
+            // Templates are persisted; built-in ones are seeded once
+            if (db.taskTemplateDao().getCount() == 0) {
+                List<TaskTemplate> builtIn = new ArrayList<>();
+                builtIn.add(new TaskTemplate("Drink water, keep healthy", "🥤", "Health", 0, 1));
+                builtIn.add(new TaskTemplate("Brush teeth", "🦷", "Health", 1, 0));
+                builtIn.add(new TaskTemplate("Take a shower", "🚿", "Health", 1, 0));
+                builtIn.add(new TaskTemplate("Go to bed early", "🌙", "Health", 0, 1));
+                builtIn.add(new TaskTemplate("Get up early", "🌅", "Health", 0, 0));
+                builtIn.add(new TaskTemplate("Shopping", "🛒", "Life", 0, 1));
+                builtIn.add(new TaskTemplate("Pay bills", "💳", "Life", 0, 0));
+                builtIn.add(new TaskTemplate("Team meeting", "👥", "Work", 0, 1));
+                builtIn.add(new TaskTemplate("Read a book", "📚", "Study", 0, 0));
+                // Seeded usage counts as one use now, so these start ranked first
+                long now = System.currentTimeMillis();
+                for (TaskTemplate t : builtIn) {
+                    if (t.usageCount > 0) {
+                        t.usageCount = 0;
+                        t.recordUse(now);
+                    }
+                }
+                db.taskTemplateDao().insertAll(builtIn);
+            }
 
-        checkAndHandleMissedRecurrences();
+            checkAndHandleMissedRecurrences();
+            refreshOccurrences();
+        });
     }
 
     private void generateSampleData() {
@@ -208,163 +611,429 @@ public class DataManager {
 
     // ==================== TASK OPERATIONS ====================
 
-    public synchronized List<TaskList> getAllTasks() {
-        tasks.clear();
-        tasks.addAll(db.taskDao().getAllTasks());
-        return new ArrayList<>(tasks);
+    // The current task snapshot, loaded on first use. Needs no lock.
+    private TaskSnapshot tasks() {
+        TaskSnapshot snapshot = taskSnapshot;
+        return snapshot != null ? snapshot : read("loadTaskSnapshot", this::loadTaskSnapshot);
     }
 
-    public synchronized List<TaskList> getTasksByStatus(int status) {
-        return db.taskDao().getTasksByStatus(status);
+    // Runs under the read lock, so no write lands between the query and the
+    // publish; concurrent first readers wait here for one load
+    private synchronized TaskSnapshot loadTaskSnapshot() {
+        if (taskSnapshot == null)
+            taskSnapshot = TaskSnapshot.of(db.taskDao().getAllTasks());
+        return taskSnapshot;
     }
 
-    public synchronized List<TaskList> getTasksByCategory(String category) {
-        return db.taskDao().getTasksByCategory(category);
+    // Publishes the snapshot after a write, if one is loaded. Call under the
+    // write lock, once per write, so readers never see half of it.
+    private void updateTasks(java.util.function.UnaryOperator<TaskSnapshot> change) {
+        TaskSnapshot snapshot = taskSnapshot;
+        if (snapshot != null)
+            taskSnapshot = change.apply(snapshot);
     }
 
-    public synchronized List<TaskList> getTasksByStatusAndCategory(int status, String category) {
-        // Complex query, implementing via filtering for now, or could add DAO method.
-        // Keeping Java stream logic for simplicity if complex conditions
-        List<TaskList> all = getAllTasks();
-        ArrayList<TaskList> result = new ArrayList<>();
-        boolean isNoCategory = "No Category".equalsIgnoreCase(category);
-        for (TaskList t : all) {
-            boolean match;
-            if (isNoCategory) {
-                match = (t.category == null || t.category.trim().isEmpty()
-                        || "No Category".equalsIgnoreCase(t.category));
-            } else {
-                match = category.equalsIgnoreCase(t.category);
-            }
-            if (t.check == status && match)
-                result.add(t);
+    // After SQL that changed tasks in bulk; the next read loads the table again
+    private void invalidateTasks() {
+        taskSnapshot = null;
+    }
+
+    /**
+     * The current task snapshot, for scans that only read: its tasks are
+     * shared and must not be modified.
+     */
+    TaskSnapshot getTaskSnapshot() {
+        return tasks();
+    }
+
+    // Snapshot category keys for a category filter, matching the category_id
+    // queries: "No Category" also covers tasks linked to no category row
+    private int[] categoryKeys(String category) {
+        Integer categoryId = findCategoryId(category);
+        if (isNoCategory(category)) {
+            return categoryId != null ? new int[] { TaskSnapshot.UNLINKED, categoryId }
+                    : new int[] { TaskSnapshot.UNLINKED };
         }
+        return categoryId != null ? new int[] { categoryId } : new int[0];
+    }
+
+    public List<TaskList> getAllTasks() {
+        List<TaskList> result = new ArrayList<>();
+        tasks().all(result);
         return result;
     }
 
-    public synchronized List<TaskList> getStarredTasks() {
-        List<TaskList> all = getAllTasks();
-        ArrayList<TaskList> result = new ArrayList<>();
-        for (TaskList t : all) {
-            if (t.isStarred == 1)
-                result.add(t);
-        }
+    public List<TaskList> getTasksByStatus(int status) {
+        List<TaskList> result = new ArrayList<>();
+        tasks().withStatus(status, null, result);
         return result;
     }
 
-    public synchronized List<TaskList> getCompletedTasks() {
-        return getTasksByStatus(1);
+    public List<TaskList> getTasksByCategory(String category) {
+        return read("getTasksByCategory", () -> {
+            Integer categoryId = findCategoryId(category);
+            if (categoryId == null) {
+                return db.taskDao().getTasksByCategory(category);
+            }
+            return db.taskDao().getTasksByCategoryId(categoryId);
+        });
+    }
+
+    /**
+     * One page of archived tasks in id order: all of them ({@code category}
+     * null) or those of a category, matched as in getTasksByCategory. Pass 0,
+     * then the id of the last task read; a page shorter than {@code limit} is
+     * the last one.
+     */
+    public List<ArchivedTask> getArchivedTasksPage(String category, int afterId, int limit) {
+        return read("getArchivedTasksPage", () -> {
+            if (category == null) {
+                return db.taskArchiveDao().getArchivedTasksPage(afterId, limit);
+            }
+            Integer categoryId = findCategoryId(category);
+            if (categoryId == null) {
+                return db.taskArchiveDao().getArchivedTasksPageByCategory(category, afterId, limit);
+            }
+            return db.taskArchiveDao().getArchivedTasksPageByCategoryId(categoryId, afterId, limit);
+        });
     }
 
-    public synchronized TaskList getTaskById(int id) {
-        return db.taskDao().getTaskById(id);
+    public int getArchivedTaskCount() {
+        return read("getArchivedTaskCount", () -> db.taskArchiveDao().getArchivedTaskCount());
     }
 
-    // Keeping memory-based filtering for date ranges to avoid complex SQL queries
-    // in DAO for now,
-    // unless performance is critical.
-    public synchronized List<TaskList> getTasksByDueDate(long startOfDay, long endOfDay) {
-        List<TaskList> all = getAllTasks();
-        ArrayList<TaskList> result = new ArrayList<>();
-        for (TaskList t : all) {
-            if (t.dueDate >= startOfDay && t.dueDate <= endOfDay)
-                result.add(t);
-        }
+    // Category filters match on category_id. "No Category"
+    // also covers tasks whose category name matches no category row.
+    public List<TaskList> getTasksByStatusAndCategory(int status, String category) {
+        List<TaskList> result = new ArrayList<>();
+        tasks().withStatus(status, categoryKeys(category), result);
         return result;
     }
 
-    public synchronized List<TaskList> getTasksByDateRange(long start, long end) {
-        List<TaskList> all = getAllTasks();
-        ArrayList<TaskList> result = new ArrayList<>();
-        for (TaskList t : all) {
-            if (t.dueDate >= start && t.dueDate < end)
-                result.add(t);
-        }
+    public List<TaskList> getStarredTasks() {
+        List<TaskList> result = new ArrayList<>();
+        tasks().starred(result);
         return result;
     }
 
-    public synchronized List<TaskList> getTasksByDateRangeAndSource(long start, long end, String source) {
-        List<TaskList> all = getAllTasks();
-        ArrayList<TaskList> result = new ArrayList<>();
-        for (TaskList t : all) {
-            if (t.dueDate >= start && t.dueDate < end && source.equals(t.createdFrom)) {
-                result.add(t);
-            }
-        }
+    public List<TaskList> getCompletedTasks() {
+        return getTasksByStatus(1);
+    }
+
+    // ==================== LIST ROWS ====================
+    // Same filters as above, returning TaskRow projections for list screens
+    // and widgets. Load the TaskList by id before changing one. The filters
+    // the task snapshot indexes are served from it (as complete rows).
+
+    public List<TaskRow> getAllTaskRows() {
+        return read("getAllTaskRows", () -> db.taskDao().getAllTaskRows());
+    }
+
+    public List<TaskRow> getTaskRowsByStatus(int status) {
+        List<TaskRow> result = new ArrayList<>();
+        tasks().withStatus(status, null, result);
         return result;
     }
 
-    public synchronized List<TaskList> getPendingTasksDueBetween(long start, long end) {
-        List<TaskList> all = getAllTasks();
-        ArrayList<TaskList> result = new ArrayList<>();
-        for (TaskList t : all) {
-            if (t.check == 0 && t.dueDate >= start && t.dueDate <= end)
-                result.add(t);
-        }
+    public List<TaskRow> getTaskRowsByStatusAndCategory(int status, String category) {
+        List<TaskRow> result = new ArrayList<>();
+        tasks().withStatus(status, categoryKeys(category), result);
         return result;
     }
 
-    public synchronized int getCompletedTaskCount() {
-        return getTasksByStatus(1).size();
+    /**
+     * Rows with the given status due between two local epoch days, inclusive
+     * (see EpochDays). A null or "All" category means every category.
+     */
+    public List<TaskRow> getTaskRowsByStatusAndDueDays(int status, String category, int fromDay, int toDay) {
+        int[] keys = category == null || category.equals("All") ? null : categoryKeys(category);
+        List<TaskRow> result = new ArrayList<>();
+        tasks().withStatusDueDays(status, keys, fromDay, toDay, result);
+        return result;
     }
 
-    public synchronized int getPendingTaskCount() {
-        return db.taskDao().getPendingTaskCount();
+    public List<TaskRow> getStarredTaskRows() {
+        List<TaskRow> result = new ArrayList<>();
+        tasks().starred(result);
+        return result;
     }
 
-    public synchronized int getTaskCountByCategory(String category) {
-        return getTasksByCategory(category).size();
+    /**
+     * One page of completed tasks, newest completion first. Pass the completedAt
+     * and id of the last row already shown, or Long.MAX_VALUE and
+     * Integer.MAX_VALUE for the first page. A page shorter than {@code limit}
+     * is the last one.
+     */
+    public List<TaskRow> getCompletedTaskRowsPage(String category, long beforeCompletedAt,
+            int beforeId, int limit) {
+        return read("getCompletedTaskRowsPage", () -> {
+            boolean all = category == null || category.equals("All");
+            boolean uncategorized = !all && isNoCategory(category);
+            Integer categoryId = all ? null : findCategoryId(category);
+            if (!all && !uncategorized && categoryId == null) {
+                return new ArrayList<>();
+            }
+            int noCategoryId = categoryId != null ? categoryId : -1;
+            List<TaskRow> page;
+            if (all) {
+                page = db.taskDao().getCompletedTaskRowsPage(beforeCompletedAt, beforeId, limit);
+            } else if (uncategorized) {
+                page = db.taskDao().getUncategorizedCompletedTaskRowsPage(noCategoryId, beforeCompletedAt,
+                        beforeId, limit);
+            } else {
+                page = db.taskDao().getCompletedTaskRowsPageByCategoryId(categoryId, beforeCompletedAt, beforeId,
+                        limit);
+            }
+            // Archived completions are all older than the newest one in the
+            // archive, so a full page that ends after it needs no archive rows
+            if (page.size() >= limit && page.get(page.size() - 1).completedAt
+                    > db.taskArchiveDao().getNewestCompletedAt()) {
+                return page;
+            }
+            List<TaskRow> archived;
+            if (all) {
+                archived = db.taskArchiveDao().getCompletedTaskRowsPage(beforeCompletedAt, beforeId, limit);
+            } else if (uncategorized) {
+                archived = db.taskArchiveDao().getUncategorizedCompletedTaskRowsPage(noCategoryId,
+                        beforeCompletedAt, beforeId, limit);
+            } else {
+                archived = db.taskArchiveDao().getCompletedTaskRowsPageByCategoryId(categoryId,
+                        beforeCompletedAt, beforeId, limit);
+            }
+            return mergeCompletedPages(page, archived, limit);
+        });
     }
 
-    public synchronized int getPendingCountByCategory(String category) {
-        if ("No Category".equalsIgnoreCase(category)) {
-            return db.taskDao().getPendingTaskCountNoCategory();
+    // Merges two pages in the completed order (completed_at, then id, descending)
+    private static List<TaskRow> mergeCompletedPages(List<TaskRow> a, List<TaskRow> b, int limit) {
+        if (b.isEmpty())
+            return a;
+        List<TaskRow> merged = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0, j = 0;
+        while (merged.size() < limit && (i < a.size() || j < b.size())) {
+            if (j >= b.size()) {
+                merged.add(a.get(i++));
+            } else if (i >= a.size()) {
+                merged.add(b.get(j++));
+            } else {
+                TaskRow x = a.get(i), y = b.get(j);
+                boolean first = x.completedAt != y.completedAt ? x.completedAt > y.completedAt : x.id > y.id;
+                merged.add(first ? a.get(i++) : b.get(j++));
+            }
         }
-        return db.taskDao().getPendingTaskCountByCategory(category);
+        return merged;
     }
 
-    public synchronized long insertTask(TaskList task) {
-        long id = db.taskDao().insert(task); // Returns rowId (which is id)
-        task.id = (int) id;
-        tasks.add(task); // Update cache
-        isDirty = true;
-        sendWidgetUpdate();
-        return id;
+    public List<TaskRow> getTaskRowsByDateRange(long start, long end) {
+        return read("getTaskRowsByDateRange", () -> db.taskDao().getTaskRowsDueInRange(start, end));
     }
 
-    public synchronized long insertAndGetId(TaskList task) {
-        return insertTask(task);
+    /**
+     * Days between two epoch days, inclusive, on which a pending recurring task
+     * repeats after its own due day, as bits counted from {@code startDay}.
+     * Within the forecast horizon this is one range query on task_occurrences;
+     * past it, each task's rule in the snapshot jumps straight to its
+     * occurrences.
+     */
+    public BitSet getRecurringDays(int startDay, int endDay) {
+        BitSet days = new BitSet(endDay - startDay + 1);
+        List<Integer> stored = read("getRecurringDays",
+                () -> endDay <= occurrenceHorizon() ? db.taskOccurrenceDao().getDaysBetween(startDay, endDay) : null);
+        if (stored != null) {
+            for (int day : stored)
+                days.set(day - startDay);
+            return days;
+        }
+        for (TaskList task : tasks().tasksWithStatus(0)) {
+            if (task.dueDate <= 0)
+                continue;
+            RecurrenceRule.of(task).addOccurrences(Math.max(startDay, task.dueDay + 1), endDay, startDay, days);
+        }
+        return days;
     }
 
-    public synchronized void updateTask(TaskList task) {
-        db.taskDao().update(task);
-        // Update cache
-        for (int i = 0; i < tasks.size(); i++) {
-            if (tasks.get(i).id == task.id) {
-                tasks.set(i, task);
-                break;
-            }
+    /**
+     * The pending recurring tasks that repeat on {@code day}, after their own
+     * due day, for series with no real task on that day yet. Ordered by time
+     * of day. The rows are the recurring tasks themselves, not instances; a
+     * series with several pending tasks is forecast from its latest.
+     */
+    public List<TaskRow> getRecurringForecastRows(int day) {
+        List<TaskRow> stored = read("getRecurringForecastRows",
+                () -> day <= occurrenceHorizon() ? db.taskOccurrenceDao().getForecastRows(day) : null);
+        if (stored != null)
+            return stored;
+        TaskSnapshot snapshot = tasks();
+        // Each series is forecast from its latest pending task, as in the query
+        java.util.Map<Integer, TaskList> latest = new java.util.HashMap<>();
+        for (TaskList task : snapshot.tasksWithStatus(0)) {
+            if (task.dueDate <= 0 || task.repeatType == null || "none".equals(task.repeatType))
+                continue;
+            int series = task.recurringParentId > 0 ? task.recurringParentId : task.id;
+            latest.merge(series, task, (a, b) -> b.dueDay > a.dueDay ? b : a);
+        }
+        List<TaskRow> rows = new ArrayList<>();
+        for (java.util.Map.Entry<Integer, TaskList> e : latest.entrySet()) {
+            TaskList task = e.getValue();
+            if (day > task.dueDay && RecurrenceRule.of(task).occursOn(day)
+                    && !snapshot.hasSeriesTaskOn(e.getKey(), day))
+                rows.add(new TaskList(task));
         }
-        isDirty = true;
-        sendWidgetUpdate();
+        rows.sort((a, b) -> Long.compare(EpochDays.timeOfDay(a.dueDate), EpochDays.timeOfDay(b.dueDate)));
+        return rows;
     }
 
-    public synchronized void updateStatusAndCompletedAt(int id, int status, long completedAt) {
-        TaskList task = getTaskById(id);
-        if (task != null) {
-            if (status == 1 && task.check == 0) {
-                handleRecurrence(task);
+    /**
+     * Full-text search over titles, notes and subtask titles. Every word of
+     * {@code text} must match the start of a word in the task.
+     */
+    public List<TaskSearchResult> searchTaskRows(String text, int limit) {
+        return read("searchTaskRows", () -> {
+            StringBuilder query = new StringBuilder();
+            StringBuilder titleQuery = new StringBuilder();
+            // Keep letters and digits only so user input can't form FTS operators
+            for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+                if (word.isEmpty())
+                    continue;
+                if (query.length() > 0) {
+                    query.append(' ');
+                    titleQuery.append(' ');
+                }
+                query.append(word).append('*');
+                titleQuery.append("title:").append(word).append('*');
             }
-            task.check = status;
-            task.completedAt = completedAt;
-            updateTask(task);
+            if (query.length() == 0) {
+                return new ArrayList<>();
+            }
+            return db.taskDao().searchTaskRows(query.toString(), titleQuery.toString(), limit);
+        });
+    }
+
+    public TaskList getTaskById(int id) {
+        return tasks().get(id);
+    }
+
+    // Date-range lookups go straight to indexed queries in TaskDao so the cost
+    // follows the size of the result rather than the size of the table.
+    public List<TaskList> getTasksByDueDate(long startOfDay, long endOfDay) {
+        return read("getTasksByDueDate", () -> db.taskDao().getTasksDueBetweenInclusive(startOfDay, endOfDay));
+    }
+
+    public List<TaskList> getTasksByDateRange(long start, long end) {
+        return read("getTasksByDateRange", () -> db.taskDao().getTasksDueInRange(start, end));
+    }
+
+    public List<TaskList> getTasksByDateRangeAndSource(long start, long end, String source) {
+        return read("getTasksByDateRangeAndSource",
+                () -> db.taskDao().getTasksDueInRangeFromSource(start, end, source));
+    }
+
+    public List<TaskList> getPendingTasksDueBetween(long start, long end) {
+        return read("getPendingTasksDueBetween", () -> db.taskDao().getTasksByStatusDueBetween(0, start, end));
+    }
 
-            if (status == 1) {
-                NotificationHelper helper = new NotificationHelper(context);
-                helper.cancelReminders(task.id);
+    public int getCompletedTaskCount() {
+        return getTaskCountByStatus(1);
+    }
+
+    public int getTaskCountByStatus(int status) {
+        return tasks().countWithStatus(status)
+                + read("getArchivedCountByStatus", () -> db.taskArchiveDao().getCountByStatus(status));
+    }
+
+    public int getOverdueTaskCount() {
+        return tasks().countWithStatusDueDays(0, EpochDays.NONE + 1, EpochDays.today() - 1);
+    }
+
+    public int getPendingTaskCount() {
+        return tasks().countWithStatus(0);
+    }
+
+    public int getTaskCountByCategory(String category) {
+        return read("getTaskCountByCategory", () -> db.taskDao().getTaskCountByCategory(category));
+    }
+
+    public int getPendingCountByCategory(String category) {
+        return tasks().countWithStatus(0, categoryKeys(category));
+    }
+
+    /**
+     * Pending task counts for every category, keyed by category name ignoring
+     * case. Unlinked tasks are counted under "No Category".
+     */
+    public java.util.Map<String, Integer> getPendingCountsByCategory() {
+        java.util.Map<String, Integer> counts = new java.util.TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (java.util.Map.Entry<Integer, Integer> e : tasks().countWithStatusByCategory(0).entrySet()) {
+            String name = "No Category";
+            for (Category c : categories) {
+                if (c.id == e.getKey()) {
+                    name = c.getName();
+                    break;
+                }
             }
-            sendWidgetUpdate();
+            counts.merge(name, e.getValue(), Integer::sum);
         }
+        return counts;
+    }
+
+    public long insertTask(TaskList task) {
+        return write("insertTask", () -> {
+            task.categoryId = findCategoryId(task.category);
+            long id = db.runInTransaction(() -> {
+                long rowId = db.taskDao().insert(task); // Returns rowId (which is id)
+                if (rowId > 0) {
+                    task.id = (int) rowId;
+                    syncOccurrences(null, task);
+                }
+                return rowId;
+            });
+            // -1: an instance for a day its series already has
+            if (id <= 0)
+                return id;
+            updateTasks(snapshot -> snapshot.with(task));
+            isDirty = true;
+            widgetRefresher.taskChanged(null, task);
+            return id;
+        });
+    }
+
+    public long insertAndGetId(TaskList task) {
+        return insertTask(task);
+    }
+
+    public void updateTask(TaskList task) {
+        write("updateTask", () -> {
+            // The previous row tells the widgets which filters the task is leaving,
+            // and whether its forecast moved
+            TaskList before = getTaskById(task.id);
+            task.categoryId = findCategoryId(task.category);
+            db.runInTransaction(() -> {
+                db.taskDao().update(task);
+                syncOccurrences(before, task);
+            });
+            updateTasks(snapshot -> snapshot.withUpdated(task));
+            isDirty = true;
+            widgetRefresher.taskChanged(before, task);
+        });
+    }
+
+    public void updateStatusAndCompletedAt(int id, int status, long completedAt) {
+        write("updateStatusAndCompletedAt", () -> {
+            TaskList task = getTaskById(id);
+            if (task != null) {
+                if (status == 1 && task.check == 0) {
+                    handleRecurrence(task);
+                }
+                task.check = status;
+                task.completedAt = completedAt;
+                updateTask(task);
+
+                if (status == 1) {
+                    NotificationHelper helper = new NotificationHelper(context);
+                    helper.cancelReminders(task.id);
+                }
+            }
+        });
     }
 
     private void handleRecurrence(TaskList task) {
@@ -391,7 +1060,7 @@ public class DataManager {
         newTask.markerType = task.markerType;
         newTask.markerValue = task.markerValue;
         newTask.markerColor = task.markerColor;
-        newTask.setAttachments(task.getAttachments());
+        newTask.copyAttachmentsFrom = task.id;
         newTask.setCreatedFrom(task.getCreatedFrom());
         newTask.setStatus(0);
         newTask.setCompletedAt(0);
@@ -404,6 +1073,8 @@ public class DataManager {
         }
 
         long newId = insertTask(newTask);
+        if (newId <= 0)
+            return; // The next instance already exists
 
         if ((newTask.getUseAlarm() == 1
                 || (newTask.getReminderMinutes() != null && !newTask.getReminderMinutes().isEmpty()))
@@ -429,226 +1100,477 @@ public class DataManager {
     private long calculateSingleNextDueDate(TaskList task, long fromDate) {
         if (fromDate == 0)
             return 0;
-
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.setTimeInMillis(fromDate);
-
-        switch (task.repeatType) {
-            case "days":
-                cal.add(java.util.Calendar.DAY_OF_YEAR, task.repeatInterval);
-                break;
-            case "weeks":
-                cal.add(java.util.Calendar.WEEK_OF_YEAR, task.repeatInterval);
-                break;
-            case "months":
-                cal.add(java.util.Calendar.MONTH, task.repeatInterval);
-                break;
-            case "years":
-                cal.add(java.util.Calendar.YEAR, task.repeatInterval);
-                break;
-            case "custom_days":
-                // Advance day-by-day until we hit a matching day-of-week
-                if (task.repeatDays != null && !task.repeatDays.isEmpty()) {
-                    java.util.Set<Integer> allowedDays = new java.util.HashSet<>();
-                    for (String d : task.repeatDays.split(",")) {
-                        try {
-                            allowedDays.add(Integer.parseInt(d.trim()));
-                        } catch (NumberFormatException ignored) {
-                        }
-                    }
-                    if (allowedDays.isEmpty())
-                        return 0;
-                    // Advance at least 1 day, then find next matching day
-                    for (int attempt = 0; attempt < 8; attempt++) {
-                        cal.add(java.util.Calendar.DAY_OF_YEAR, 1);
-                        if (allowedDays.contains(cal.get(java.util.Calendar.DAY_OF_WEEK))) {
-                            return cal.getTimeInMillis();
-                        }
-                    }
-                    return 0; // No matching day found
-                }
-                return 0;
-            default:
-                return 0;
-        }
-        return cal.getTimeInMillis();
+        int next = RecurrenceRule.of(task).nextAfter(EpochDays.of(fromDate));
+        if (next == EpochDays.NONE)
+            return 0;
+        // Same wall-clock time on the next occurrence
+        return EpochDays.at(next, EpochDays.timeOfDay(fromDate));
     }
 
     // RESTORED METHODS START
-    public synchronized void updateStarred(int id, int starred) {
-        TaskList t = getTaskById(id);
-        if (t != null) {
-            t.isStarred = starred;
-            updateTask(t);
-        }
+    public void updateStarred(int id, int starred) {
+        write("updateStarred", () -> {
+            TaskList t = getTaskById(id);
+            if (t != null) {
+                t.isStarred = starred;
+                updateTask(t);
+            }
+        });
     }
 
-    public synchronized void deleteTask(TaskList task) {
-        db.taskDao().delete(task);
-        tasks.removeIf(t -> t.id == task.id);
-        isDirty = true;
-        sendWidgetUpdate();
+    public void deleteTask(TaskList task) {
+        write("deleteTask", () -> {
+            db.taskDao().delete(task);
+            updateTasks(snapshot -> snapshot.without(task.id));
+            isDirty = true;
+            widgetRefresher.taskChanged(task, null);
+        });
     }
 
-    public synchronized void deleteTaskById(int id) {
-        db.taskDao().deleteById(id);
-        tasks.removeIf(t -> t.id == id);
-        isDirty = true;
+    public void deleteTaskById(int id) {
+        write("deleteTaskById", () -> {
+            db.taskDao().deleteById(id);
+            updateTasks(snapshot -> snapshot.without(id));
+            isDirty = true;
+        });
     }
 
     // ==================== CATEGORY OPERATIONS ====================
 
-    public synchronized List<Category> getAllCategories() {
-        categories.clear();
-        categories.addAll(db.categoryDao().getAllCategories());
-        return new ArrayList<>(categories);
+    public List<Category> getAllCategories() {
+        return read("getAllCategories", () -> {
+            List<Category> loaded = db.categoryDao().getAllCategories();
+            setCategories(loaded);
+            return new ArrayList<>(loaded);
+        });
     }
 
-    // Helper to get color without refreshing from DB (efficient for adapters)
-    public synchronized String getCategoryColor(String categoryName) {
+    // Resolves a category name to its row id from the cache; null for blank or
+    // unknown names
+    private Integer findCategoryId(String categoryName) {
         if (categoryName == null || categoryName.trim().isEmpty())
-            return "#9E9E9E"; // Grey
-
+            return null;
         for (Category c : categories) {
-            if (c.getName().equalsIgnoreCase(categoryName)) {
-                return c.getColor() != null ? c.getColor() : "#2196F3";
+            if (c.getName() != null && c.getName().equalsIgnoreCase(categoryName.trim())) {
+                return c.id;
             }
         }
+        return null;
+    }
+
+    private static boolean isNoCategory(String categoryName) {
+        return categoryName == null || categoryName.trim().isEmpty()
+                || "No Category".equalsIgnoreCase(categoryName.trim());
+    }
+
+    // Helper to get color without refreshing from DB (efficient for adapters).
+    // Looks the row's category_id up in the cached map without the lock, so
+    // binding a row never waits behind a write.
+    public String getCategoryColor(TaskRow task) {
+        Category c = task.categoryId != null ? categoriesById.get(task.categoryId) : null;
+        if (c != null)
+            return c.getColor() != null ? c.getColor() : "#2196F3";
+        if (task.category == null || task.category.trim().isEmpty())
+            return "#9E9E9E"; // Grey
         return "#2196F3"; // Default blue if not found
     }
 
-    public synchronized void insertCategory(Category category) {
-        long id = db.categoryDao().insert(category);
-        category.id = (int) id;
-        categories.add(category);
-        isDirty = true;
+    /**
+     * Id of the category a fixed widget filter ("Work", "Personal") lists.
+     * Resolved by name once and then remembered, so the widget follows the
+     * category through renames; null if no such category exists.
+     */
+    public Integer getWidgetCategoryId(String defaultName) {
+        String key = "widget_category_" + defaultName.toLowerCase(java.util.Locale.ROOT);
+        android.content.SharedPreferences prefs = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE);
+        int stored = prefs.getInt(key, 0);
+        java.util.Map<Integer, Category> byId = categoriesById;
+        if (stored > 0 && (byId.isEmpty() || byId.containsKey(stored)))
+            return stored;
+        Integer found = findCategoryId(defaultName);
+        if (found != null)
+            prefs.edit().putInt(key, found).apply();
+        return found;
     }
 
-    public synchronized void updateCategory(Category category) {
-        db.categoryDao().update(category);
-        for (int i = 0; i < categories.size(); i++) {
-            if (categories.get(i).id == category.id) {
-                categories.set(i, category);
-                break;
+    public void insertCategory(Category category) {
+        write("insertCategory", () -> {
+            long id = db.categoryDao().insert(category);
+            if (id == -1) {
+                // Names are unique ignoring case; hand back the existing row's id
+                Category existing = db.categoryDao().getCategoryByName(category.name);
+                if (existing != null) {
+                    category.id = existing.id;
+                }
+                return;
             }
-        }
-        isDirty = true;
+            category.id = (int) id;
+            List<Category> updated = new ArrayList<>(categories);
+            updated.add(category);
+            setCategories(updated);
+            // Tasks already carrying this name can now point at the row
+            if (db.taskDao().linkUncategorizedTasks() > 0) {
+                invalidateTasks();
+            }
+            isDirty = true;
+        });
     }
 
-    public synchronized void deleteCategory(Category category) {
-        db.categoryDao().delete(category);
-        categories.removeIf(c -> c.id == category.id);
-        isDirty = true;
+    /**
+     * Saves the category; a rename is copied onto its tasks with one indexed
+     * UPDATE instead of rewriting every task. Throws
+     * android.database.sqlite.SQLiteConstraintException if another category
+     * already has the new name.
+     */
+    public void updateCategory(Category category) {
+        write("updateCategory", () -> {
+            Category stored = db.categoryDao().getCategoryById(category.id);
+            db.runInTransaction(() -> {
+                db.categoryDao().update(category);
+                if (stored != null && category.name != null && !category.name.equals(stored.name)) {
+                    db.taskDao().renameCategory(category.id, category.name);
+                    db.taskArchiveDao().renameCategory(category.id, category.name);
+                    db.taskArchiveDao().renameCategoryInTotals(category.id, category.name);
+                }
+            });
+            invalidateTasks();
+            List<Category> updated = new ArrayList<>(categories);
+            for (int i = 0; i < updated.size(); i++) {
+                if (updated.get(i).id == category.id) {
+                    updated.set(i, category);
+                    break;
+                }
+            }
+            setCategories(updated);
+            isDirty = true;
+        });
     }
 
-    public synchronized void deleteCategory(int categoryId) {
-        db.categoryDao().deleteById(categoryId);
-        categories.removeIf(c -> c.id == categoryId);
-        isDirty = true;
+    public void deleteCategory(Category category) {
+        write("deleteCategory", () -> {
+            db.runInTransaction(() -> {
+                db.categoryDao().delete(category);
+                unlinkArchivedCategory(category.id);
+            });
+            removeCachedCategory(category.id);
+            // Its tasks were unlinked by the foreign key
+            invalidateTasks();
+            isDirty = true;
+        });
     }
 
-    // ==================== SUBTASK OPERATIONS ====================
+    public void deleteCategory(int categoryId) {
+        write("deleteCategory", () -> {
+            db.runInTransaction(() -> {
+                db.categoryDao().deleteById(categoryId);
+                unlinkArchivedCategory(categoryId);
+            });
+            removeCachedCategory(categoryId);
+            invalidateTasks();
+            isDirty = true;
+        });
+    }
 
-    public synchronized List<SubTask> getSubTasksForTask(int taskId) {
-        return db.subTaskDao().getSubTasksForTask(taskId);
+    // archived_tasks has no foreign key to categories, so clear the id by hand
+    // like the ON DELETE SET NULL on tasks does
+    private void unlinkArchivedCategory(int categoryId) {
+        db.taskArchiveDao().unlinkCategory(categoryId);
+        db.taskArchiveDao().unlinkCategoryInTotals(categoryId);
     }
 
-    public synchronized void insertSubTask(SubTask subTask) {
-        long id = db.subTaskDao().insert(subTask);
-        subTask.id = (int) id;
-        subTasks.add(subTask); // Optional cache update
-        isDirty = true;
+    private void removeCachedCategory(int categoryId) {
+        List<Category> updated = new ArrayList<>(categories);
+        updated.removeIf(c -> c.id == categoryId);
+        setCategories(updated);
     }
 
-    public synchronized void updateSubTask(SubTask subTask) {
-        db.subTaskDao().update(subTask);
-        isDirty = true;
+    // Call under the write lock (or the read lock when reloading from the table)
+    private void setCategories(List<Category> loaded) {
+        java.util.Map<Integer, Category> byId = new java.util.HashMap<>();
+        for (Category c : loaded) {
+            byId.put(c.id, c);
+        }
+        categories = loaded;
+        categoriesById = byId;
     }
 
-    public synchronized void deleteSubTask(SubTask subTask) {
-        db.subTaskDao().delete(subTask);
-        isDirty = true;
+    // ==================== SUBTASK OPERATIONS ====================
+
+    public List<SubTask> getSubTasksForTask(int taskId) {
+        return read("getSubTasksForTask", () -> db.subTaskDao().getSubTasksForTask(taskId));
     }
 
-    public synchronized void deleteSubTask(int subTaskId) {
-        db.subTaskDao().deleteById(subTaskId);
-        isDirty = true;
+    /**
+     * Subtasks of several tasks from one query, keyed by parent task id. Tasks
+     * without subtasks have no entry.
+     */
+    public java.util.Map<Integer, List<SubTask>> getSubTasksForTasks(List<Integer> taskIds) {
+        return read("getSubTasksForTasks", () -> {
+            java.util.Map<Integer, List<SubTask>> byTask = new java.util.HashMap<>();
+            for (SubTask st : db.subTaskDao().getSubTasksForTasks(taskIds)) {
+                byTask.computeIfAbsent(st.parentTaskId, k -> new ArrayList<>()).add(st);
+            }
+            return byTask;
+        });
     }
 
-    // ==================== TEMPLATES ====================
-    // Keep internal for now unless persisted
-    public synchronized List<TaskTemplate> getAllTemplates() {
-        return new ArrayList<>(templates);
+    public void insertSubTask(SubTask subTask) {
+        write("insertSubTask", () -> {
+            long id = db.subTaskDao().insert(subTask);
+            subTask.id = (int) id;
+            reloadCachedTask(subTask.parentTaskId);
+            isDirty = true;
+        });
     }
 
-    public synchronized void insertTemplate(TaskTemplate template) {
-        templates.add(template);
+    public void updateSubTask(SubTask subTask) {
+        write("updateSubTask", () -> {
+            db.subTaskDao().update(subTask);
+            reloadCachedTask(subTask.parentTaskId);
+            isDirty = true;
+        });
     }
 
-    public synchronized int getTemplateCount() {
-        return templates.size();
+    public void deleteSubTask(SubTask subTask) {
+        write("deleteSubTask", () -> {
+            db.subTaskDao().delete(subTask);
+            reloadCachedTask(subTask.parentTaskId);
+            isDirty = true;
+        });
     }
 
-    public synchronized List<TaskTemplate> getTemplatesByCategory(String category) {
-        ArrayList<TaskTemplate> result = new ArrayList<>();
-        for (TaskTemplate t : templates) {
-            if (category.equals(t.category))
-                result.add(t);
-        }
-        return result;
+    public void deleteSubTask(int subTaskId) {
+        write("deleteSubTask", () -> {
+            Integer parentTaskId = db.subTaskDao().getParentTaskId(subTaskId);
+            db.subTaskDao().deleteById(subTaskId);
+            if (parentTaskId != null)
+                reloadCachedTask(parentTaskId);
+            isDirty = true;
+        });
     }
 
-    // ==================== STATISTICS ====================
-    // Keep Java logic using getTasksBy... methods
-
-    public synchronized List<CategoryCount> getPendingCountsByCategoryBetween(long start, long end) {
-        ArrayList<CategoryCount> result = new ArrayList<>();
-        java.util.Map<String, Integer> counts = new java.util.HashMap<>();
-        List<TaskList> all = getAllTasks();
-
-        for (TaskList t : all) {
-            if (t.check == 0 && t.dueDate >= start && t.dueDate <= end) {
-                String cat = (t.category != null && !t.category.trim().isEmpty()) ? t.category : "No Category";
-                if ("No Category".equalsIgnoreCase(cat))
-                    cat = "No Category";
-                counts.put(cat, counts.getOrDefault(cat, 0) + 1);
+    // The subtask triggers changed the parent's counts in the table
+    private void reloadCachedTask(int taskId) {
+        TaskList task = db.taskDao().getTaskById(taskId);
+        if (task != null)
+            updateTasks(snapshot -> snapshot.with(task));
+    }
+
+    // ==================== ATTACHMENTS ====================
+    // Metadata comes from the ContentResolver, which is a binder call per file:
+    // it is looked up once, outside the lock, and stored with the row
+
+    /**
+     * Attachments of a task, oldest first. Rows that have never been resolved
+     * (moved over from the old attachments string) are resolved and saved here.
+     */
+    public List<TaskAttachment> getAttachmentsForTask(int taskId) {
+        List<TaskAttachment> attachments = read("getAttachmentsForTask",
+                () -> db.taskAttachmentDao().getForTask(taskId));
+        List<TaskAttachment> resolved = new ArrayList<>();
+        for (TaskAttachment a : attachments) {
+            if (!a.isResolved()) {
+                resolveAttachment(a);
+                resolved.add(a);
             }
         }
-        for (java.util.Map.Entry<String, Integer> e : counts.entrySet()) {
-            result.add(new CategoryCount(e.getKey(), e.getValue()));
+        if (!resolved.isEmpty()) {
+            write("resolveAttachments", () -> {
+                for (TaskAttachment a : resolved) {
+                    db.taskAttachmentDao().update(a);
+                }
+            });
         }
-        return result;
+        return attachments;
+    }
+
+    /**
+     * Every task's attachments, keyed by task id, as stored (unresolved rows
+     * included), for backups. Tasks without attachments have no entry.
+     */
+    public java.util.Map<Integer, List<TaskAttachment>> getAllAttachmentsByTask() {
+        return read("getAllAttachmentsByTask", () -> {
+            java.util.Map<Integer, List<TaskAttachment>> byTask = new java.util.HashMap<>();
+            for (TaskAttachment a : db.taskAttachmentDao().getAll()) {
+                byTask.computeIfAbsent(a.taskId, k -> new ArrayList<>()).add(a);
+            }
+            return byTask;
+        });
+    }
+
+    /**
+     * Attach a file to a task, reading its name, type and size first.
+     */
+    public TaskAttachment addAttachment(int taskId, String uri) {
+        TaskAttachment attachment = new TaskAttachment(taskId, uri);
+        resolveAttachment(attachment);
+        write("addAttachment", () -> {
+            attachment.id = (int) db.taskAttachmentDao().insert(attachment);
+            isDirty = true;
+        });
+        return attachment;
     }
 
-    public synchronized List<DayCount> getCompletedCountsByDayOfWeek(long weekStart, long weekEnd) {
-        ArrayList<DayCount> result = new ArrayList<>();
-        java.util.Map<Integer, Integer> counts = new java.util.HashMap<>();
-        List<TaskList> all = getAllTasks(); // Refresh
+    public void deleteAttachment(int attachmentId) {
+        write("deleteAttachment", () -> {
+            db.taskAttachmentDao().deleteById(attachmentId);
+            isDirty = true;
+        });
+    }
 
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        for (TaskList t : all) {
-            if (t.check == 1 && t.completedAt >= weekStart && t.completedAt <= weekEnd) {
-                cal.setTimeInMillis(t.completedAt);
-                int dayOfWeek = cal.get(java.util.Calendar.DAY_OF_WEEK);
-                counts.put(dayOfWeek, counts.getOrDefault(dayOfWeek, 0) + 1);
+    private void resolveAttachment(TaskAttachment attachment) {
+        android.net.Uri uri = android.net.Uri.parse(attachment.uri);
+        String name = null;
+        try {
+            if (attachment.uri.startsWith("content://")) {
+                attachment.mimeType = context.getContentResolver().getType(uri);
+                try (android.database.Cursor cursor = context.getContentResolver().query(uri, new String[] {
+                        android.provider.OpenableColumns.DISPLAY_NAME, android.provider.OpenableColumns.SIZE },
+                        null, null, null)) {
+                    if (cursor != null && cursor.moveToFirst()) {
+                        name = cursor.getString(0);
+                        if (!cursor.isNull(1))
+                            attachment.size = cursor.getLong(1);
+                    }
+                }
             }
+        } catch (Exception e) {
+            // Permission revoked or provider gone: fall back to the path below
+            android.util.Log.w("DataManager", "Could not resolve attachment " + attachment.uri, e);
         }
-        for (java.util.Map.Entry<Integer, Integer> e : counts.entrySet()) {
-            result.add(new DayCount(e.getKey(), e.getValue()));
+        if (name == null) {
+            name = uri.getLastPathSegment();
         }
-        return result;
+        attachment.displayName = name != null ? name : "Attachment";
+    }
+
+    // ==================== TEMPLATES ====================
+    // Returned most frecent first (see TaskTemplate)
+    public List<TaskTemplate> getAllTemplates() {
+        return read("getAllTemplates", () -> db.taskTemplateDao().getAllByFrecency());
+    }
+
+    public void insertTemplate(TaskTemplate template) {
+        write("insertTemplate", () -> {
+            template.id = (int) db.taskTemplateDao().insert(template);
+        });
+    }
+
+    public int getTemplateCount() {
+        return read("getTemplateCount", () -> db.taskTemplateDao().getCount());
+    }
+
+    public List<TaskTemplate> getTemplatesByCategory(String category) {
+        return read("getTemplatesByCategory", () -> db.taskTemplateDao().getByCategoryByFrecency(category));
+    }
+
+    /**
+     * Count a use of the template, moving it up the frecency order.
+     */
+    public void recordTemplateUsage(int templateId) {
+        write("recordTemplateUsage", () -> {
+            TaskTemplate template = db.taskTemplateDao().getById(templateId);
+            if (template == null)
+                return;
+            template.recordUse(System.currentTimeMillis());
+            db.taskTemplateDao().update(template);
+        });
+    }
+
+    // ==================== STATISTICS ====================
+    // Counting is done in SQL so only the grouped rows cross the cursor
+
+    public List<CategoryCount> getPendingCountsByCategoryBetween(long start, long end) {
+        return read("getPendingCountsByCategoryBetween",
+                () -> db.taskDao().getPendingCountsByCategoryDueBetween(start, end));
+    }
+
+    public List<DayCount> getCompletedCountsByDayOfWeek(long weekStart, long weekEnd) {
+        return read("getCompletedCountsByDayOfWeek", () -> {
+            List<DayCount> counts = db.taskDao().getCompletedCountsByDayOfWeek(weekStart, weekEnd);
+            TaskArchiveDao archive = db.taskArchiveDao();
+            long oldest = archive.getOldestCompletedAt();
+            if (oldest == 0)
+                return counts;
+            List<DayCount> archived;
+            if (weekStart <= oldest && weekEnd >= archive.getNewestCompletedAt()) {
+                // The range covers the whole archive: read the kept totals
+                archived = archive.getCompletedCountsByDayOfWeek();
+            } else {
+                archived = archive.getCompletedCountsByDayOfWeek(weekStart, weekEnd);
+            }
+            return mergeDayCounts(counts, archived);
+        });
+    }
+
+    /**
+     * Completions per weekday over all time: live tasks plus the archive's
+     * kept totals.
+     */
+    public List<DayCount> getCompletedCountsByDayOfWeek() {
+        return read("getCompletedCountsByDayOfWeek", () -> mergeDayCounts(
+                db.taskDao().getCompletedCountsByDayOfWeek(), db.taskArchiveDao().getCompletedCountsByDayOfWeek()));
     }
 
-    public synchronized void initializeDefaultData() {
+    private static List<DayCount> mergeDayCounts(List<DayCount> live, List<DayCount> archived) {
+        if (archived.isEmpty())
+            return live;
+        java.util.Map<Integer, Integer> byDay = new java.util.TreeMap<>();
+        for (DayCount dc : live)
+            byDay.merge(dc.dayOfWeek, dc.count, Integer::sum);
+        for (DayCount dc : archived)
+            byDay.merge(dc.dayOfWeek, dc.count, Integer::sum);
+        List<DayCount> merged = new ArrayList<>(byDay.size());
+        for (java.util.Map.Entry<Integer, Integer> e : byDay.entrySet())
+            merged.add(new DayCount(e.getKey(), e.getValue()));
+        return merged;
+    }
+
+    /**
+     * Task counts per category, largest first. Blank categories are grouped as
+     * "Unknown".
+     */
+    public List<CategoryCount> getCategoryCounts() {
+        return read("getCategoryCounts", () -> mergeCategoryCounts(db.taskDao().getCategoryCounts(),
+                db.taskArchiveDao().getCategoryCounts()));
+    }
+
+    public List<CategoryCount> getCategoryCountsByStatus(int status) {
+        return read("getCategoryCountsByStatus", () -> mergeCategoryCounts(
+                db.taskDao().getCategoryCountsByStatus(status),
+                db.taskArchiveDao().getCategoryCountsByStatus(status)));
+    }
+
+    // Adds the archived counts to the live ones by name, largest first
+    private static List<CategoryCount> mergeCategoryCounts(List<CategoryCount> live,
+            List<CategoryCount> archived) {
+        if (archived.isEmpty())
+            return live;
+        java.util.Map<String, Integer> byName = new java.util.LinkedHashMap<>();
+        for (CategoryCount cc : live)
+            byName.merge(cc.category, cc.count, Integer::sum);
+        for (CategoryCount cc : archived)
+            byName.merge(cc.category, cc.count, Integer::sum);
+        List<CategoryCount> merged = new ArrayList<>(byName.size());
+        for (java.util.Map.Entry<String, Integer> e : byName.entrySet())
+            merged.add(new CategoryCount(e.getKey(), e.getValue()));
+        merged.sort((x, y) -> Integer.compare(y.count, x.count));
+        return merged;
+    }
+
+    public List<TaskRow> getUpcomingPendingTaskRows(int limit) {
+        return read("getUpcomingPendingTaskRows", () -> db.taskDao().getUpcomingPendingTaskRows(limit));
+    }
+
+    public void initializeDefaultData() {
         initializeData();
     }
 
-    public synchronized int getAllTasksCount() {
-        return db.taskDao().getAllTasks().size();
-        // or return tasks.size();
+    public int getAllTasksCount() {
+        return read("getAllTasksCount", () -> db.taskDao().getTaskCount());
     }
 
-    public synchronized int getCategoryCount() {
+    public int getCategoryCount() {
         return categories.size();
     }
     // RESTORED METHODS END
@@ -656,296 +1578,443 @@ public class DataManager {
     public void checkAndHandleMissedRecurrences() {
         // Helper to check overdue recurring tasks and mark them missed, creating
         // subsequent tasks
-        // NOT synchronized to avoid blocking UI thread for long duration
-        List<TaskList> all = getAllTasks(); // Internal call, synchronized
+        // Not locked as a whole: the instances are computed from a task snapshot
+        // and only the final batched transaction takes the write lock
+        Iterable<TaskList> pending = tasks().tasksWithStatus(0);
 
-        long todayStart = 0;
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        cal.set(java.util.Calendar.MINUTE, 0);
-        cal.set(java.util.Calendar.SECOND, 0);
-        cal.set(java.util.Calendar.MILLISECOND, 0);
-        todayStart = cal.getTimeInMillis();
+        long todayStart = EpochDays.startOf(EpochDays.today());
 
-        List<TaskList> newTasks = new ArrayList<>();
-        boolean changed = false;
+        // Overdue task id -> the instances that fill its gap up to today
+        java.util.Map<Integer, List<TaskList>> instancesByTask = new java.util.LinkedHashMap<>();
+        List<TaskList> overdue = new ArrayList<>();
 
-        for (TaskList task : all) {
+        for (TaskList task : pending) {
             boolean isRecurring = task.repeatType != null && !task.repeatType.equals("none");
 
             // Look for pending tasks that are overdue
             if (task.check == 0 && isRecurring) {
                 if (task.dueDate > 0 && task.dueDate < todayStart) {
-
-                    // Atomic check and update to prevent race conditions (e.g. user completes task
-                    // while we process)
-                    boolean proceed = false;
-                    synchronized (this) {
-                        TaskList current = getTaskById(task.id);
-                        if (current != null && current.check == 0) {
-                            current.check = 2; // Missed
-                            updateTask(current);
-                            proceed = true;
-                            changed = true;
+                    // Fill the gap between that task's due date and today
+                    List<TaskList> instances = new ArrayList<>();
+                    long currentProcessingDate = task.dueDate;
+
+                    // Safety break to prevent infinite loops (e.g. max 2000 instances)
+                    int iterations = 0;
+
+                    while (iterations < 2000) {
+                        long nextDate = calculateSingleNextDueDate(task, currentProcessingDate);
+
+                        if (nextDate <= 0)
+                            break; // Error or invalid
+                        if (nextDate >= todayStart) {
+                            // This instance falls on (or after) today. Create it as PENDING.
+                            instances.add(createNextTaskInstance(task, nextDate, 0));
+                            break; // Done filling gaps
                         }
-                    }
+                        // This instance is ALSO in the past. Create it as MISSED.
+                        instances.add(createNextTaskInstance(task, nextDate, 2));
 
-                    if (proceed) {
-                        // Now fill the gap between that task's due date and today
-                        long currentProcessingDate = task.dueDate;
-
-                        // Safety break to prevent infinite loops (e.g. max 2000 instances)
-                        int iterations = 0;
-
-                        while (iterations < 2000) {
-                            long nextDate = calculateSingleNextDueDate(task, currentProcessingDate);
-
-                            if (nextDate <= 0)
-                                break; // Error or invalid
-                            if (nextDate >= todayStart) {
-                                // This instance falls on (or after) today. Create it as PENDING.
-                                TaskList nextTask = createNextTaskInstance(task, nextDate, 0);
-                                newTasks.add(nextTask);
-                                break; // Done filling gaps
-                            } else {
-                                // This instance is ALSO in the past. Create it as MISSED.
-                                TaskList missedTask = createNextTaskInstance(task, nextDate, 2);
-                                // We insert directly or add to a list to insert?
-                                // Better to add to list to batch, but we need IDs?
-                                // Actually, insertTask is synchronized. Safe.
-                                // However, we are iterating 'all' which is a copy, so safe to modify DB.
-                                // But we are in a loop for ONE original task.
-                                // Let's add to 'newTasks' list, but wait..
-                                // If we add to 'newTasks', the loop below will insert them.
-                                // But for "missed" ones, we might want to insert them now or just add to list.
-                                // The problem is createNextTaskInstance returns an object.
-                                newTasks.add(missedTask);
-                            }
-
-                            currentProcessingDate = nextDate;
-                            iterations++;
-                        }
+                        currentProcessingDate = nextDate;
+                        iterations++;
                     }
+                    instancesByTask.put(task.id, instances);
+                    overdue.add(task);
                 }
             }
         }
 
-        if (!newTasks.isEmpty()) {
-            for (TaskList t : newTasks) {
-                long newId = insertTask(t); // Synchronized
+        if (instancesByTask.isEmpty())
+            return;
 
-                // Schedule reminders ONLY for Pending tasks (Status 0) that are in future/today
-                if (t.check == 0
-                        && (t.getUseAlarm() == 1
-                                || (t.getReminderMinutes() != null && !t.getReminderMinutes().isEmpty()))
-                        && t.getDueDate() > System.currentTimeMillis()) {
-                    NotificationHelper helper = new NotificationHelper(context);
-                    helper.scheduleReminders(
-                            (int) newId,
-                            t.getTask(),
-                            t.getDueDate(),
-                            t.getTaskTime(),
-                            t.getReminderMinutes(),
-                            t.getUseAlarm() == 1,
-                            t.getScreenLock() == 1);
+        List<TaskList> inserted = write("markMissedAndInsertInstances", () -> {
+            // One transaction: each overdue task is marked missed only if it is still
+            // pending (the user may have completed it meanwhile), then all of the
+            // surviving instances are bulk inserted
+            for (List<TaskList> instances : instancesByTask.values()) {
+                for (TaskList t : instances) {
+                    t.categoryId = findCategoryId(t.category);
                 }
             }
-        }
+            List<TaskList> result = db.runInTransaction(() -> {
+                List<TaskList> instances = db.taskDao().markMissedAndInsertInstances(instancesByTask);
+                // The overdue tasks are no longer pending, so they lose their forecast
+                db.taskOccurrenceDao().deleteForTasks(new ArrayList<>(instancesByTask.keySet()));
+                insertOccurrences(instances);
+                return instances;
+            });
+            updateTasks(snapshot -> {
+                // Same condition as markMissedIfPending
+                for (int id : instancesByTask.keySet()) {
+                    TaskList task = snapshot.get(id);
+                    if (task != null && task.check == 0) {
+                        task.check = 2;
+                        snapshot = snapshot.withUpdated(task);
+                    }
+                }
+                for (TaskList t : result)
+                    snapshot = snapshot.with(t);
+                return snapshot;
+            });
+            isDirty = true;
+            return result;
+        });
+
+        // The overdue tasks left every widget filter when they were marked missed
+        overdue.addAll(inserted);
+        widgetRefresher.tasksChanged(overdue);
+        scheduleRemindersForNewTasks(inserted);
     }
 
-    /**
-     * Generate today's recurring task instances proactively.
-     * This is called at midnight (via MidnightTaskScheduler) and on app startup.
-     * It creates actual task entries for today based on recurring task patterns.
-     * 
-     * Logic:
-     * 1. Find all "parent" recurring tasks (recurringParentId == 0 and has
-     * recurrence)
-     * 2. For each parent, check if today should have a task instance
-     * 3. If no instance exists for today (by checking recurringParentId and date),
-     * create one
-     */
-    public void generateTodaysRecurringTasks() {
-        // NOT synchronized to avoid blocking UI
-        List<TaskList> all = getAllTasks(); // Synchronized
-
-        // Calculate today's date range
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        cal.set(java.util.Calendar.MINUTE, 0);
-        cal.set(java.util.Calendar.SECOND, 0);
-        cal.set(java.util.Calendar.MILLISECOND, 0);
-        long todayStart = cal.getTimeInMillis();
-
-        cal.add(java.util.Calendar.DAY_OF_YEAR, 1);
-        long tomorrowStart = cal.getTimeInMillis();
-
-        List<TaskList> tasksToCreate = new ArrayList<>();
-
-        // Build a set of parent IDs that already have a task for today
-        java.util.Set<Integer> parentsWithTodayTasks = new java.util.HashSet<>();
+    public int getArchiveAfterDays() {
+        return context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE)
+                .getInt(ARCHIVE_AFTER_DAYS_KEY, DEFAULT_ARCHIVE_AFTER_DAYS);
+    }
 
-        // Also collect parent recurring tasks
-        java.util.List<TaskList> parentRecurringTasks = new ArrayList<>();
+    public void setArchiveAfterDays(int days) {
+        context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE).edit()
+                .putInt(ARCHIVE_AFTER_DAYS_KEY, days).apply();
+    }
 
-        for (TaskList task : all) {
-            boolean isRecurring = task.repeatType != null && !task.repeatType.equals("none");
+    /**
+     * Moves completed and missed tasks older than {@link #getArchiveAfterDays()}
+     * into archived_tasks, one batch per write lock. While batches come back
+     * full the next one is queued on the db thread, behind any UI work queued
+     * meanwhile. Archived tasks keep counting in the statistics and completed
+     * history but are no longer editable. Tasks with subtasks or attachments
+     * stay in tasks (see TaskArchiveDao.ARCHIVABLE), so nothing is dropped.
+     */
+    public void archiveOldTasks() {
+        int days = getArchiveAfterDays();
+        if (days <= 0)
+            return;
+        long cutoff = EpochDays.startOf(EpochDays.today() - days);
+        int moved = write("archiveOldTasks", () -> {
+            List<Integer> ids = db.taskArchiveDao().archiveBatch(cutoff, System.currentTimeMillis(),
+                    ARCHIVE_BATCH_SIZE);
+            updateTasks(snapshot -> {
+                for (int id : ids)
+                    snapshot = snapshot.without(id);
+                return snapshot;
+            });
+            if (!ids.isEmpty())
+                isDirty = true;
+            return ids.size();
+        });
+        if (moved > 0)
+            android.util.Log.d("DataManager", "Archived " + moved + " tasks");
+        if (moved == ARCHIVE_BATCH_SIZE)
+            dbExecutor.execute(this::archiveOldTasks);
+    }
 
-            // If this task is due today, mark its parent as having a task for today
-            if (task.dueDate >= todayStart && task.dueDate < tomorrowStart) {
-                if (task.recurringParentId > 0) {
-                    parentsWithTodayTasks.add(task.recurringParentId);
-                } else if (isRecurring) {
-                    // This is a parent task that's due today
-                    parentsWithTodayTasks.add(task.id);
-                }
-            }
+    /**
+     * Recomputes every task's due_day for the current device time zone. Called
+     * when the zone changes, since the same due date can fall on another day.
+     */
+    public void recomputeDueDays() {
+        write("recomputeDueDays", () -> {
+            EpochDays.onTimeZoneChanged();
+            db.taskDao().recomputeDueDays();
+            db.recurrenceCheckpointDao().resetAll();
+            invalidateTasks();
+            context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE).edit()
+                    .putString(DUE_DAY_ZONE_KEY, EpochDays.zoneId()).apply();
+            resetOccurrences();
+            isDirty = true;
+        });
+        refreshOccurrences();
+        widgetRefresher.refreshAll();
+    }
 
-            // Collect parent recurring tasks (recurringParentId == 0 and has recurrence)
-            if (isRecurring && task.recurringParentId == 0) {
-                parentRecurringTasks.add(task);
-            }
+    // ==================== OCCURRENCES ====================
+    // task_occurrences holds the forecast days of every pending recurring task,
+    // from the day after its due day through the horizon. Rows change with
+    // their task: the task writes above regenerate a task's rows in the same
+    // transaction when its status, due date or repeat settings change, and the
+    // foreign key drops them with the task.
+
+    private int occurrenceHorizon() {
+        int horizon = occurrenceHorizon;
+        if (horizon < 0) {
+            horizon = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE)
+                    .getInt(OCCURRENCE_HORIZON_KEY, 0);
+            occurrenceHorizon = horizon;
         }
+        return horizon;
+    }
 
-        // For each parent recurring task, check if we need to create today's instance
-        for (TaskList parentTask : parentRecurringTasks) {
-            // Skip if there's already a task for today from this parent
-            if (parentsWithTodayTasks.contains(parentTask.id)) {
-                continue;
-            }
+    private void setOccurrenceHorizon(int horizon) {
+        occurrenceHorizon = horizon;
+        context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE).edit()
+                .putInt(OCCURRENCE_HORIZON_KEY, horizon).apply();
+    }
 
-            // Check if this recurring task should have an instance today
-            if (shouldTaskOccurOnDate(parentTask, todayStart)) {
-                // Create a new task instance for today
-                long todayDueDate = calculateTodayDueDate(parentTask, todayStart);
-                TaskList newTask = createNextTaskInstance(parentTask, todayDueDate, 0);
-                newTask.recurringParentId = parentTask.id; // Link to parent
-                tasksToCreate.add(newTask);
+    // After SQL that changed due days or inserted tasks in bulk; the next
+    // refreshOccurrences builds the table again. Call under the write lock.
+    private void resetOccurrences() {
+        setOccurrenceHorizon(0);
+    }
 
-                android.util.Log.d("DataManager", "Creating recurring instance for: " + parentTask.task + " on today");
+    /**
+     * Extends task_occurrences to {@link #OCCURRENCE_HORIZON_DAYS} past today,
+     * generating only the days past the previous horizon, or builds it from the
+     * snapshot after a reset. Runs at startup (end of initializeData) and at
+     * midnight.
+     */
+    public void refreshOccurrences() {
+        write("refreshOccurrences", () -> {
+            int through = occurrenceHorizon();
+            // The tables were recreated (destructive migration) under a stored horizon
+            if (through > 0 && !db.taskOccurrenceDao().hasAny())
+                through = 0;
+            int target = EpochDays.today() + OCCURRENCE_HORIZON_DAYS;
+            if (through >= target)
+                return;
+            int from = through;
+            List<TaskOccurrence> rows = new ArrayList<>();
+            for (TaskList task : tasks().tasksWithStatus(0)) {
+                addOccurrences(task, from, target, rows);
             }
-        }
+            db.runInTransaction(() -> {
+                if (from == 0)
+                    db.taskOccurrenceDao().deleteAll();
+                db.taskOccurrenceDao().insertAll(rows);
+            });
+            setOccurrenceHorizon(target);
+            android.util.Log.d("DataManager", "Forecast " + rows.size() + " occurrences through day " + target);
+        });
+    }
 
-        // Insert all new task instances
-        for (TaskList t : tasksToCreate) {
-            long newId = insertTask(t); // Synchronized
-
-            // Schedule reminders for tasks with time in the future
-            if ((t.getUseAlarm() == 1 || (t.getReminderMinutes() != null && !t.getReminderMinutes().isEmpty()))
-                    && t.getDueDate() > System.currentTimeMillis()) {
-                NotificationHelper helper = new NotificationHelper(context);
-                helper.scheduleReminders(
-                        (int) newId,
-                        t.getTask(),
-                        t.getDueDate(),
-                        t.getTaskTime(),
-                        t.getReminderMinutes(),
-                        t.getUseAlarm() == 1,
-                        t.getScreenLock() == 1);
-            }
-        }
+    // Regenerates a task's rows when a write moved them. Call under the write
+    // lock, in the transaction that wrote the task.
+    private void syncOccurrences(TaskList before, TaskList after) {
+        if (occurrenceHorizon() == 0)
+            return;
+        if (before != null && after != null && before.check == after.check && before.dueDate == after.dueDate
+                && before.repeatInterval == after.repeatInterval
+                && java.util.Objects.equals(before.repeatType, after.repeatType)
+                && java.util.Objects.equals(before.repeatDays, after.repeatDays))
+            return;
+        if (before != null)
+            db.taskOccurrenceDao().deleteForTask(before.id);
+        if (after != null)
+            insertOccurrences(java.util.Collections.singletonList(after));
+    }
 
-        if (!tasksToCreate.isEmpty()) {
-            android.util.Log.d("DataManager",
-                    "Generated " + tasksToCreate.size() + " recurring task instances for today");
+    // Rows for newly inserted tasks
+    private void insertOccurrences(List<TaskList> tasks) {
+        int through = occurrenceHorizon();
+        if (through == 0)
+            return;
+        List<TaskOccurrence> rows = new ArrayList<>();
+        for (TaskList task : tasks) {
+            addOccurrences(task, 0, through, rows);
         }
+        if (!rows.isEmpty())
+            db.taskOccurrenceDao().insertAll(rows);
     }
 
-    public synchronized boolean isDataDirty() {
-        return isDirty;
+    // Rows for the days a pending recurring task repeats on, after both its due
+    // day and the given day, through the given horizon
+    private static void addOccurrences(TaskList task, int after, int through, List<TaskOccurrence> out) {
+        if (task.check != 0 || task.dueDate <= 0)
+            return;
+        // From due_date: a caller's copy may not have due_day yet
+        int from = Math.max(after, EpochDays.of(task.dueDate)) + 1;
+        if (from > through)
+            return;
+        BitSet days = new BitSet(through - from + 1);
+        RecurrenceRule.of(task).addOccurrences(from, through, from, days);
+        int minuteOfDay = (int) (EpochDays.timeOfDay(task.dueDate) / 60_000);
+        for (int i = days.nextSetBit(0); i >= 0; i = days.nextSetBit(i + 1)) {
+            out.add(new TaskOccurrence(task.id, from + i, minuteOfDay));
+        }
     }
 
-    public synchronized void clearDataDirty() {
-        isDirty = false;
+    /**
+     * How many days after today recurring instances are generated through.
+     * Never less than {@link #INSTANCE_REFILL_DAYS}, or every run would refill
+     * every series.
+     */
+    public int getInstanceAheadDays() {
+        int days = context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE)
+                .getInt(INSTANCE_AHEAD_DAYS_KEY, DEFAULT_INSTANCE_AHEAD_DAYS);
+        return Math.max(days, INSTANCE_REFILL_DAYS);
     }
 
     /**
-     * Check if a recurring task should occur on the given date
+     * A longer horizon takes effect as each series comes up for its next
+     * refill; instances already generated past a shorter one are kept.
      */
-    private boolean shouldTaskOccurOnDate(TaskList task, long targetDate) {
-        if (task.dueDate == 0)
-            return false;
-        if (task.repeatType == null || "none".equals(task.repeatType))
-            return false;
-
-        java.util.Calendar targetCal = java.util.Calendar.getInstance();
-        targetCal.setTimeInMillis(targetDate);
-        int targetDayOfWeek = targetCal.get(java.util.Calendar.DAY_OF_WEEK);
+    public void setInstanceAheadDays(int days) {
+        context.getSharedPreferences("app_prefs", Context.MODE_PRIVATE).edit()
+                .putInt(INSTANCE_AHEAD_DAYS_KEY, days).apply();
+    }
 
-        java.util.Calendar taskCal = java.util.Calendar.getInstance();
-        taskCal.setTimeInMillis(task.dueDate);
+    /**
+     * Generate recurring task instances ahead of time, through
+     * {@link #getInstanceAheadDays()} days after today.
+     * This is called at midnight (via MidnightTaskScheduler), at boot and on
+     * app startup.
+     *
+     * Logic:
+     * 1. Read the series whose checkpoint (RecurrenceCheckpoint, the next day
+     * without an instance) is within {@link #INSTANCE_REFILL_DAYS} of today;
+     * every other series is not touched
+     * 2. For each, create the instances from its checkpoint (or today, if that
+     * has passed: past days are checkAndHandleMissedRecurrences' missed
+     * instances) through the horizon, from the series' first task
+     * 3. Insert all of them and move the checkpoints in one transaction. A
+     * checkpoint whose generation changed since step 1 (the series was edited,
+     * or another run got there first) is left alone, so it is read again next
+     * run, as is one whose series is no longer in the snapshot (deleting the
+     * task removes its checkpoint); the database skips instances whose series already has a task that
+     * day (AppDatabase.createInstanceTriggers), so overlapping runs cannot
+     * create duplicates
+     */
+    public void generateRecurringInstances() {
+        int today = EpochDays.today();
+        int through = today + getInstanceAheadDays();
+        List<RecurrenceCheckpoint> due = read("getDueCheckpoints",
+                () -> db.recurrenceCheckpointDao().getDueBy(today + INSTANCE_REFILL_DAYS));
+        if (due.isEmpty())
+            return;
 
-        // For custom weekly recurrence with specific days
-        if ("days".equals(task.repeatType) && task.repeatInterval == 1) {
-            // Daily recurrence - always occurs
-            // But check if it started (task.dueDate <= targetDate)
-            return task.dueDate <= targetDate + (24 * 60 * 60 * 1000);
+        // Not locked while the instances are computed, to avoid blocking UI;
+        // the snapshot's tasks are only read. Taken after the checkpoints, so
+        // it is at least as new: an edit after it bumps the generation.
+        TaskSnapshot snapshot = tasks();
+        List<TaskList> tasksToCreate = new ArrayList<>();
+        // -1: nothing was generated for the series, leave its checkpoint alone
+        int[] nextDays = new int[due.size()];
+        for (int i = 0; i < due.size(); i++) {
+            RecurrenceCheckpoint checkpoint = due.get(i);
+            nextDays[i] = -1;
+            TaskList parentTask = snapshot.get(checkpoint.seriesId);
+            if (parentTask == null)
+                continue;
+            RecurrenceRule rule = RecurrenceRule.of(parentTask);
+            // The series' first task covers its own due day
+            int from = Math.max(Math.max(checkpoint.nextDay, today), parentTask.dueDay + 1);
+            int day = rule.nextAfter(from - 1);
+            for (; day != EpochDays.NONE && day <= through; day = rule.nextAfter(day)) {
+                long dueDate = calculateDueDateOn(parentTask, EpochDays.startOf(day));
+                tasksToCreate.add(createNextTaskInstance(parentTask, dueDate, 0));
+            }
+            nextDays[i] = day != EpochDays.NONE ? day : RecurrenceCheckpoint.NEVER;
         }
 
-        // Check repeatDays for custom weekly patterns
-        String repeatDays = task.getRepeatDays();
-        if (repeatDays != null && !repeatDays.isEmpty()) {
-            // repeatDays format: "1,2,3,4,5,6,7" where 1=Sunday, 7=Saturday
-            String[] days = repeatDays.split(",");
-            for (String day : days) {
-                try {
-                    int dayNum = Integer.parseInt(day.trim());
-                    if (dayNum == targetDayOfWeek) {
-                        // Check if this is on or after the original start date
-                        return task.dueDate <= targetDate + (24 * 60 * 60 * 1000);
+        List<TaskList> inserted = insertTasksBatch(tasksToCreate, () -> {
+            for (int i = 0; i < due.size(); i++) {
+                if (nextDays[i] < 0)
+                    continue;
+                RecurrenceCheckpoint checkpoint = due.get(i);
+                db.recurrenceCheckpointDao().advance(checkpoint.seriesId, checkpoint.generation, nextDays[i]);
+            }
+        });
+        scheduleRemindersForNewTasks(inserted);
+        android.util.Log.d("DataManager", "Generated " + inserted.size() + " recurring task instances for "
+                + due.size() + " series through day " + through);
+    }
+
+    /**
+     * Insert generated tasks with a single bulk insert and one widget refresh,
+     * running {@code alsoInTransaction} in the same transaction.
+     * Returns the tasks actually inserted: instances for a day their series
+     * already has are skipped.
+     */
+    private List<TaskList> insertTasksBatch(List<TaskList> newTasks, Runnable alsoInTransaction) {
+        List<TaskList> inserted = write("insertTasksBatch", () -> {
+            for (TaskList t : newTasks) {
+                t.categoryId = findCategoryId(t.category);
+            }
+            List<TaskList> result = db.runInTransaction(() -> {
+                List<Long> ids = db.taskDao().insertAll(newTasks);
+                List<TaskList> added = new ArrayList<>();
+                for (int i = 0; i < newTasks.size(); i++) {
+                    if (ids.get(i) > 0) {
+                        newTasks.get(i).id = ids.get(i).intValue();
+                        added.add(newTasks.get(i));
                     }
-                } catch (NumberFormatException e) {
-                    // Ignore invalid day numbers
                 }
+                insertOccurrences(added);
+                alsoInTransaction.run();
+                return added;
+            });
+            if (result.isEmpty())
+                return result;
+            updateTasks(snapshot -> {
+                for (TaskList t : result)
+                    snapshot = snapshot.with(t);
+                return snapshot;
+            });
+            isDirty = true;
+            return result;
+        });
+        widgetRefresher.tasksChanged(inserted);
+        return inserted;
+    }
+
+    /**
+     * Schedule reminders for freshly inserted pending tasks that are due in the
+     * future, sharing one NotificationHelper across the batch.
+     */
+    private void scheduleRemindersForNewTasks(List<TaskList> newTasks) {
+        NotificationHelper helper = null;
+        long now = System.currentTimeMillis();
+        for (TaskList t : newTasks) {
+            if (t.check != 0 || t.getDueDate() <= now)
+                continue;
+            if (t.getUseAlarm() != 1 && (t.getReminderMinutes() == null || t.getReminderMinutes().isEmpty()))
+                continue;
+            if (helper == null) {
+                helper = new NotificationHelper(context);
             }
-            return false;
+            helper.scheduleReminders(
+                    t.id,
+                    t.getTask(),
+                    t.getDueDate(),
+                    t.getTaskTime(),
+                    t.getReminderMinutes(),
+                    t.getUseAlarm() == 1,
+                    t.getScreenLock() == 1);
         }
+    }
 
-        // For simple recurrence patterns (days, weeks, months, years)
-        // Check if target date is a valid recurrence of the original date
-        switch (task.repeatType) {
-            case "days":
-                // Check if (targetDate - originalDate) is a multiple of (interval * day)
-                long daysDiff = (targetDate - normalizeToStartOfDay(task.dueDate)) / (24 * 60 * 60 * 1000);
-                return daysDiff >= 0 && daysDiff % task.repeatInterval == 0;
-
-            case "weeks":
-                // Must be same day of week and correct week interval
-                if (taskCal.get(java.util.Calendar.DAY_OF_WEEK) != targetDayOfWeek)
-                    return false;
-                long weeksDiff = (targetDate - normalizeToStartOfDay(task.dueDate)) / (7 * 24 * 60 * 60 * 1000);
-                return weeksDiff >= 0 && weeksDiff % task.repeatInterval == 0;
-
-            case "months":
-                // Same day of month and correct month interval
-                if (taskCal.get(java.util.Calendar.DAY_OF_MONTH) != targetCal.get(java.util.Calendar.DAY_OF_MONTH))
-                    return false;
-                int monthsDiff = (targetCal.get(java.util.Calendar.YEAR) - taskCal.get(java.util.Calendar.YEAR)) * 12
-                        + (targetCal.get(java.util.Calendar.MONTH) - taskCal.get(java.util.Calendar.MONTH));
-                return monthsDiff >= 0 && monthsDiff % task.repeatInterval == 0;
-
-            case "years":
-                // Same month and day, correct year interval
-                if (taskCal.get(java.util.Calendar.DAY_OF_MONTH) != targetCal.get(java.util.Calendar.DAY_OF_MONTH))
-                    return false;
-                if (taskCal.get(java.util.Calendar.MONTH) != targetCal.get(java.util.Calendar.MONTH))
-                    return false;
-                int yearsDiff = targetCal.get(java.util.Calendar.YEAR) - taskCal.get(java.util.Calendar.YEAR);
-                return yearsDiff >= 0 && yearsDiff % task.repeatInterval == 0;
-
-            case "custom_days":
-                // Already handled by the repeatDays check above; if we reach here,
-                // the task has custom_days type but no matching repeatDays → doesn't occur
-                return false;
-        }
+    // ==================== CHANGE JOURNAL ====================
+    // Triggers log every task, subtask and category change to change_journal
+    // (see AppDatabase); the export rewrites what changed since its checkpoint.
+
+    public long getLatestChangeSeq() {
+        return read("getLatestChangeSeq", () -> db.changeJournalDao().getLatestSeq());
+    }
+
+    /**
+     * Ids of the categories whose tasks, subtasks or own row changed in the
+     * journal entries after {@code afterSeq} up to {@code upToSeq}.
+     */
+    public Set<Integer> getCategoryIdsChangedBetween(long afterSeq, long upToSeq) {
+        return read("getCategoryIdsChangedBetween",
+                () -> new java.util.HashSet<>(db.changeJournalDao().getChangedCategoryIds(afterSeq, upToSeq)));
+    }
+
+    // Drops entries an export has covered
+    public void trimChangeJournal(long upToSeq) {
+        write("trimChangeJournal", () -> db.changeJournalDao().deleteUpTo(upToSeq));
+    }
+
+    public boolean isDataDirty() {
+        return isDirty;
+    }
 
-        return false;
+    public void clearDataDirty() {
+        isDirty = false;
     }
 
     /**
-     * Calculate the due date for today preserving the time from the original task
+     * Calculate the due date on the day starting at {@code dayStart}, preserving the
+     * time from the original task
      */
-    private long calculateTodayDueDate(TaskList task, long todayStart) {
+    private long calculateDueDateOn(TaskList task, long dayStart) {
         if (task.taskTime != null && !task.taskTime.isEmpty()) {
             // Parse taskTime (format: "HH:mm" or "h:mm AM/PM")
             try {
@@ -971,7 +2040,7 @@ public class DataManager {
                 }
 
                 java.util.Calendar cal = java.util.Calendar.getInstance();
-                cal.setTimeInMillis(todayStart);
+                cal.setTimeInMillis(dayStart);
                 cal.set(java.util.Calendar.HOUR_OF_DAY, hour);
                 cal.set(java.util.Calendar.MINUTE, minute);
                 cal.set(java.util.Calendar.SECOND, 0);
@@ -979,7 +2048,7 @@ public class DataManager {
                 return cal.getTimeInMillis();
             } catch (Exception e) {
                 // Fall through to default
-                android.util.Log.e("DataManager", "Error parsing time in calculateTodayDueDate: " + e.getMessage());
+                android.util.Log.e("DataManager", "Error parsing time in calculateDueDateOn: " + e.getMessage());
             }
         }
 
@@ -989,7 +2058,7 @@ public class DataManager {
             originalCal.setTimeInMillis(task.dueDate);
 
             java.util.Calendar cal = java.util.Calendar.getInstance();
-            cal.setTimeInMillis(todayStart);
+            cal.setTimeInMillis(dayStart);
             cal.set(java.util.Calendar.HOUR_OF_DAY, originalCal.get(java.util.Calendar.HOUR_OF_DAY));
             cal.set(java.util.Calendar.MINUTE, originalCal.get(java.util.Calendar.MINUTE));
             cal.set(java.util.Calendar.SECOND, 0);
@@ -997,21 +2066,8 @@ public class DataManager {
             return cal.getTimeInMillis();
         }
 
-        // Default to start of today
-        return todayStart;
-    }
-
-    /**
-     * Normalize a timestamp to the start of its day (midnight)
-     */
-    private long normalizeToStartOfDay(long timestamp) {
-        java.util.Calendar cal = java.util.Calendar.getInstance();
-        cal.setTimeInMillis(timestamp);
-        cal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        cal.set(java.util.Calendar.MINUTE, 0);
-        cal.set(java.util.Calendar.SECOND, 0);
-        cal.set(java.util.Calendar.MILLISECOND, 0);
-        return cal.getTimeInMillis();
+        // Default to start of the day
+        return dayStart;
     }
 
     private TaskList createNextTaskInstance(TaskList original, long dueDate, int status) {
@@ -1031,7 +2087,7 @@ public class DataManager {
         nextTask.markerType = original.markerType;
         nextTask.markerValue = original.markerValue;
         nextTask.markerColor = original.markerColor;
-        nextTask.setAttachments(original.getAttachments());
+        nextTask.copyAttachmentsFrom = original.id;
         nextTask.setCreatedFrom(original.getCreatedFrom());
         nextTask.dueDate = dueDate;
         // Link to the parent recurring task
@@ -1044,29 +2100,4 @@ public class DataManager {
         }
         return nextTask;
     }
-
-    private void sendWidgetUpdate() {
-        try {
-            android.appwidget.AppWidgetManager appWidgetManager = android.appwidget.AppWidgetManager
-                    .getInstance(context);
-            Class<?>[] providers = {
-                    WidgetProviders.AllDark.class, WidgetProviders.AllLight.class, WidgetProviders.AllTrans.class,
-                    WidgetProviders.TodayDark.class, WidgetProviders.TodayLight.class, WidgetProviders.TodayTrans.class,
-                    WidgetProviders.StarredDark.class, WidgetProviders.StarredLight.class,
-                    WidgetProviders.StarredTrans.class,
-                    WidgetProviders.WorkDark.class, WidgetProviders.WorkLight.class, WidgetProviders.WorkTrans.class,
-                    WidgetProviders.PersonalDark.class, WidgetProviders.PersonalLight.class,
-                    WidgetProviders.PersonalTrans.class
-            };
-
-            for (Class<?> c : providers) {
-                int[] ids = appWidgetManager.getAppWidgetIds(new android.content.ComponentName(context, c));
-                if (ids != null && ids.length > 0) {
-                    appWidgetManager.notifyAppWidgetViewDataChanged(ids, R.id.lv_widget_tasks);
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
 }
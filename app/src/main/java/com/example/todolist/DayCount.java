@@ -1,7 +1,9 @@
 package com.example.todolist;
 
+import androidx.room.Ignore;
+
 /**
- * Simple model for day-of-week task counts (Room annotations removed)
+ * Simple model for day-of-week task counts, filled directly by aggregate queries in TaskDao
  */
 public class DayCount {
     public int dayOfWeek;
@@ -10,6 +12,7 @@ public class DayCount {
     public DayCount() {
     }
 
+    @Ignore
     public DayCount(int dayOfWeek, int count) {
         this.dayOfWeek = dayOfWeek;
         this.count = count;
@@ -0,0 +1,107 @@
+package com.example.todolist;
+
+import java.util.TimeZone;
+
+/**
+ * Local epoch days: whole days since 1970-01-01 in the device time zone.
+ *
+ * Tasks store the epoch day of their due date in due_day (see TaskRow), so the
+ * day filters compare integers instead of building a Calendar per row. The zone
+ * is cached; call {@link #onTimeZoneChanged()} when the device zone changes and
+ * recompute the stored days (DataManager.recomputeDueDays).
+ */
+public final class EpochDays {
+
+    // due_day of a task without a due date, matching due_date = 0
+    public static final int NONE = 0;
+
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    private static volatile TimeZone zone = TimeZone.getDefault();
+
+    private EpochDays() {
+    }
+
+    public static void onTimeZoneChanged() {
+        zone = TimeZone.getDefault();
+    }
+
+    public static String zoneId() {
+        return zone.getID();
+    }
+
+    /**
+     * The local day containing {@code millis}.
+     */
+    public static int of(long millis) {
+        return of(zone, millis);
+    }
+
+    private static int of(TimeZone tz, long millis) {
+        return (int) Math.floorDiv(millis + tz.getOffset(millis), DAY_MS);
+    }
+
+    /**
+     * The due_day value for a due date: {@link #NONE} when there is none.
+     */
+    public static int ofDueDate(long dueDate) {
+        return dueDate > 0 ? of(dueDate) : NONE;
+    }
+
+    public static int today() {
+        return of(System.currentTimeMillis());
+    }
+
+    /**
+     * First instant of {@code day}, as a timestamp: local midnight, or the end
+     * of the DST jump on days whose midnight is skipped (as Calendar does).
+     */
+    public static long startOf(int day) {
+        TimeZone tz = zone;
+        long localMidnight = day * DAY_MS;
+        long offset = tz.getOffset(localMidnight - tz.getRawOffset());
+        long start = localMidnight - offset;
+        long actual = tz.getOffset(start);
+        if (actual == offset)
+            return start;
+        // DST changes between the guess and the result: midnight either exists
+        // under the other offset or falls in the gap, where start is the jump
+        long corrected = localMidnight - actual;
+        return of(tz, corrected) == day ? corrected : start;
+    }
+
+    /**
+     * Start of the local day containing {@code millis}.
+     */
+    public static long startOfDay(long millis) {
+        return startOf(of(millis));
+    }
+
+    /**
+     * Local wall-clock time of {@code millis}, as milliseconds since midnight.
+     */
+    public static long timeOfDay(long millis) {
+        TimeZone tz = zone;
+        return Math.floorMod(millis + tz.getOffset(millis), DAY_MS);
+    }
+
+    /**
+     * The instant {@code day} shows {@code timeOfDay} on the wall clock, so a
+     * repeat keeps its time across DST changes as Calendar.add does. Times in a
+     * DST gap move forward by the gap; repeated times take the earlier instant.
+     */
+    public static long at(int day, long timeOfDay) {
+        TimeZone tz = zone;
+        long local = day * DAY_MS + timeOfDay;
+        long before = tz.getOffset(local - DAY_MS);
+        long after = tz.getOffset(local + DAY_MS);
+        // The larger offset is the earlier instant
+        long first = Math.max(before, after);
+        long second = Math.min(before, after);
+        if (tz.getOffset(local - first) == first)
+            return local - first;
+        if (tz.getOffset(local - second) == second)
+            return local - second;
+        return local - before;
+    }
+}
@@ -28,6 +28,8 @@ import androidx.core.view.WindowInsetsControllerCompat;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.button.MaterialButton;
@@ -49,6 +51,11 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
     private TasksFragment tasksFragment;
     private CalendarFragment calendarFragment;
     private MineFragment mineFragment;
+    private Fragment currentFragment;
+
+    private static final String TAG_TASKS = "tasks";
+    private static final String TAG_CALENDAR = "calendar";
+    private static final String TAG_MINE = "mine";
 
     private DataManager dm;
     private boolean isStarred = false;
@@ -88,8 +95,8 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         new Thread(() -> {
             if (dm != null) {
                 dm.initializeDefaultData();
-                // Generate today's recurring task instances
-                dm.generateTodaysRecurringTasks();
+                // Generate the recurring task instances of the next days
+                dm.generateRecurringInstances();
             }
             // Schedule the midnight alarm for daily task generation
             MidnightTaskScheduler scheduler = new MidnightTaskScheduler(MainActivity.this);
@@ -105,12 +112,12 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         // Load default fragment
         if (savedInstanceState == null) {
             tasksFragment = TasksFragment.newInstance();
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.fragment_container, tasksFragment)
-                    .commit();
+            showFragment(tasksFragment);
             if (bottomNavigation != null) {
                 bottomNavigation.setSelectedItemId(R.id.nav_tasks);
             }
+        } else {
+            restoreFragments();
         }
 
         // Stop any playing alarm when app launches
@@ -271,12 +278,18 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
 
         // Setup custom nav drawer click listeners
         View navTheme = navView.findViewById(R.id.nav_theme);
+        View navArchive = navView.findViewById(R.id.nav_archive);
         View navWidget = navView.findViewById(R.id.nav_widget);
         if (navTheme != null)
             navTheme.setOnClickListener(v -> {
                 showThemeDialog();
                 drawerLayout.closeDrawer(GravityCompat.START);
             });
+        if (navArchive != null)
+            navArchive.setOnClickListener(v -> {
+                showArchiveDialog();
+                drawerLayout.closeDrawer(GravityCompat.START);
+            });
         if (navWidget != null)
             navWidget.setOnClickListener(v -> {
                 showWidgetInfo();
@@ -297,7 +310,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
 
     private void handleFabClick() {
         try {
-            Fragment current = getSupportFragmentManager().findFragmentById(R.id.fragment_container);
+            Fragment current = currentFragment;
             if (current instanceof CalendarFragment) {
                 ((CalendarFragment) current).openAddTaskForSelection();
                 return;
@@ -361,9 +374,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
                 }
 
                 if (selectedFragment != null) {
-                    getSupportFragmentManager().beginTransaction()
-                            .replace(R.id.fragment_container, selectedFragment)
-                            .commit();
+                    showFragment(selectedFragment);
                 }
 
                 return true;
@@ -371,6 +382,48 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         }
     }
 
+    /**
+     * Tabs are kept alive and switched with hide/show, so going back to a tab
+     * reuses its views and only re-queries if its tables changed meanwhile.
+     */
+    private void showFragment(Fragment target) {
+        FragmentManager fm = getSupportFragmentManager();
+        FragmentTransaction tx = fm.beginTransaction();
+        for (Fragment f : new Fragment[] { tasksFragment, calendarFragment, mineFragment }) {
+            if (f != null && f != target && f.isAdded()) {
+                tx.hide(f);
+            }
+        }
+        if (target.isAdded()) {
+            tx.show(target);
+        } else {
+            tx.add(R.id.fragment_container, target, tagFor(target));
+        }
+        // Synchronous so a second switch in the same frame sees the fragment as added
+        tx.commitNow();
+        currentFragment = target;
+    }
+
+    private String tagFor(Fragment fragment) {
+        if (fragment instanceof CalendarFragment)
+            return TAG_CALENDAR;
+        if (fragment instanceof MineFragment)
+            return TAG_MINE;
+        return TAG_TASKS;
+    }
+
+    private void restoreFragments() {
+        FragmentManager fm = getSupportFragmentManager();
+        tasksFragment = (TasksFragment) fm.findFragmentByTag(TAG_TASKS);
+        calendarFragment = (CalendarFragment) fm.findFragmentByTag(TAG_CALENDAR);
+        mineFragment = (MineFragment) fm.findFragmentByTag(TAG_MINE);
+        for (Fragment f : new Fragment[] { tasksFragment, calendarFragment, mineFragment }) {
+            if (f != null && !f.isHidden()) {
+                currentFragment = f;
+            }
+        }
+    }
+
     public void openTasksFromMine(int filterType) {
         if (filterType == 1) {
             // Open separate Completed Tasks Activity for better view
@@ -382,9 +435,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         if (tasksFragment == null) {
             tasksFragment = TasksFragment.newInstance();
         }
-        getSupportFragmentManager().beginTransaction()
-                .replace(R.id.fragment_container, tasksFragment)
-                .commit();
+        showFragment(tasksFragment);
         if (bottomNavigation != null) {
             bottomNavigation.setSelectedItemId(R.id.nav_tasks);
         }
@@ -413,21 +464,24 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         if (dm == null || navCategoriesContainer == null)
             return;
 
-        new Thread(() -> {
+        // Queued on the DataManager thread so it sees any category write queued before it
+        dm.runAsync(() -> {
             try {
                 // Fetch data in background
                 List<Category> categories = dm.getAllCategories();
                 int starredCount = dm.getStarredTasks().size();
 
-                // Pre-calculate counts map to avoid multiple DB hits inside runOnUiThread
+                // All chip counts come from one grouped query
+                java.util.Map<String, Integer> pendingByCategory = dm.getPendingCountsByCategory();
                 java.util.Map<String, Integer> categoryCounts = new java.util.HashMap<>();
                 int allCount = dm.getPendingTaskCount();
 
                 if (categories != null) {
                     for (Category category : categories) {
+                        Integer pending = pendingByCategory.get(category.getName());
                         int count = category.getName().equalsIgnoreCase("All")
                                 ? allCount
-                                : dm.getPendingCountByCategory(category.getName());
+                                : pending != null ? pending : 0;
                         categoryCounts.put(category.getName(), count);
                     }
                 }
@@ -469,7 +523,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
             } catch (Exception e) {
                 e.printStackTrace();
             }
-        }).start();
+        });
     }
 
     private void addNavCategoryItem(String iconType, String name, String color, String iconName, int count,
@@ -554,9 +608,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         if (tasksFragment == null) {
             tasksFragment = TasksFragment.newInstance();
         }
-        getSupportFragmentManager().beginTransaction()
-                .replace(R.id.fragment_container, tasksFragment)
-                .commit();
+        showFragment(tasksFragment);
         if (bottomNavigation != null) {
             bottomNavigation.setSelectedItemId(R.id.nav_tasks);
         }
@@ -569,9 +621,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         if (tasksFragment == null) {
             tasksFragment = TasksFragment.newInstance();
         }
-        getSupportFragmentManager().beginTransaction()
-                .replace(R.id.fragment_container, tasksFragment)
-                .commit();
+        showFragment(tasksFragment);
         if (bottomNavigation != null) {
             bottomNavigation.setSelectedItemId(R.id.nav_tasks);
         }
@@ -621,7 +671,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
                 String color = colors[randomIndex];
 
                 Category newCategory = new Category(categoryName, color, 0);
-                dm.insertCategory(newCategory);
+                dm.insertCategoryAsync(newCategory, null);
 
                 refreshNavigationCategories();
             }
@@ -699,21 +749,44 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         applyBackground();
         if (dm != null) {
             // Run heavy recurrence checks in background
-            new Thread(() -> {
+            dm.runAsync(() -> {
                 dm.checkAndHandleMissedRecurrences();
-                // Also ensure today's recurring tasks are generated
-                dm.generateTodaysRecurringTasks();
+                // Also resume recurring instances from their checkpoints
+                dm.generateRecurringInstances();
+            }, () -> {
+                if (isFinishing() || isDestroyed())
+                    return;
+                // Refresh fragments if visible
+                if (tasksFragment != null && tasksFragment.isVisible()) {
+                    tasksFragment.loadTasks();
+                }
+            });
+        }
+    }
 
-                runOnUiThread(() -> {
-                    if (isFinishing() || isDestroyed())
-                        return;
-                    // Refresh fragments if visible
-                    if (tasksFragment != null && tasksFragment.isVisible()) {
-                        tasksFragment.loadTasks();
-                    }
-                });
-            }).start();
+    private void showArchiveDialog() {
+        String[] options = { "Never", "After 30 days", "After 90 days", "After 180 days", "After 1 year" };
+        int[] days = { 0, 30, 90, 180, 365 };
+        int current = dm.getArchiveAfterDays();
+        int checked = 0;
+        for (int i = 0; i < days.length; i++) {
+            if (days[i] == current)
+                checked = i;
         }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Archive completed tasks");
+        builder.setSingleChoiceItems(options, checked, (dialog, which) -> {
+            dm.setArchiveAfterDays(days[which]);
+            if (days[which] > 0) {
+                // Archived tasks stay in the history and statistics but can no
+                // longer be edited; tasks with subtasks or attachments are kept
+                dm.runAsync(dm::archiveOldTasks);
+            }
+            dialog.dismiss();
+        });
+        builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
+        builder.show();
     }
 
     private void showWidgetInfo() {
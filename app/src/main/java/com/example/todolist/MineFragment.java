@@ -12,15 +12,13 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.room.InvalidationTracker;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
@@ -39,8 +37,11 @@ public class MineFragment extends Fragment {
     // Executor for background tasks
     private ExecutorService io;
     private int weekOffset = 0;
+    // Set when tasks change while the dashboard is not showing
+    private boolean stale = false;
+    private InvalidationTracker.Observer tableObserver;
 
-    private final ArrayList<TaskList> upcomingItems = new ArrayList<>();
+    private final ArrayList<TaskRow> upcomingItems = new ArrayList<>();
     private final ArrayList<CategoryCount> categoryItems = new ArrayList<>();
     private MineUpcomingAdapter upcomingAdapter;
     private MineCategorySummaryAdapter categoryAdapter;
@@ -135,8 +136,10 @@ public class MineFragment extends Fragment {
                 int newStatus = task.check == 0 ? 1 : 0;
                 task.check = newStatus;
                 task.completedAt = newStatus == 1 ? System.currentTimeMillis() : 0;
-                dm.updateStatusAndCompletedAt(task.id, newStatus, task.completedAt);
-                refreshAll();
+                dm.updateStatusAndCompletedAtAsync(task.id, newStatus, task.completedAt, () -> {
+                    if (isAdded())
+                        refreshAll();
+                });
             });
             categoryAdapter = new MineCategorySummaryAdapter(categoryItems);
 
@@ -177,69 +180,34 @@ public class MineFragment extends Fragment {
             }
 
             refreshAll();
+
+            tableObserver = dm.addTableObserver(tables -> onTasksChanged(), DataManager.TABLE_TASKS);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private void onTasksChanged() {
+        if (getView() == null)
+            return;
+        if (isResumed() && !isHidden()) {
+            refreshAll();
+        } else {
+            stale = true;
+        }
+    }
+
     private void refreshAll() {
+        stale = false;
         updateDateRange();
         try {
             if (io != null && !io.isShutdown()) {
                 io.execute(() -> {
-                    // Fetch ALL tasks once
-                    List<TaskList> allTasks = dm.getAllTasks();
-
-                    int completed = 0;
-                    int pending = 0;
-                    int overdue = 0;
-                    int rejected = 0;
-                    long now = System.currentTimeMillis();
-                    long todayStart = getTodayStart();
-
-                    // For best day calc
-                    Map<Integer, Integer> dayCompletedCounts = new HashMap<>();
-                    // For top category calc (completed tasks)
-                    Map<String, Integer> catCompletedCounts = new HashMap<>();
-
-                    // For categories breakdown (All tasks)
-                    Map<String, Integer> catAllCounts = new HashMap<>();
-
-                    for (TaskList t : allTasks) {
-                        if (t.check == 1) {
-                            completed++;
-
-                            // Best Day
-                            if (t.completedAt > 0) {
-                                Calendar c = Calendar.getInstance();
-                                c.setTimeInMillis(t.completedAt);
-                                int day = c.get(Calendar.DAY_OF_WEEK);
-                                dayCompletedCounts.put(day, dayCompletedCounts.getOrDefault(day, 0) + 1);
-                            }
-
-                            // Top Category (based on completed tasks)
-                            String cat = t.category;
-                            if (cat == null || cat.trim().isEmpty()) {
-                                cat = "Unknown";
-                            }
-                            catCompletedCounts.put(cat, catCompletedCounts.getOrDefault(cat, 0) + 1);
-
-                        } else if (t.check == 2) {
-                            rejected++;
-                        } else {
-                            pending++;
-                            if (t.dueDate > 0 && t.dueDate < todayStart) {
-                                overdue++;
-                            }
-                        }
-
-                        // Task Distribution (All tasks)
-                        String cat = t.category;
-                        if (cat == null || cat.trim().isEmpty()) {
-                            cat = "Unknown";
-                        }
-                        catAllCounts.put(cat, catAllCounts.getOrDefault(cat, 0) + 1);
-                    }
+                    // A handful of aggregate queries instead of loading every task
+                    int completed = dm.getTaskCountByStatus(1);
+                    int pending = dm.getTaskCountByStatus(0);
+                    int rejected = dm.getTaskCountByStatus(2);
+                    int overdue = dm.getOverdueTaskCount();
 
                     int total = completed + pending;
                     int rate = total > 0 ? (int) ((completed / (float) total) * 100) : 0;
@@ -255,14 +223,14 @@ public class MineFragment extends Fragment {
                     else
                         rateMsg = "Let's start!";
 
-                    // Best Day
+                    // Best Day (all-time completions)
                     String bestDayStr = "None";
                     int maxDayVal = -1;
                     int bestDayIdx = -1;
-                    for (Map.Entry<Integer, Integer> entry : dayCompletedCounts.entrySet()) {
-                        if (entry.getValue() > maxDayVal) {
-                            maxDayVal = entry.getValue();
-                            bestDayIdx = entry.getKey();
+                    for (DayCount dc : dm.getCompletedCountsByDayOfWeek()) {
+                        if (dc.count > maxDayVal) {
+                            maxDayVal = dc.count;
+                            bestDayIdx = dc.dayOfWeek;
                         }
                     }
                     if (bestDayIdx != -1) {
@@ -272,49 +240,21 @@ public class MineFragment extends Fragment {
                             bestDayStr = days[bestDayIdx];
                     }
 
+                    // Category List (Distribution), already sorted by count descending
+                    List<CategoryCount> catList = dm.getCategoryCounts();
+
                     // Top Category (from Completed)
                     String topCatStr = "None";
-                    int maxCatVal = -1;
-                    for (Map.Entry<String, Integer> entry : catCompletedCounts.entrySet()) {
-                        if (entry.getValue() > maxCatVal) {
-                            maxCatVal = entry.getValue();
-                            topCatStr = entry.getKey();
-                        }
-                    }
-                    // Fallback: If no completed, show top category by volume
-                    if (topCatStr.equals("None") && !catAllCounts.isEmpty()) {
-                        for (Map.Entry<String, Integer> entry : catAllCounts.entrySet()) {
-                            if (entry.getValue() > maxCatVal) {
-                                maxCatVal = entry.getValue();
-                                topCatStr = entry.getKey();
-                            }
-                        }
+                    List<CategoryCount> completedCats = dm.getCategoryCountsByStatus(1);
+                    if (!completedCats.isEmpty()) {
+                        topCatStr = completedCats.get(0).category;
+                    } else if (!catList.isEmpty()) {
+                        // Fallback: If no completed, show top category by volume
+                        topCatStr = catList.get(0).category;
                     }
 
                     // Recent/Upcoming List
-                    List<TaskList> recentList = new ArrayList<>();
-                    List<TaskList> pendingTasks = new ArrayList<>();
-                    for (TaskList t : allTasks) {
-                        if (t.check == 0)
-                            pendingTasks.add(t);
-                    }
-
-                    Collections.sort(pendingTasks, (t1, t2) -> {
-                        long d1 = t1.dueDate;
-                        long d2 = t2.dueDate;
-                        if (d1 == 0 && d2 == 0)
-                            return 0;
-                        if (d1 == 0)
-                            return 1;
-                        if (d2 == 0)
-                            return -1;
-                        return Long.compare(d1, d2);
-                    });
-
-                    // Take top 10
-                    int limit = Math.min(pendingTasks.size(), 10);
-                    for (int i = 0; i < limit; i++)
-                        recentList.add(pendingTasks.get(i));
+                    List<TaskRow> recentList = dm.getUpcomingPendingTaskRows(10);
 
                     // Weekly Chart Data
                     long weekStart = getWeekStart(weekOffset);
@@ -322,16 +262,6 @@ public class MineFragment extends Fragment {
                     List<DayCount> dayCounts = dm.getCompletedCountsByDayOfWeek(weekStart, weekEnd);
                     int[] weekly = toWeeklyArray(dayCounts);
 
-                    // Category List (Distribution)
-                    List<CategoryCount> catList = new ArrayList<>();
-                    // Sort by count descending
-                    List<Map.Entry<String, Integer>> sortedCats = new ArrayList<>(catAllCounts.entrySet());
-                    Collections.sort(sortedCats, (e1, e2) -> e2.getValue().compareTo(e1.getValue()));
-
-                    for (Map.Entry<String, Integer> entry : sortedCats) {
-                        catList.add(new CategoryCount(entry.getKey(), entry.getValue()));
-                    }
-
                     // UI Updates
                     final android.app.Activity activity = getActivity();
                     if (activity == null || !isAdded())
@@ -458,15 +388,6 @@ public class MineFragment extends Fragment {
         return calendar.getTimeInMillis();
     }
 
-    private long getTodayStart() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return calendar.getTimeInMillis();
-    }
-
     private long getEndOfDay(long dayStartMs) {
         Calendar calendar = Calendar.getInstance();
         calendar.setTimeInMillis(dayStartMs);
@@ -495,12 +416,26 @@ public class MineFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
-        refreshAll();
+        if (stale) {
+            refreshAll();
+        }
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (!hidden && stale) {
+            refreshAll();
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (dm != null) {
+            dm.removeTableObserver(tableObserver);
+        }
+        tableObserver = null;
         if (io != null) {
             io.shutdownNow();
         }
@@ -19,25 +19,25 @@ import java.util.Locale;
 
 public class MineUpcomingAdapter extends RecyclerView.Adapter<MineUpcomingAdapter.VH> {
 
-    private final List<TaskList> items;
+    private final List<TaskRow> items;
     private final SimpleDateFormat dfHeader = new SimpleDateFormat("EEEE, MMM dd", Locale.getDefault());
     private final SimpleDateFormat dfTime = new SimpleDateFormat("hh:mm a", Locale.getDefault());
     private final long EXPIRY_BUFFER_MS = 10 * 60 * 1000; // 10 minutes
 
     public interface OnItemClickListener {
-        void onStatusClick(TaskList task);
+        void onStatusClick(TaskRow task);
     }
 
     private final OnItemClickListener listener;
 
-    public MineUpcomingAdapter(List<TaskList> items, OnItemClickListener listener) {
+    public MineUpcomingAdapter(List<TaskRow> items, OnItemClickListener listener) {
         this.items = items;
         this.listener = listener;
     }
 
     // Pass null if no listener needed (legacy support if strictly needed, but
     // better to update calls)
-    public MineUpcomingAdapter(List<TaskList> items) {
+    public MineUpcomingAdapter(List<TaskRow> items) {
         this(items, null);
     }
 
@@ -50,8 +50,8 @@ public class MineUpcomingAdapter extends RecyclerView.Adapter<MineUpcomingAdapte
 
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
-        TaskList task = items.get(position);
-        TaskList prevTask = position > 0 ? items.get(position - 1) : null;
+        TaskRow task = items.get(position);
+        TaskRow prevTask = position > 0 ? items.get(position - 1) : null;
 
         // --- Date Header Logic ---
         boolean showHeader = false;
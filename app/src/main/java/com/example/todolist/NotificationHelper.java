@@ -317,7 +317,7 @@ public class NotificationHelper {
             DataManager dm = DataManager.getInstance(context);
             TaskList task = dm.getTaskById(taskId);
             if (task != null) {
-                String catColor = dm.getCategoryColor(task.getCategory());
+                String catColor = dm.getCategoryColor(task);
                 if (catColor != null) {
                     builder.setColor(android.graphics.Color.parseColor(catColor));
                     // Colorized allows the background to be tinted on some versions/contexts
@@ -444,7 +444,7 @@ public class NotificationHelper {
         new Thread(() -> {
             try {
                 DataManager dm = DataManager.getInstance(context);
-                java.util.List<TaskList> tasks = dm.getAllTasks();
+                Iterable<TaskList> tasks = dm.getTaskSnapshot().tasks();
                 long now = System.currentTimeMillis();
                 int count = 0;
 
@@ -0,0 +1,221 @@
+package com.example.todolist;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Immutable map from int keys to non-null values, iterated in key order.
+ *
+ * A bit-partitioned trie of 32-way nodes: {@link #plus} and {@link #minus}
+ * copy only the (at most seven) nodes on the key's path and share the rest
+ * with the original, so keeping an old version around costs nothing and a
+ * reader holding one never sees a later change.
+ */
+final class PersistentIntMap<V> implements Iterable<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // Shift of the root level: 30, 25, ... 0 covers all 32 key bits
+    private static final int TOP_SHIFT = 30;
+
+    private static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<>(null, 0);
+
+    // Children (or values, at shift 0) for the set bits of the bitmap, in order
+    private static final class Node {
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int k = flip(key);
+        Node node = root;
+        for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+            int bit = 1 << ((k >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0)
+                return null;
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (shift == 0)
+                return (V) slot;
+            node = (Node) slot;
+        }
+        return null;
+    }
+
+    PersistentIntMap<V> plus(int key, V value) {
+        if (value == null)
+            throw new NullPointerException("value");
+        Node newRoot = plus(root, TOP_SHIFT, flip(key), value);
+        if (newRoot == root)
+            return this;
+        return new PersistentIntMap<>(newRoot, get(key) != null ? size : size + 1);
+    }
+
+    PersistentIntMap<V> minus(int key) {
+        if (get(key) == null)
+            return this;
+        Node newRoot = minus(root, TOP_SHIFT, flip(key));
+        return newRoot == null ? empty() : new PersistentIntMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Calls {@code action} with each value and its key, in key order.
+     */
+    void forEach(ObjIntConsumer<V> action) {
+        forEachInRange(Integer.MIN_VALUE, Integer.MAX_VALUE, action);
+    }
+
+    /**
+     * Calls {@code action} with each value whose key is between {@code from}
+     * and {@code to}, inclusive, in key order. Subtrees outside the range are
+     * skipped.
+     */
+    void forEachInRange(int from, int to, ObjIntConsumer<V> action) {
+        if (root != null && from <= to)
+            forEachInRange(root, TOP_SHIFT, 0, flip(from), flip(to), action);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            // Path from the root to the next value: the node and the slot position at each level
+            private final Node[] nodes = new Node[TOP_SHIFT / BITS + 1];
+            private final int[] positions = new int[nodes.length];
+            private int depth = -1;
+
+            {
+                if (root != null)
+                    descend(root, 0);
+            }
+
+            private void descend(Node node, int level) {
+                while (true) {
+                    nodes[level] = node;
+                    positions[level] = 0;
+                    depth = level;
+                    if (level == nodes.length - 1)
+                        return;
+                    node = (Node) node.slots[0];
+                    level++;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return depth >= 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (depth < 0)
+                    throw new NoSuchElementException();
+                V value = (V) nodes[depth].slots[positions[depth]];
+                // Advance to the next slot, climbing while a node is used up
+                int level = depth;
+                while (level >= 0 && ++positions[level] == nodes[level].slots.length)
+                    level--;
+                if (level < 0)
+                    depth = -1;
+                else if (level < nodes.length - 1)
+                    descend((Node) nodes[level].slots[positions[level]], level + 1);
+                return value;
+            }
+        };
+    }
+
+    // Keys are stored with the sign bit flipped so unsigned trie order is
+    // signed key order
+    private static int flip(int key) {
+        return key ^ Integer.MIN_VALUE;
+    }
+
+    private static Node plus(Node node, int shift, int k, Object value) {
+        int bit = 1 << ((k >>> shift) & MASK);
+        int bitmap = node != null ? node.bitmap : 0;
+        int pos = Integer.bitCount(bitmap & (bit - 1));
+        if ((bitmap & bit) != 0) {
+            Object old = node.slots[pos];
+            Object updated = shift == 0 ? value : plus((Node) old, shift - BITS, k, value);
+            if (updated == old)
+                return node;
+            Object[] slots = node.slots.clone();
+            slots[pos] = updated;
+            return new Node(bitmap, slots);
+        }
+        Object added = shift == 0 ? value : plus(null, shift - BITS, k, value);
+        int count = node != null ? node.slots.length : 0;
+        Object[] slots = new Object[count + 1];
+        if (node != null) {
+            System.arraycopy(node.slots, 0, slots, 0, pos);
+            System.arraycopy(node.slots, pos, slots, pos + 1, count - pos);
+        }
+        slots[pos] = added;
+        return new Node(bitmap | bit, slots);
+    }
+
+    // The key must be present. Returns null when the node ends up empty.
+    private static Node minus(Node node, int shift, int k) {
+        int bit = 1 << ((k >>> shift) & MASK);
+        int pos = Integer.bitCount(node.bitmap & (bit - 1));
+        if (shift > 0) {
+            Node child = minus((Node) node.slots[pos], shift - BITS, k);
+            if (child != null) {
+                Object[] slots = node.slots.clone();
+                slots[pos] = child;
+                return new Node(node.bitmap, slots);
+            }
+        }
+        if (node.bitmap == bit)
+            return null;
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, pos);
+        System.arraycopy(node.slots, pos + 1, slots, pos, slots.length - pos);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void forEachInRange(Node node, int shift, int prefix, int lo, int hi,
+            ObjIntConsumer<V> action) {
+        int pos = 0;
+        for (int bits = node.bitmap; bits != 0; bits &= bits - 1, pos++) {
+            int first = prefix | (Integer.numberOfTrailingZeros(bits) << shift);
+            int last = first | ((1 << shift) - 1);
+            if (Integer.compareUnsigned(last, lo) < 0)
+                continue;
+            if (Integer.compareUnsigned(first, hi) > 0)
+                return;
+            if (shift == 0)
+                action.accept((V) node.slots[pos], flip(first));
+            else
+                forEachInRange((Node) node.slots[pos], shift - BITS, first, lo, hi, action);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+/**
+ * How far the instances of a recurring series have been generated: the first
+ * day the series repeats on that has no instance yet. The generator
+ * (DataManager.generateRecurringInstances) only reads the series whose next
+ * day is about to come up, and resumes from here after a reboot or a missed
+ * midnight alarm.
+ *
+ * One row per recurring task that is not itself an instance. Triggers add the
+ * row with the task and reset it when the task's due date or repeat settings
+ * change (see AppDatabase.createCheckpointTriggers). A task that stops being
+ * a series keeps its row, set to NEVER, so its generation keeps counting.
+ */
+@Entity(tableName = "recurrence_checkpoints", foreignKeys = @ForeignKey(entity = TaskList.class, parentColumns = "id", childColumns = "series_id", onDelete = CASCADE), indices = {
+        @Index("next_day") })
+public class RecurrenceCheckpoint {
+
+    // Generation has not started: resume from today
+    static final int NOT_STARTED = 0;
+    // The rule never repeats again
+    static final int NEVER = Integer.MAX_VALUE;
+
+    @PrimaryKey
+    @ColumnInfo(name = "series_id")
+    public int seriesId;
+
+    // Epoch day, see EpochDays
+    @ColumnInfo(name = "next_day")
+    public int nextDay;
+
+    // Bumped by every change to the row, so a generator that read it can tell
+    // whether it changed since, even if next_day ended up the same
+    @ColumnInfo(name = "generation", defaultValue = "0")
+    public int generation;
+
+    public RecurrenceCheckpoint() {
+    }
+
+    @Ignore
+    public RecurrenceCheckpoint(int seriesId, int nextDay) {
+        this.seriesId = seriesId;
+        this.nextDay = nextDay;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.todolist;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface RecurrenceCheckpointDao {
+
+    // The series with an occurrence on or before day still to generate
+    @Query("SELECT * FROM recurrence_checkpoints WHERE next_day <= :day")
+    List<RecurrenceCheckpoint> getDueBy(int day);
+
+    /**
+     * Moves a checkpoint forward, unless it changed since it was read: a
+     * trigger reset it because the series was edited meanwhile, or another
+     * run advanced it. Compares the generation, not next_day, which a reset
+     * can set back to the value that was read.
+     */
+    @Query("UPDATE recurrence_checkpoints SET next_day = :nextDay, generation = generation + 1 "
+            + "WHERE series_id = :seriesId AND generation = :readGeneration")
+    void advance(int seriesId, int readGeneration, int nextDay);
+
+    // After a time zone change, which moves every due day
+    @Query("UPDATE recurrence_checkpoints SET next_day = " + RecurrenceCheckpoint.NOT_STARTED
+            + ", generation = generation + 1 WHERE next_day != " + RecurrenceCheckpoint.NEVER)
+    void resetAll();
+}
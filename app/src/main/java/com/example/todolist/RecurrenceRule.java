@@ -0,0 +1,267 @@
+package com.example.todolist;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A task's repeat settings compiled into integers: the kind of rule, its
+ * period and (for custom days) a weekday bitmask, anchored on the epoch day of
+ * the task's due date.
+ *
+ * {@link #occursOn}, {@link #nextAfter} and {@link #addOccurrences} work on
+ * epoch days (see EpochDays) with integer arithmetic only, so the calendar and
+ * the recurrence generator can test many days without parsing repeat_days or
+ * building Calendars. Both go through here and always agree.
+ *
+ * Rules:
+ * - days / weeks: every interval days (weeks) from the anchor
+ * - months / years: the anchor's day of month every interval months (years),
+ *   on the last day of shorter months (Jan 31 -> Feb 28, Feb 29 -> Feb 28)
+ * - custom_days: every selected weekday on or after the anchor; repeat_days
+ *   holds Calendar.DAY_OF_WEEK values, 1 = Sunday .. 7 = Saturday
+ *
+ * Rules are cached by task id and rebuilt when the task's repeat fields or
+ * due date change.
+ */
+final class RecurrenceRule {
+
+    private static final int NONE = 0;
+    private static final int DAILY = 1;
+    private static final int WEEKLY = 2;
+    private static final int MONTHLY = 3;
+    private static final int WEEKDAYS = 4;
+
+    private static final RecurrenceRule NEVER = new RecurrenceRule(NONE, 1, 0, 0, null, 1, null, 0);
+
+    // Rules of deleted tasks are never evicted one by one; start over past this
+    private static final int MAX_CACHED = 2048;
+    private static final ConcurrentHashMap<Integer, RecurrenceRule> cache = new ConcurrentHashMap<>();
+
+    // 1970-01-01 was a Thursday (Calendar.THURSDAY = 5)
+    private static final int EPOCH_DAY_OF_WEEK = 5;
+
+    private static final int[] MONTH_LENGTHS = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private final int kind;
+    // Days for DAILY and WEEKLY, months for MONTHLY
+    private final int period;
+    // Bit n set for Calendar.DAY_OF_WEEK n
+    private final int weekdays;
+    private final int anchorDay;
+    private final int anchorMonth;
+    private final int anchorDayOfMonth;
+
+    // The fields the rule was compiled from, to tell whether it is still current
+    private final String repeatType;
+    private final int repeatInterval;
+    private final String repeatDays;
+    private final long dueDate;
+
+    private RecurrenceRule(int kind, int period, int weekdays, int anchorDay, String repeatType,
+            int repeatInterval, String repeatDays, long dueDate) {
+        this.kind = kind;
+        this.period = period;
+        this.weekdays = weekdays;
+        this.anchorDay = anchorDay;
+        int civil = civil(anchorDay);
+        this.anchorMonth = civil >> 5;
+        this.anchorDayOfMonth = civil & 31;
+        this.repeatType = repeatType;
+        this.repeatInterval = repeatInterval;
+        this.repeatDays = repeatDays;
+        this.dueDate = dueDate;
+    }
+
+    /**
+     * The rule of {@code task}, anchored on its due date. Tasks without a due
+     * date or a repeat type get a rule that never occurs.
+     */
+    static RecurrenceRule of(TaskRow task) {
+        if (task.id <= 0)
+            return compile(task);
+        RecurrenceRule rule = cache.get(task.id);
+        if (rule != null && rule.compiledFrom(task))
+            return rule;
+        rule = compile(task);
+        if (cache.size() >= MAX_CACHED)
+            cache.clear();
+        cache.put(task.id, rule);
+        return rule;
+    }
+
+    private static RecurrenceRule compile(TaskRow task) {
+        if (task.dueDate <= 0 || task.repeatType == null)
+            return NEVER;
+        int interval = Math.max(task.repeatInterval, 1);
+        int kind;
+        int period = interval;
+        int weekdays = 0;
+        switch (task.repeatType) {
+            case "days":
+                kind = DAILY;
+                break;
+            case "weeks":
+                kind = WEEKLY;
+                period = 7 * interval;
+                break;
+            case "months":
+                kind = MONTHLY;
+                break;
+            case "years":
+                kind = MONTHLY;
+                period = 12 * interval;
+                break;
+            case "custom_days":
+                kind = WEEKDAYS;
+                weekdays = parseWeekdays(task.repeatDays);
+                if (weekdays == 0)
+                    return NEVER;
+                break;
+            default:
+                return NEVER;
+        }
+        return new RecurrenceRule(kind, period, weekdays, EpochDays.of(task.dueDate), task.repeatType,
+                task.repeatInterval, task.repeatDays, task.dueDate);
+    }
+
+    private boolean compiledFrom(TaskRow task) {
+        return dueDate == task.dueDate && repeatInterval == task.repeatInterval
+                && equal(repeatType, task.repeatType) && equal(repeatDays, task.repeatDays);
+    }
+
+    /**
+     * Whether the task occurs on {@code day}. The anchor day itself counts.
+     */
+    boolean occursOn(int day) {
+        if (kind == NONE || day < anchorDay)
+            return false;
+        switch (kind) {
+            case DAILY:
+            case WEEKLY:
+                return (day - anchorDay) % period == 0;
+            case WEEKDAYS:
+                return (weekdays & (1 << dayOfWeek(day))) != 0;
+            case MONTHLY:
+                int civil = civil(day);
+                int month = civil >> 5;
+                return (month - anchorMonth) % period == 0 && (civil & 31) == dayOfMonthIn(month);
+        }
+        return false;
+    }
+
+    /**
+     * The first day after {@code day} the task occurs on, or
+     * {@link EpochDays#NONE} if it never does.
+     */
+    int nextAfter(int day) {
+        int from = Math.max(day, anchorDay - 1);
+        switch (kind) {
+            case DAILY:
+            case WEEKLY:
+                return anchorDay + (Math.floorDiv(from - anchorDay, period) + 1) * period;
+            case WEEKDAYS:
+                for (int d = from + 1; d <= from + 7; d++) {
+                    if ((weekdays & (1 << dayOfWeek(d))) != 0)
+                        return d;
+                }
+                return EpochDays.NONE;
+            case MONTHLY:
+                int month = civil(from) >> 5;
+                // First month of the series not before from's month
+                month = anchorMonth + Math.max(0, -Math.floorDiv(anchorMonth - month, period)) * period;
+                int next = dayIn(month);
+                return next > from ? next : dayIn(month + period);
+        }
+        return EpochDays.NONE;
+    }
+
+    /**
+     * Sets bit {@code d - base} of {@code days} for every day d between
+     * {@code from} and {@code to}, inclusive, the task occurs on. Jumps from
+     * one occurrence to the next, so the cost is the number of occurrences,
+     * not the length of the range.
+     */
+    void addOccurrences(int from, int to, int base, BitSet days) {
+        if (kind == NONE)
+            return;
+        int day = nextAfter(from - 1);
+        if (kind == DAILY || kind == WEEKLY) {
+            for (; day <= to; day += period)
+                days.set(day - base);
+            return;
+        }
+        for (; day != EpochDays.NONE && day <= to; day = nextAfter(day))
+            days.set(day - base);
+    }
+
+    // ==================== DAY ARITHMETIC ====================
+
+    /**
+     * Calendar.DAY_OF_WEEK of an epoch day: 1 = Sunday .. 7 = Saturday.
+     */
+    static int dayOfWeek(int day) {
+        return Math.floorMod(day + EPOCH_DAY_OF_WEEK - 1, 7) + 1;
+    }
+
+    // The series' day of month in a month that is clamped to the month's length
+    private int dayOfMonthIn(int month) {
+        return Math.min(anchorDayOfMonth, lengthOf(month));
+    }
+
+    private int dayIn(int month) {
+        return epochDay(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, dayOfMonthIn(month));
+    }
+
+    // Month index (year * 12 + month - 1) and day of month of an epoch day,
+    // packed as index << 5 | day. Howard Hinnant's civil_from_days.
+    private static int civil(int day) {
+        int z = day + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int dayOfMonth = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (year * 12 + month - 1) << 5 | dayOfMonth;
+    }
+
+    // Epoch day of a date, month 1..12. Howard Hinnant's days_from_civil.
+    private static int epochDay(int year, int month, int dayOfMonth) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int lengthOf(int month) {
+        int m = Math.floorMod(month, 12);
+        if (m != 1)
+            return MONTH_LENGTHS[m];
+        int year = Math.floorDiv(month, 12);
+        boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        return leap ? 29 : 28;
+    }
+
+    // "2,4,6" -> bits 2, 4 and 6; anything else in the string is skipped
+    private static int parseWeekdays(String repeatDays) {
+        if (repeatDays == null)
+            return 0;
+        int mask = 0;
+        for (int i = 0; i < repeatDays.length(); i++) {
+            char c = repeatDays.charAt(i);
+            if (c >= '1' && c <= '7'
+                    && (i + 1 == repeatDays.length() || !Character.isDigit(repeatDays.charAt(i + 1)))
+                    && (i == 0 || !Character.isDigit(repeatDays.charAt(i - 1))))
+                mask |= 1 << (c - '0');
+        }
+        return mask;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
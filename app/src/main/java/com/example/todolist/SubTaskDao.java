@@ -14,6 +14,12 @@ public interface SubTaskDao {
     @Query("SELECT * FROM subtasks WHERE parent_task_id = :taskId")
     List<SubTask> getSubTasksForTask(int taskId);
 
+    @Query("SELECT * FROM subtasks WHERE parent_task_id IN (:taskIds) ORDER BY id")
+    List<SubTask> getSubTasksForTasks(List<Integer> taskIds);
+
+    @Query("SELECT parent_task_id FROM subtasks WHERE id = :id")
+    Integer getParentTaskId(int id);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insert(SubTask subTask);
 
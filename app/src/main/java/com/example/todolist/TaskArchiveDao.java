@@ -0,0 +1,133 @@
+package com.example.todolist;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+@Dao
+public interface TaskArchiveDao {
+    // Columns moved from tasks into archived_tasks
+    String ARCHIVED_COLUMNS = "id, check_status, task, time, category, is_starred, due_date, due_day, repeat_type, "
+            + "repeat_interval, task_time, completed_at, marker_type, marker_value, marker_color, rejection_reason, "
+            + "repeat_days, recurring_parent_id, subtask_total, subtask_done, category_id, reminder_minutes, "
+            + "use_alarm, screen_lock, attachments, created_from";
+
+    // Completed before the cutoff, or missed with a due date (or rejection time)
+    // before it. The first task of a recurring series stays: new instances are
+    // generated from it. So do tasks with subtasks or attachments, whose rows
+    // the delete would cascade to.
+    String ARCHIVABLE = "((check_status = 1 AND completed_at > 0 AND completed_at < :cutoff) "
+            + "OR (check_status = 2 AND MAX(completed_at, due_date) > 0 AND MAX(completed_at, due_date) < :cutoff)) "
+            + "AND NOT (recurring_parent_id = 0 AND repeat_type IS NOT NULL AND repeat_type != 'none') "
+            + "AND subtask_total = 0 AND NOT EXISTS (SELECT 1 FROM attachments WHERE attachments.task_id = tasks.id)";
+
+    @Query("SELECT id FROM tasks WHERE " + ARCHIVABLE + " LIMIT :limit")
+    List<Integer> getArchivableTaskIds(long cutoff, int limit);
+
+    @Query("INSERT OR REPLACE INTO archived_tasks (" + ARCHIVED_COLUMNS + ", archived_at) "
+            + "SELECT " + ARCHIVED_COLUMNS + ", :archivedAt FROM tasks WHERE id IN (:taskIds)")
+    void copyToArchive(List<Integer> taskIds, long archivedAt);
+
+    @Query("INSERT INTO archive_totals (category, category_id, check_status, day_of_week, count) "
+            + "SELECT category, category_id, check_status, CASE WHEN check_status = 1 AND completed_at > 0 "
+            + "THEN CAST(strftime('%w', completed_at / 1000, 'unixepoch', 'localtime') AS INTEGER) + 1 ELSE 0 END, "
+            + "COUNT(*) FROM tasks WHERE id IN (:taskIds) GROUP BY 1, 2, 3, 4")
+    void addToTotals(List<Integer> taskIds);
+
+    @Query("DELETE FROM tasks WHERE id IN (:taskIds)")
+    void deleteTasks(List<Integer> taskIds);
+
+    /**
+     * Moves up to {@code limit} archivable tasks into archived_tasks and their
+     * counts into archive_totals. Returns the ids of the moved tasks.
+     */
+    @Transaction
+    default List<Integer> archiveBatch(long cutoff, long archivedAt, int limit) {
+        List<Integer> ids = getArchivableTaskIds(cutoff, limit);
+        if (ids.isEmpty())
+            return ids;
+        copyToArchive(ids, archivedAt);
+        addToTotals(ids);
+        deleteTasks(ids);
+        return ids;
+    }
+
+    // ==================== HISTORY PAGES ====================
+    // Same keyset as TaskDao's completed pages, so the two can be merged
+
+    @Query("SELECT " + TaskDao.ROW_COLUMNS + " FROM archived_tasks WHERE " + TaskDao.COMPLETED_PAGE)
+    List<TaskRow> getCompletedTaskRowsPage(long beforeCompletedAt, int beforeId, int limit);
+
+    @Query("SELECT " + TaskDao.ROW_COLUMNS + " FROM archived_tasks WHERE category_id = :categoryId AND "
+            + TaskDao.COMPLETED_PAGE)
+    List<TaskRow> getCompletedTaskRowsPageByCategoryId(int categoryId, long beforeCompletedAt, int beforeId,
+            int limit);
+
+    @Query("SELECT " + TaskDao.ROW_COLUMNS + " FROM archived_tasks "
+            + "WHERE (category_id IS NULL OR category_id = :noCategoryId) AND " + TaskDao.COMPLETED_PAGE)
+    List<TaskRow> getUncategorizedCompletedTaskRowsPage(int noCategoryId, long beforeCompletedAt, int beforeId,
+            int limit);
+
+    // Both ends of the completed history, read from the (check_status, completed_at) index
+    @Query("SELECT COALESCE(MAX(completed_at), 0) FROM archived_tasks WHERE check_status = 1")
+    long getNewestCompletedAt();
+
+    @Query("SELECT COALESCE(MIN(completed_at), 0) FROM archived_tasks WHERE check_status = 1")
+    long getOldestCompletedAt();
+
+    // ==================== EXPORT ====================
+    // Whole rows in id order, a page at a time: pass 0, then the last id read
+
+    @Query("SELECT * FROM archived_tasks WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<ArchivedTask> getArchivedTasksPage(int afterId, int limit);
+
+    @Query("SELECT * FROM archived_tasks WHERE category_id = :categoryId AND id > :afterId ORDER BY id LIMIT :limit")
+    List<ArchivedTask> getArchivedTasksPageByCategoryId(int categoryId, int afterId, int limit);
+
+    // Same name fallback as TaskDao.getTasksByCategory
+    @Query("SELECT * FROM archived_tasks WHERE category = :category AND id > :afterId ORDER BY id LIMIT :limit")
+    List<ArchivedTask> getArchivedTasksPageByCategory(String category, int afterId, int limit);
+
+    @Query("SELECT COUNT(*) FROM archived_tasks")
+    int getArchivedTaskCount();
+
+    // ==================== TOTALS ====================
+
+    @Query("SELECT COALESCE(SUM(count), 0) FROM archive_totals WHERE check_status = :status")
+    int getCountByStatus(int status);
+
+    // Same 'Unknown' grouping as TaskDao.getCategoryCounts
+    @Query("SELECT CASE WHEN category IS NULL OR TRIM(category) = '' THEN 'Unknown' ELSE category END AS category, "
+            + "SUM(count) AS count FROM archive_totals GROUP BY 1")
+    List<CategoryCount> getCategoryCounts();
+
+    @Query("SELECT CASE WHEN category IS NULL OR TRIM(category) = '' THEN 'Unknown' ELSE category END AS category, "
+            + "SUM(count) AS count FROM archive_totals WHERE check_status = :status GROUP BY 1")
+    List<CategoryCount> getCategoryCountsByStatus(int status);
+
+    @Query("SELECT day_of_week AS dayOfWeek, SUM(count) AS count FROM archive_totals "
+            + "WHERE check_status = 1 AND day_of_week > 0 GROUP BY 1")
+    List<DayCount> getCompletedCountsByDayOfWeek();
+
+    // For ranges that cover only part of the archive
+    @Query("SELECT CAST(strftime('%w', completed_at / 1000, 'unixepoch', 'localtime') AS INTEGER) + 1 AS dayOfWeek, "
+            + "COUNT(*) AS count FROM archived_tasks "
+            + "WHERE check_status = 1 AND completed_at >= :start AND completed_at <= :end GROUP BY 1")
+    List<DayCount> getCompletedCountsByDayOfWeek(long start, long end);
+
+    // ==================== CATEGORIES ====================
+
+    @Query("UPDATE archived_tasks SET category = :name WHERE category_id = :categoryId")
+    void renameCategory(int categoryId, String name);
+
+    @Query("UPDATE archive_totals SET category = :name WHERE category_id = :categoryId")
+    void renameCategoryInTotals(int categoryId, String name);
+
+    @Query("UPDATE archived_tasks SET category_id = NULL WHERE category_id = :categoryId")
+    void unlinkCategory(int categoryId);
+
+    @Query("UPDATE archive_totals SET category_id = NULL WHERE category_id = :categoryId")
+    void unlinkCategoryInTotals(int categoryId);
+}
@@ -0,0 +1,59 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+/**
+ * A file attached to a task, with the metadata the detail screen shows. The
+ * display name, type and size are read from the ContentResolver once, when the
+ * file is attached (see DataManager.addAttachment), so rendering never asks the
+ * provider again.
+ */
+@Entity(tableName = "attachments", foreignKeys = @ForeignKey(entity = TaskList.class, parentColumns = "id", childColumns = "task_id", onDelete = CASCADE), indices = {
+        @Index("task_id") })
+public class TaskAttachment {
+
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    @ColumnInfo(name = "task_id")
+    public int taskId;
+
+    @ColumnInfo(name = "uri")
+    public String uri;
+
+    // Null until resolved; rows moved over from the old attachments string
+    // are resolved the first time they are listed
+    @ColumnInfo(name = "display_name")
+    public String displayName;
+
+    @ColumnInfo(name = "mime_type")
+    public String mimeType;
+
+    // Bytes, or -1 if the provider does not report a size
+    @ColumnInfo(name = "size")
+    public long size = -1;
+
+    @ColumnInfo(name = "added_at")
+    public long addedAt = 0;
+
+    public TaskAttachment() {
+    }
+
+    @Ignore
+    public TaskAttachment(int taskId, String uri) {
+        this.taskId = taskId;
+        this.uri = uri;
+        this.addedAt = System.currentTimeMillis();
+    }
+
+    public boolean isResolved() {
+        return displayName != null;
+    }
+}
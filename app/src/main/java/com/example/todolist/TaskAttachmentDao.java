@@ -0,0 +1,27 @@
+package com.example.todolist;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface TaskAttachmentDao {
+    @Query("SELECT * FROM attachments WHERE task_id = :taskId ORDER BY added_at, id")
+    List<TaskAttachment> getForTask(int taskId);
+
+    // For backups: every row, grouped by task
+    @Query("SELECT * FROM attachments ORDER BY task_id, added_at, id")
+    List<TaskAttachment> getAll();
+
+    @Insert
+    long insert(TaskAttachment attachment);
+
+    @Update
+    void update(TaskAttachment attachment);
+
+    @Query("DELETE FROM attachments WHERE id = :id")
+    void deleteById(int id);
+}
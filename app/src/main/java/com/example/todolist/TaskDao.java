@@ -5,29 +5,169 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface TaskDao {
+    // Columns of a TaskRow. Notes and rejection reasons are clipped to what a row
+    // can display; full rows come from the TaskList queries.
+    String ROW_COLUMNS = "id, check_status, task, substr(time, 1, 120) AS time, category, is_starred, due_date, "
+            + "due_day, repeat_type, repeat_interval, task_time, completed_at, marker_type, marker_value, "
+            + "marker_color, substr(rejection_reason, 1, 120) AS rejection_reason, repeat_days, recurring_parent_id, "
+            + "subtask_total, subtask_done, category_id";
+
     @Query("SELECT * FROM tasks")
     List<TaskList> getAllTasks();
 
     @Query("SELECT * FROM tasks WHERE id = :id")
     TaskList getTaskById(int id);
 
-    @Query("SELECT * FROM tasks WHERE check_status = :status")
-    List<TaskList> getTasksByStatus(int status);
-
     @Query("SELECT * FROM tasks WHERE category = :category")
     List<TaskList> getTasksByCategory(String category);
 
+    @Query("SELECT * FROM tasks WHERE category_id = :categoryId")
+    List<TaskList> getTasksByCategoryId(int categoryId);
+
+    @Query("SELECT * FROM tasks WHERE due_date >= :start AND due_date <= :end")
+    List<TaskList> getTasksDueBetweenInclusive(long start, long end);
+
+    @Query("SELECT * FROM tasks WHERE due_date >= :start AND due_date < :end")
+    List<TaskList> getTasksDueInRange(long start, long end);
+
+    @Query("SELECT * FROM tasks WHERE created_from = :source AND due_date >= :start AND due_date < :end")
+    List<TaskList> getTasksDueInRangeFromSource(long start, long end, String source);
+
+    @Query("SELECT * FROM tasks WHERE check_status = :status AND due_date >= :start AND due_date <= :end")
+    List<TaskList> getTasksByStatusDueBetween(int status, long start, long end);
+
+    // ==================== LIST ROWS ====================
+
+    @Query("SELECT " + ROW_COLUMNS + " FROM tasks")
+    List<TaskRow> getAllTaskRows();
+
+    @Query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE due_date >= :start AND due_date < :end")
+    List<TaskRow> getTaskRowsDueInRange(long start, long end);
+
+    // Completed-task pages, newest completion first. Each page continues after
+    // the (completed_at, id) of the previous page's last row; the leading
+    // completed_at <= bound lets SQLite seek the index instead of skipping rows.
+    String COMPLETED_PAGE = "check_status = 1 AND completed_at <= :beforeCompletedAt "
+            + "AND (completed_at < :beforeCompletedAt OR id < :beforeId) "
+            + "ORDER BY completed_at DESC, id DESC LIMIT :limit";
+
+    @Query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE " + COMPLETED_PAGE)
+    List<TaskRow> getCompletedTaskRowsPage(long beforeCompletedAt, int beforeId, int limit);
+
+    @Query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE category_id = :categoryId AND " + COMPLETED_PAGE)
+    List<TaskRow> getCompletedTaskRowsPageByCategoryId(int categoryId, long beforeCompletedAt, int beforeId,
+            int limit);
+
+    @Query("SELECT " + ROW_COLUMNS + " FROM tasks "
+            + "WHERE (category_id IS NULL OR category_id = :noCategoryId) AND " + COMPLETED_PAGE)
+    List<TaskRow> getUncategorizedCompletedTaskRowsPage(int noCategoryId, long beforeCompletedAt, int beforeId,
+            int limit);
+
+    // Full-text search through task_search. :query and :titleQuery are FTS MATCH
+    // expressions built by DataManager.searchTaskRows; title hits rank first,
+    // then pending tasks by due date.
+    @Query("SELECT " + ROW_COLUMNS + ", offsets(task_search) AS match_offsets FROM tasks "
+            + "JOIN task_search ON task_search.rowid = tasks.id WHERE task_search MATCH :query "
+            + "ORDER BY tasks.id IN (SELECT rowid FROM task_search WHERE task_search MATCH :titleQuery) DESC, "
+            + "check_status, due_date LIMIT :limit")
+    List<TaskSearchResult> searchTaskRows(String query, String titleQuery, int limit);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    long insertRow(TaskList task);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    long insert(TaskList task);
+    List<Long> insertAllRows(List<TaskList> tasks);
+
+    // Both inserts return -1 for an instance its series already has on that
+    // day (see AppDatabase.createInstanceTriggers)
+    @Transaction
+    default long insert(TaskList task) {
+        task.dueDay = EpochDays.ofDueDate(task.dueDate);
+        long id = insertRow(task);
+        if (id > 0 && task.copyAttachmentsFrom > 0) {
+            copyAttachments(task.copyAttachmentsFrom, (int) id);
+        }
+        return id;
+    }
+
+    @Transaction
+    default List<Long> insertAll(List<TaskList> tasks) {
+        for (TaskList task : tasks) {
+            task.dueDay = EpochDays.ofDueDate(task.dueDate);
+        }
+        List<Long> ids = insertAllRows(tasks);
+        for (int i = 0; i < tasks.size(); i++) {
+            if (ids.get(i) > 0 && tasks.get(i).copyAttachmentsFrom > 0) {
+                copyAttachments(tasks.get(i).copyAttachmentsFrom, ids.get(i).intValue());
+            }
+        }
+        return ids;
+    }
+
+    // Metadata is copied along, so the copy needs no ContentResolver lookups
+    @Query("INSERT INTO attachments (task_id, uri, display_name, mime_type, size, added_at) "
+            + "SELECT :toTaskId, uri, display_name, mime_type, size, added_at FROM attachments "
+            + "WHERE task_id = :fromTaskId ORDER BY added_at, id")
+    void copyAttachments(int fromTaskId, int toTaskId);
+
+    @Query("UPDATE tasks SET check_status = 2 WHERE id = :id AND check_status = 0")
+    int markMissedIfPending(int id);
+
+    /**
+     * Marks each overdue task in {@code instancesByTask} as missed and inserts the
+     * instances generated for it, all in one transaction. Tasks that are no longer
+     * pending (e.g. completed meanwhile) are skipped along with their instances,
+     * as are instances for days their series already has. Returns the inserted
+     * instances with their ids filled in.
+     */
+    @Transaction
+    default List<TaskList> markMissedAndInsertInstances(Map<Integer, List<TaskList>> instancesByTask) {
+        List<TaskList> toInsert = new ArrayList<>();
+        for (Map.Entry<Integer, List<TaskList>> entry : instancesByTask.entrySet()) {
+            if (markMissedIfPending(entry.getKey()) > 0) {
+                toInsert.addAll(entry.getValue());
+            }
+        }
+        List<TaskList> inserted = new ArrayList<>();
+        if (!toInsert.isEmpty()) {
+            List<Long> ids = insertAll(toInsert);
+            for (int i = 0; i < toInsert.size(); i++) {
+                if (ids.get(i) > 0) {
+                    toInsert.get(i).id = ids.get(i).intValue();
+                    inserted.add(toInsert.get(i));
+                }
+            }
+        }
+        return inserted;
+    }
 
     @Update
-    void update(TaskList task);
+    void updateRow(TaskList task);
+
+    // subtask_total/subtask_done belong to the subtasks triggers. The entity may
+    // carry counts loaded before its subtasks changed, so they are recounted
+    // after the row is written.
+    @Transaction
+    default void update(TaskList task) {
+        task.dueDay = EpochDays.ofDueDate(task.dueDate);
+        updateRow(task);
+        recountSubtasks(task.id);
+    }
+
+    @Query("UPDATE tasks SET "
+            + "subtask_total = (SELECT COUNT(*) FROM subtasks WHERE parent_task_id = :taskId), "
+            + "subtask_done = (SELECT COUNT(*) FROM subtasks WHERE parent_task_id = :taskId AND is_completed = 1) "
+            + "WHERE id = :taskId")
+    void recountSubtasks(int taskId);
 
     @Delete
     void delete(TaskList task);
@@ -35,12 +175,68 @@ public interface TaskDao {
     @Query("DELETE FROM tasks WHERE id = :id")
     void deleteById(int id);
 
-    @Query("SELECT COUNT(*) FROM tasks WHERE check_status = 0")
-    int getPendingTaskCount();
+    // Keeps the denormalized name in step after a rename; uses the category_id index
+    @Query("UPDATE tasks SET category = :name WHERE category_id = :categoryId")
+    void renameCategory(int categoryId, String name);
+
+    // Links tasks whose category name matches a category row (case-insensitively,
+    // via the column's NOCASE collation) but have no category_id yet
+    @Query("UPDATE tasks SET category_id = (SELECT id FROM categories WHERE categories.name = tasks.category) "
+            + "WHERE category_id IS NULL")
+    int linkUncategorizedTasks();
+
+    // ==================== AGGREGATES ====================
+
+    @Query("SELECT COUNT(*) FROM tasks")
+    int getTaskCount();
+
+    @Query("SELECT COUNT(*) FROM tasks WHERE category = :category")
+    int getTaskCountByCategory(String category);
+
+    @Query("SELECT DISTINCT due_date FROM tasks WHERE due_date > 0")
+    List<Long> getDistinctDueDates();
+
+    @Query("UPDATE tasks SET due_day = :dueDay WHERE due_date = :dueDate")
+    void setDueDay(long dueDate, int dueDay);
+
+    /**
+     * Recomputes due_day for every dated task, e.g. after a time zone change.
+     * One update per distinct due date, each found through the due_date index.
+     */
+    @Transaction
+    default void recomputeDueDays() {
+        for (Long dueDate : getDistinctDueDates()) {
+            setDueDay(dueDate, EpochDays.of(dueDate));
+        }
+    }
+
+    // Blank categories are reported as 'Unknown', matching the Mine dashboard
+    @Query("SELECT CASE WHEN category IS NULL OR TRIM(category) = '' THEN 'Unknown' ELSE category END AS category, "
+            + "COUNT(*) AS count FROM tasks GROUP BY 1 ORDER BY count DESC")
+    List<CategoryCount> getCategoryCounts();
+
+    @Query("SELECT CASE WHEN category IS NULL OR TRIM(category) = '' THEN 'Unknown' ELSE category END AS category, "
+            + "COUNT(*) AS count FROM tasks WHERE check_status = :status GROUP BY 1 ORDER BY count DESC")
+    List<CategoryCount> getCategoryCountsByStatus(int status);
+
+    @Query("SELECT CASE WHEN category IS NULL OR TRIM(category) = '' OR category = 'No Category' COLLATE NOCASE "
+            + "THEN 'No Category' ELSE category END AS category, COUNT(*) AS count FROM tasks "
+            + "WHERE check_status = 0 AND due_date >= :start AND due_date <= :end GROUP BY 1")
+    List<CategoryCount> getPendingCountsByCategoryDueBetween(long start, long end);
+
+    // strftime('%w') is 0 = Sunday, shifted to match Calendar.DAY_OF_WEEK (1 = Sunday)
+    @Query("SELECT CAST(strftime('%w', completed_at / 1000, 'unixepoch', 'localtime') AS INTEGER) + 1 AS dayOfWeek, "
+            + "COUNT(*) AS count FROM tasks "
+            + "WHERE check_status = 1 AND completed_at >= :start AND completed_at <= :end GROUP BY 1")
+    List<DayCount> getCompletedCountsByDayOfWeek(long start, long end);
 
-    @Query("SELECT COUNT(*) FROM tasks WHERE check_status = 0 AND category LIKE :category")
-    int getPendingTaskCountByCategory(String category);
+    // All-time version; rows completed before completed_at was recorded have 0
+    @Query("SELECT CAST(strftime('%w', completed_at / 1000, 'unixepoch', 'localtime') AS INTEGER) + 1 AS dayOfWeek, "
+            + "COUNT(*) AS count FROM tasks WHERE check_status = 1 AND completed_at > 0 GROUP BY 1")
+    List<DayCount> getCompletedCountsByDayOfWeek();
 
-    @Query("SELECT COUNT(*) FROM tasks WHERE check_status = 0 AND (category IS NULL OR category = '' OR category = 'No Category')")
-    int getPendingTaskCountNoCategory();
+    // Pending tasks with a due date first, soonest first; undated tasks last
+    @Query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE check_status = 0 "
+            + "ORDER BY CASE WHEN due_date = 0 THEN 1 ELSE 0 END, due_date LIMIT :limit")
+    List<TaskRow> getUpcomingPendingTaskRows(int limit);
 }
@@ -92,15 +92,9 @@ public class TaskDetailActivity extends AppCompatActivity {
         dm = DataManager.getInstance(this);
 
         ImageButton btnBack = findViewById(R.id.btn_back);
-        ImageButton btnMore = findViewById(R.id.btn_more);
         tvCategory = findViewById(R.id.tv_category_pill);
         etTitle = findViewById(R.id.et_title);
 
-        View rowAddSubtask = findViewById(R.id.row_add_subtask);
-        View rowSchedule = findViewById(R.id.row_schedule);
-        View rowNotes = findViewById(R.id.row_notes);
-        View rowAttachment = findViewById(R.id.row_attachment);
-
         scheduleDetails = findViewById(R.id.schedule_details);
         tvScheduleDate = findViewById(R.id.tv_schedule_date);
         tvScheduleTime = findViewById(R.id.tv_schedule_time);
@@ -120,7 +114,6 @@ public class TaskDetailActivity extends AppCompatActivity {
         tvSubtaskProgress = findViewById(R.id.tv_subtask_progress);
 
         btnBack.setOnClickListener(v -> finish());
-        btnMore.setOnClickListener(v -> showMoreMenu());
 
         int taskId = getIntent().getIntExtra(EXTRA_TASK_ID, -1);
         if (taskId <= 0) {
@@ -128,14 +121,28 @@ public class TaskDetailActivity extends AppCompatActivity {
             return;
         }
 
-        task = dm.getTaskById(taskId);
-        if (task == null) {
-            finish();
-            return;
-        }
+        dm.getTaskByIdAsync(taskId, loaded -> {
+            if (isFinishing() || isDestroyed())
+                return;
+            if (loaded == null) {
+                finish();
+                return;
+            }
+            task = loaded;
+            bindTaskToUi();
+            bindTaskActions();
+        });
+    }
 
-        bindTaskToUi();
+    // Wired only once the task has loaded so no handler sees a null task.
+    private void bindTaskActions() {
+        ImageButton btnMore = findViewById(R.id.btn_more);
+        View rowAddSubtask = findViewById(R.id.row_add_subtask);
+        View rowSchedule = findViewById(R.id.row_schedule);
+        View rowNotes = findViewById(R.id.row_notes);
+        View rowAttachment = findViewById(R.id.row_attachment);
 
+        btnMore.setOnClickListener(v -> showMoreMenu());
         tvCategory.setOnClickListener(v -> showCategoryPicker());
         rowSchedule.setOnClickListener(v -> openScheduleEditor());
         rowNotes.setOnClickListener(v -> showNotesEditor());
@@ -168,7 +175,7 @@ public class TaskDetailActivity extends AppCompatActivity {
 
         try {
             task.task = etTitle.getText().toString().trim();
-            dm.updateTask(task);
+            dm.updateTaskAsync(task);
             titleDirty = false;
             setResult(RESULT_OK);
         } catch (Exception e) {
@@ -182,9 +189,10 @@ public class TaskDetailActivity extends AppCompatActivity {
         try {
 
             if (dm != null) {
-                dm.checkAndHandleMissedRecurrences();
+                dm.runAsync(dm::checkAndHandleMissedRecurrences);
             }
-            bindTaskToUi(); // Refresh UI
+            if (task != null)
+                bindTaskToUi(); // Refresh UI
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -244,71 +252,44 @@ public class TaskDetailActivity extends AppCompatActivity {
     }
 
     private void updateAttachmentsDisplay() {
-        attachmentsContainer.removeAllViews();
+        dm.getAttachmentsForTaskAsync(task.id, attachments -> {
+            if (!isFinishing() && !isDestroyed())
+                showAttachments(attachments);
+        });
+    }
 
-        if (task.attachments == null || task.attachments.trim().isEmpty()) {
-            tvAttachmentAction.setText("ADD");
-            attachmentsContainer.setVisibility(View.GONE);
-            return;
-        }
+    // Names come from the attachments table, so nothing here asks the provider
+    private void showAttachments(List<TaskAttachment> attachments) {
+        attachmentsContainer.removeAllViews();
 
-        String[] files = task.attachments.split(",");
-        if (files.length == 0) {
+        if (attachments == null || attachments.isEmpty()) {
             tvAttachmentAction.setText("ADD");
             attachmentsContainer.setVisibility(View.GONE);
             return;
         }
 
-        tvAttachmentAction.setText(files.length + " FILES");
+        tvAttachmentAction.setText(attachments.size() + " FILES");
         attachmentsContainer.setVisibility(View.VISIBLE);
 
-        for (String filePath : files) {
-            if (filePath.trim().isEmpty())
-                continue;
-            addAttachmentView(filePath.trim());
+        for (TaskAttachment attachment : attachments) {
+            addAttachmentView(attachment);
         }
     }
 
-    private void addAttachmentView(String filePath) {
+    private void addAttachmentView(TaskAttachment attachment) {
         View itemView = LayoutInflater.from(this).inflate(R.layout.item_attachment, attachmentsContainer, false);
 
         TextView tvName = itemView.findViewById(R.id.tv_attachment_name);
         ImageButton btnRemove = itemView.findViewById(R.id.btn_remove);
 
-        String fileName = getFileNameFromUri(filePath);
-        tvName.setText(fileName);
+        tvName.setText(attachment.displayName != null ? attachment.displayName : "Attachment");
 
-        itemView.setOnClickListener(v -> openFile(filePath));
-        btnRemove.setOnClickListener(v -> removeAttachment(filePath));
+        itemView.setOnClickListener(v -> openFile(attachment));
+        btnRemove.setOnClickListener(v -> removeAttachment(attachment));
 
         attachmentsContainer.addView(itemView);
     }
 
-    private String getFileNameFromUri(String uriString) {
-        try {
-            Uri uri = Uri.parse(uriString);
-            String result = null;
-            if (uriString.startsWith("content://")) {
-                try (android.database.Cursor cursor = getContentResolver().query(uri, null, null, null, null)) {
-                    if (cursor != null && cursor.moveToFirst()) {
-                        int idx = cursor.getColumnIndex(android.provider.OpenableColumns.DISPLAY_NAME);
-                        if (idx >= 0)
-                            result = cursor.getString(idx);
-                    }
-                }
-            }
-            if (result == null) {
-                result = uri.getPath();
-                if (result != null && result.contains("/")) {
-                    result = result.substring(result.lastIndexOf("/") + 1);
-                }
-            }
-            return result != null ? result : "Attachment";
-        } catch (Exception e) {
-            return "Attachment";
-        }
-    }
-
     private void openScheduleEditor() {
         showScheduleDialog();
     }
@@ -720,7 +701,7 @@ public class TaskDetailActivity extends AppCompatActivity {
             }
             task.repeatDays = daysBuilder.toString();
 
-            dm.updateTask(task);
+            dm.updateTaskAsync(task);
             // Cancel old reminders and schedule new ones
             NotificationHelper notificationHelper = new NotificationHelper(this);
             notificationHelper.cancelReminders(task.id);
@@ -1467,8 +1448,14 @@ public class TaskDetailActivity extends AppCompatActivity {
     }
 
     private void showCategoryPicker() {
+        dm.getAllCategoriesAsync(cats -> {
+            if (!isFinishing() && !isDestroyed())
+                showCategoryPicker(cats);
+        });
+    }
+
+    private void showCategoryPicker(List<Category> cats) {
         try {
-            List<Category> cats = dm.getAllCategories();
             ArrayList<String> items = new ArrayList<>();
             if (cats != null) {
                 for (Category c : cats) {
@@ -1489,7 +1476,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                             return;
                         }
                         task.category = sel;
-                        dm.updateTask(task);
+                        dm.updateTaskAsync(task);
                         tvCategory.setText(sel);
                         setResult(RESULT_OK);
                     })
@@ -1510,12 +1497,9 @@ public class TaskDetailActivity extends AppCompatActivity {
                         String name = input.getText().toString().trim();
                         if (name.isEmpty())
                             return;
-                        try {
-                            dm.insertCategory(new Category(name, "#5B9BD5", 1));
-                        } catch (Exception ignored) {
-                        }
+                        dm.insertCategoryAsync(new Category(name, "#5B9BD5", 1), null);
                         task.category = name;
-                        dm.updateTask(task);
+                        dm.updateTaskAsync(task);
                         tvCategory.setText(name);
                         setResult(RESULT_OK);
                     })
@@ -1565,7 +1549,7 @@ public class TaskDetailActivity extends AppCompatActivity {
             btnCancel.setOnClickListener(v -> dialog.dismiss());
             btnSave.setOnClickListener(v -> {
                 task.time = etNotes.getText().toString();
-                dm.updateTask(task);
+                dm.updateTaskAsync(task);
                 updateNotesDisplay();
                 setResult(RESULT_OK);
                 dialog.dismiss();
@@ -1646,56 +1630,38 @@ public class TaskDetailActivity extends AppCompatActivity {
             final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION;
             getContentResolver().takePersistableUriPermission(uri, takeFlags);
 
-            String uriString = uri.toString();
-
-            String current = task.attachments == null ? "" : task.attachments;
-            if (current.isEmpty()) {
-                task.attachments = uriString;
-            } else {
-                task.attachments = current + "," + uriString;
-            }
-
-            dm.updateTask(task);
-            updateAttachmentsDisplay();
+            // Name, type and size are looked up once, on the database thread
+            dm.addAttachmentAsync(task.id, uri.toString(), added -> {
+                if (isFinishing() || isDestroyed())
+                    return;
+                updateAttachmentsDisplay();
+                Toast.makeText(this, "File attached", Toast.LENGTH_SHORT).show();
+            });
             setResult(RESULT_OK);
-
-            Toast.makeText(this, "File attached", Toast.LENGTH_SHORT).show();
         } catch (Exception e) {
             e.printStackTrace();
             Toast.makeText(this, "Failed to attach file", Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void removeAttachment(String filePath) {
+    private void removeAttachment(TaskAttachment attachment) {
         try {
-            if (task.attachments == null)
-                return;
-
-            String[] files = task.attachments.split(",");
-            StringBuilder newAttachments = new StringBuilder();
-
-            for (String file : files) {
-                if (!file.trim().equals(filePath)) {
-                    if (newAttachments.length() > 0)
-                        newAttachments.append(",");
-                    newAttachments.append(file.trim());
-                }
-            }
-
-            task.attachments = newAttachments.toString();
-            dm.updateTask(task);
-            updateAttachmentsDisplay();
+            dm.deleteAttachmentAsync(attachment.id, () -> {
+                if (!isFinishing() && !isDestroyed())
+                    updateAttachmentsDisplay();
+            });
             setResult(RESULT_OK);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void openFile(String uriString) {
+    private void openFile(TaskAttachment attachment) {
         try {
-            Uri uri = Uri.parse(uriString);
+            Uri uri = Uri.parse(attachment.uri);
             Intent intent = new Intent(Intent.ACTION_VIEW);
-            intent.setDataAndType(uri, getContentResolver().getType(uri));
+            String type = attachment.mimeType != null ? attachment.mimeType : getContentResolver().getType(uri);
+            intent.setDataAndType(uri, type);
             intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
             startActivity(intent);
         } catch (Exception e) {
@@ -1732,14 +1698,17 @@ public class TaskDetailActivity extends AppCompatActivity {
             // Set max height for ScrollView (180dp - smaller to avoid keyboard overlap)
             int maxHeightPx = (int) (180 * getResources().getDisplayMetrics().density);
 
-            // Load existing subtasks
-            List<SubTask> subtasks = dm.getSubTasksForTask(task.id);
-
             Runnable refreshSubtasksList = new Runnable() {
                 @Override
                 public void run() {
+                    dm.getSubTasksForTaskAsync(task.id, currentSubtasks -> {
+                        if (!isFinishing() && !isDestroyed())
+                            render(currentSubtasks);
+                    });
+                }
+
+                private void render(List<SubTask> currentSubtasks) {
                     subtasksListContainer.removeAllViews();
-                    List<SubTask> currentSubtasks = dm.getSubTasksForTask(task.id);
 
                     if (currentSubtasks.isEmpty()) {
                         progressSection.setVisibility(View.GONE);
@@ -1790,13 +1759,13 @@ public class TaskDetailActivity extends AppCompatActivity {
                         View checkContainer = itemView.findViewById(R.id.subtask_check_container);
                         checkContainer.setOnClickListener(v -> {
                             st.isCompleted = st.isCompleted == 1 ? 0 : 1;
-                            dm.updateSubTask(st);
+                            dm.updateSubTaskAsync(st);
                             this.run();
                         });
 
                         // Delete subtask
                         btnDelete.setOnClickListener(v -> {
-                            dm.deleteSubTask(st.id);
+                            dm.deleteSubTaskAsync(st.id, null);
                             this.run();
                         });
 
@@ -1829,7 +1798,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                     Toast.makeText(this, "Enter a subtask title", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                dm.insertSubTask(new SubTask(task.id, title));
+                dm.insertSubTaskAsync(new SubTask(task.id, title), null);
                 etSubtaskTitle.setText("");
                 refreshSubtasksList.run();
 
@@ -1859,8 +1828,14 @@ public class TaskDetailActivity extends AppCompatActivity {
     }
 
     private void updateSubtasksDisplay() {
+        dm.getSubTasksForTaskAsync(task.id, subtasks -> {
+            if (!isFinishing() && !isDestroyed())
+                showSubtasks(subtasks);
+        });
+    }
+
+    private void showSubtasks(List<SubTask> subtasks) {
         try {
-            List<SubTask> subtasks = dm.getSubTasksForTask(task.id);
 
             if (subtasks == null || subtasks.isEmpty()) {
                 subtasksCard.setVisibility(View.GONE);
@@ -1911,7 +1886,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                 View checkContainer = itemView.findViewById(R.id.subtask_check_container);
                 checkContainer.setOnClickListener(v -> {
                     st.isCompleted = st.isCompleted == 1 ? 0 : 1;
-                    dm.updateSubTask(st);
+                    dm.updateSubTaskAsync(st);
                     updateSubtasksDisplay();
                     setResult(RESULT_OK);
                 });
@@ -1953,7 +1928,7 @@ public class TaskDetailActivity extends AppCompatActivity {
 
         optionStar.setOnClickListener(v -> {
             task.isStarred = task.isStarred == 1 ? 0 : 1;
-            dm.updateTask(task);
+            dm.updateTaskAsync(task);
             setResult(RESULT_OK);
             popupWindow.dismiss();
             Toast.makeText(this, task.isStarred == 1 ? "Task starred" : "Star removed", Toast.LENGTH_SHORT).show();
@@ -1974,7 +1949,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                     .setTitle("Delete Task")
                     .setMessage("Are you sure you want to delete this task?")
                     .setPositiveButton("Delete", (d, w) -> {
-                        dm.deleteTask(task);
+                        dm.deleteTaskAsync(task, null);
                         setResult(RESULT_OK);
                         finish();
                     })
@@ -2004,7 +1979,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                     task.markerType = "";
                     task.markerValue = "";
                     task.markerColor = 0;
-                    dm.updateTask(task);
+                    dm.updateTaskAsync(task);
                     dialog.dismiss();
                     setResult(RESULT_OK);
                     Toast.makeText(this, "Flag cleared", Toast.LENGTH_SHORT).show();
@@ -2073,7 +2048,7 @@ public class TaskDetailActivity extends AppCompatActivity {
             task.markerType = type;
             task.markerValue = value;
             task.markerColor = color;
-            dm.updateTask(task);
+            dm.updateTaskAsync(task);
             setResult(RESULT_OK);
             dialog.dismiss();
             Toast.makeText(this, "Flag set", Toast.LENGTH_SHORT).show();
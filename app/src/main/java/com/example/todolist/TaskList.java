@@ -2,41 +2,22 @@ package com.example.todolist;
 
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
 import androidx.room.Ignore;
-import androidx.room.PrimaryKey;
+import androidx.room.Index;
 
 /**
- * Task model for Room
+ * Task model for Room. The columns list rows need live in {@link TaskRow}.
  */
-@Entity(tableName = "tasks")
-public class TaskList {
-
-    @PrimaryKey(autoGenerate = true)
-    public int id;
-
-    @ColumnInfo(name = "check_status")
-    public int check;
-
-    @ColumnInfo(name = "task")
-    public String task;
-
-    @ColumnInfo(name = "time")
-    public String time;
-
-    @ColumnInfo(name = "category")
-    public String category = "All";
-
-    @ColumnInfo(name = "is_starred")
-    public int isStarred = 0;
-
-    @ColumnInfo(name = "due_date")
-    public long dueDate = 0;
-
-    @ColumnInfo(name = "repeat_type")
-    public String repeatType = "none";
-
-    @ColumnInfo(name = "repeat_interval")
-    public int repeatInterval = 1;
+@Entity(tableName = "tasks", foreignKeys = @ForeignKey(entity = Category.class, parentColumns = "id", childColumns = "category_id", onDelete = ForeignKey.SET_NULL), indices = {
+        @Index("due_date"),
+        @Index({ "check_status", "due_date" }),
+        @Index({ "check_status", "due_day" }),
+        @Index({ "created_from", "due_date" }),
+        @Index({ "check_status", "completed_at" }),
+        @Index({ "category_id", "check_status", "completed_at" }),
+        @Index({ "recurring_parent_id", "due_day" }) })
+public class TaskList extends TaskRow {
 
     @ColumnInfo(name = "reminder_minutes")
     public String reminderMinutes = "";
@@ -47,35 +28,24 @@ public class TaskList {
     @ColumnInfo(name = "screen_lock")
     public int screenLock = 0; // 0 = off, 1 = on
 
-    @ColumnInfo(name = "task_time")
-    public String taskTime = "";
-    @ColumnInfo(name = "completed_at")
-    public long completedAt = 0;
-
-    @ColumnInfo(name = "marker_type")
-    public String markerType;
-
-    @ColumnInfo(name = "marker_value")
-    public String markerValue;
-
-    @ColumnInfo(name = "marker_color")
-    public int markerColor = 0;
-
+    // Legacy comma-joined attachment URIs. Attachments live in their own table
+    // (see TaskAttachment); this is only read when importing old JSON data.
     @ColumnInfo(name = "attachments")
     public String attachments = "";
 
-    @ColumnInfo(name = "rejection_reason")
-    public String rejectionReason = "";
-
-    @ColumnInfo(name = "repeat_days")
-    public String repeatDays = "";
-
     @ColumnInfo(name = "created_from")
     public String createdFrom = "tasks";
 
-    // ID of the parent recurring task (0 if this is the original or non-recurring)
-    @ColumnInfo(name = "recurring_parent_id")
-    public int recurringParentId = 0;
+    // Set on a generated copy (e.g. the next instance of a recurring task) to
+    // the id of the task whose attachments it should get; TaskDao copies them
+    // when the copy is inserted
+    @Ignore
+    public int copyAttachmentsFrom = 0;
+
+    // Attachments read with the task from a JSON backup (see
+    // TaskStorageManager.loadTasks); inserted once the task has its id
+    @Ignore
+    public java.util.List<TaskAttachment> importedAttachments;
 
     @Ignore
     public TaskList(int id, int check, String task, String time) {
@@ -112,90 +82,38 @@ public class TaskList {
         this.time = "";
     }
 
-    // UI-only fields for date headers (not stored in DB)
-    @Ignore
-    public boolean isHeader = false;
-
+    // Copy of every stored column, for DataManager's task cache
     @Ignore
-    public String headerTitle = "";
-
-    // Getters and setters
-    public int getId() {
-        return id;
-    }
-
-    public int getCheck() {
-        return check;
-    }
-
-    public void setCheck(int check) {
-        this.check = check;
-    }
-
-    public String getTask() {
-        return task;
-    }
-
-    public void setTask(String task) {
-        this.task = task;
-    }
-
-    public String getTime() {
-        return time;
-    }
-
-    public void setTime(String time) {
-        this.time = time;
-    }
-
-    public String getCategory() {
-        return category;
-    }
-
-    public void setCategory(String category) {
-        this.category = category;
-    }
-
-    public int getIsStarred() {
-        return isStarred;
-    }
-
-    public void setStarred(int isStarred) {
-        this.isStarred = isStarred;
-    }
-
-    public long getDueDate() {
-        return dueDate;
-    }
-
-    public void setDueDate(long dueDate) {
-        this.dueDate = dueDate;
-    }
-
-    public void setStatus(int status) {
-        this.check = status;
-    }
-
-    public int getStatus() {
-        return check;
-    }
-
-    public String getRepeatType() {
-        return repeatType;
-    }
-
-    public void setRepeatType(String repeatType) {
-        this.repeatType = repeatType;
-    }
-
-    public int getRepeatInterval() {
-        return repeatInterval;
-    }
-
-    public void setRepeatInterval(int repeatInterval) {
-        this.repeatInterval = repeatInterval;
+    public TaskList(TaskList other) {
+        this.id = other.id;
+        this.check = other.check;
+        this.task = other.task;
+        this.time = other.time;
+        this.category = other.category;
+        this.isStarred = other.isStarred;
+        this.dueDate = other.dueDate;
+        this.dueDay = other.dueDay;
+        this.repeatType = other.repeatType;
+        this.repeatInterval = other.repeatInterval;
+        this.taskTime = other.taskTime;
+        this.completedAt = other.completedAt;
+        this.markerType = other.markerType;
+        this.markerValue = other.markerValue;
+        this.markerColor = other.markerColor;
+        this.rejectionReason = other.rejectionReason;
+        this.repeatDays = other.repeatDays;
+        this.recurringParentId = other.recurringParentId;
+        this.subtaskTotal = other.subtaskTotal;
+        this.subtaskDone = other.subtaskDone;
+        this.categoryId = other.categoryId;
+        this.reminderMinutes = other.reminderMinutes;
+        this.useAlarm = other.useAlarm;
+        this.screenLock = other.screenLock;
+        this.attachments = other.attachments;
+        this.createdFrom = other.createdFrom;
     }
 
+    // Getters and setters
     public String getReminderMinutes() {
         return reminderMinutes;
     }
@@ -220,22 +138,6 @@ public class TaskList {
         this.screenLock = screenLock;
     }
 
-    public String getTaskTime() {
-        return taskTime;
-    }
-
-    public void setTaskTime(String taskTime) {
-        this.taskTime = taskTime;
-    }
-
-    public long getCompletedAt() {
-        return completedAt;
-    }
-
-    public void setCompletedAt(long completedAt) {
-        this.completedAt = completedAt;
-    }
-
     public String getAttachments() {
         return attachments;
     }
@@ -244,14 +146,6 @@ public class TaskList {
         this.attachments = attachments;
     }
 
-    public String getRepeatDays() {
-        return repeatDays;
-    }
-
-    public void setRepeatDays(String repeatDays) {
-        this.repeatDays = repeatDays;
-    }
-
     public String getCreatedFrom() {
         return createdFrom;
     }
@@ -259,20 +153,4 @@ public class TaskList {
     public void setCreatedFrom(String createdFrom) {
         this.createdFrom = createdFrom;
     }
-
-    public int getRecurringParentId() {
-        return recurringParentId;
-    }
-
-    public void setRecurringParentId(int recurringParentId) {
-        this.recurringParentId = recurringParentId;
-    }
-
-    public String getRejectionReason() {
-        return rejectionReason;
-    }
-
-    public void setRejectionReason(String rejectionReason) {
-        this.rejectionReason = rejectionReason;
-    }
 }
@@ -20,10 +20,12 @@ import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.graphics.drawable.LayerDrawable;
+import android.util.LruCache;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
@@ -57,7 +59,7 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
     private static final int VIEW_TYPE_TASK = 1;
 
     Context context;
-    ArrayList<TaskList> tasklist;
+    ArrayList<TaskRow> tasklist;
     DataManager dm;
     private OnTaskCheckedListener listener;
     private OnMarkerClickListener markerClickListener;
@@ -66,15 +68,52 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
     private int openSwipeTaskId = -1;
     private float openSwipeTranslationX = 0f;
 
+    // Subtasks per task id, only needed for the subtask names (progress comes
+    // from the row's counters). They are loaded off the UI thread in batches
+    // covering the visible rows plus a look-ahead window in the scroll
+    // direction. A row binds with whatever is cached and is rebound once a fresh
+    // copy arrives.
+    private static final int SUBTASK_CACHE_SIZE = 100;
+    private static final int SUBTASK_LOOKAHEAD = 10;
+    private final java.util.Set<Integer> freshSubtasks = new java.util.HashSet<>();
+    private final java.util.Set<Integer> subtaskLoadsInFlight = new java.util.HashSet<>();
+    private final LruCache<Integer, List<SubTask>> subtaskCache = new LruCache<Integer, List<SubTask>>(
+            SUBTASK_CACHE_SIZE) {
+        @Override
+        protected void entryRemoved(boolean evicted, Integer taskId, List<SubTask> oldValue,
+                List<SubTask> newValue) {
+            if (evicted)
+                freshSubtasks.remove(taskId);
+        }
+    };
+
+    private final RecyclerView.OnScrollListener subtaskPrefetcher = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager))
+                return;
+            LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+            int first = lm.findFirstVisibleItemPosition();
+            int last = lm.findLastVisibleItemPosition();
+            if (first == RecyclerView.NO_POSITION)
+                return;
+            if (dy < 0) {
+                prefetchSubtasks(first - SUBTASK_LOOKAHEAD, last);
+            } else {
+                prefetchSubtasks(first, last + SUBTASK_LOOKAHEAD);
+            }
+        }
+    };
+
     public interface OnTaskCheckedListener {
-        void onCheck(TaskList task, int position);
+        void onCheck(TaskRow task, int position);
     }
 
     public interface OnMarkerClickListener {
-        void onMarkerClick(TaskList task, int position);
+        void onMarkerClick(TaskRow task, int position);
     }
 
-    public TaskListAdaptar(Context context, ArrayList<TaskList> tasklist, OnTaskCheckedListener listener) {
+    public TaskListAdaptar(Context context, ArrayList<TaskRow> tasklist, OnTaskCheckedListener listener) {
         this.context = context;
         this.tasklist = tasklist;
         this.dm = DataManager.getInstance(context);
@@ -82,6 +121,69 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
         this.prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
     }
 
+    /**
+     * Mark cached subtasks as stale so the next bind reloads them. Call before
+     * notifyDataSetChanged() after the task list has been reloaded, which the
+     * screens do whenever subtasks are written.
+     */
+    public void invalidateSubtasks() {
+        freshSubtasks.clear();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        recyclerView.addOnScrollListener(subtaskPrefetcher);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(subtaskPrefetcher);
+    }
+
+    private List<SubTask> getSubTasks(int position, int taskId) {
+        if (!freshSubtasks.contains(taskId)) {
+            prefetchSubtasks(position, position + SUBTASK_LOOKAHEAD);
+        }
+        return subtaskCache.get(taskId);
+    }
+
+    /**
+     * Loads, with one query, the subtasks of every row in [from, to] that has
+     * subtasks and no fresh copy cached or on the way.
+     */
+    private void prefetchSubtasks(int from, int to) {
+        if (!getShowSubtaskNames())
+            return;
+        List<Integer> ids = new ArrayList<>();
+        for (int i = Math.max(0, from); i <= Math.min(to, tasklist.size() - 1); i++) {
+            TaskRow t = tasklist.get(i);
+            if (!t.isHeader && t.id > 0 && t.subtaskTotal > 0 && !freshSubtasks.contains(t.id)
+                    && !subtaskLoadsInFlight.contains(t.id)) {
+                ids.add(t.id);
+            }
+        }
+        if (ids.isEmpty())
+            return;
+        subtaskLoadsInFlight.addAll(ids);
+        dm.getSubTasksForTasksAsync(ids, result -> {
+            java.util.Set<Integer> loaded = new java.util.HashSet<>(ids);
+            for (Integer taskId : ids) {
+                subtaskLoadsInFlight.remove(taskId);
+                List<SubTask> subtasks = result.get(taskId);
+                subtaskCache.put(taskId, subtasks != null ? subtasks : new ArrayList<>());
+                freshSubtasks.add(taskId);
+            }
+            for (int i = 0; i < tasklist.size(); i++) {
+                TaskRow t = tasklist.get(i);
+                if (!t.isHeader && loaded.contains(t.id)) {
+                    notifyItemChanged(i);
+                }
+            }
+        });
+    }
+
     public int getProgressStyle() {
         return prefs.getInt(KEY_PROGRESS_STYLE, STYLE_FILL); // Default to FILL
     }
@@ -138,7 +240,7 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
 
     @Override
     public int getItemViewType(int position) {
-        TaskList item = tasklist.get(position);
+        TaskRow item = tasklist.get(position);
         return item.isHeader ? VIEW_TYPE_HEADER : VIEW_TYPE_TASK;
     }
 
@@ -157,7 +259,7 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
     @Override
     public void onBindViewHolder(@NonNull TaskListAdaptar.viewHolder holder,
             @SuppressLint("RecyclerView") int position) {
-        TaskList task = tasklist.get(position);
+        TaskRow task = tasklist.get(position);
 
         // If it's a header, just set the title and return
         if (task.isHeader) {
@@ -226,11 +328,21 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
         } catch (Exception ignored) {
         }
 
-        holder.taskname.setText(task.task);
+        if (task instanceof TaskSearchResult && task.task != null) {
+            // Highlight the words that matched the search
+            android.text.SpannableString title = new android.text.SpannableString(task.task);
+            for (int[] range : ((TaskSearchResult) task).getTitleMatchRanges()) {
+                title.setSpan(new android.text.style.BackgroundColorSpan(0x66FFEB3B), range[0], range[1],
+                        android.text.Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+            holder.taskname.setText(title);
+        } else {
+            holder.taskname.setText(task.task);
+        }
 
         // Set category strip color
         if (holder.categoryStrip != null) {
-            String colorHex = dm.getCategoryColor(task.category);
+            String colorHex = dm.getCategoryColor(task);
             try {
                 int color = Color.parseColor(colorHex);
                 holder.categoryStrip.setBackgroundColor(color);
@@ -335,18 +447,14 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
             holder.taskDetailsRow.setVisibility(hasDetails ? View.VISIBLE : View.GONE);
         }
 
-        // Subtask section with multiple progress styles
-        List<SubTask> subtasks = dm.getSubTasksForTask(task.id);
-        boolean hasSubtasks = subtasks != null && !subtasks.isEmpty();
+        // Subtask section with multiple progress styles, drawn from the row's
+        // trigger-maintained counters
+        boolean hasSubtasks = task.subtaskTotal > 0;
 
         if (hasSubtasks) {
-            int completed = 0;
-            for (SubTask st : subtasks) {
-                if (st.isCompleted == 1)
-                    completed++;
-            }
-            int percentInt = (int) ((completed * 100.0f) / subtasks.size());
-            float percent = (completed * 100.0f) / subtasks.size();
+            int completed = Math.min(task.subtaskDone, task.subtaskTotal);
+            int percentInt = (int) ((completed * 100.0f) / task.subtaskTotal);
+            float percent = (completed * 100.0f) / task.subtaskTotal;
 
             int progressStyle = getProgressStyle();
             boolean showNames = getShowSubtaskNames();
@@ -367,7 +475,7 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
                 holder.tvSubtaskCount.setVisibility(View.GONE);
 
             final int finalCompleted = completed;
-            final int totalSubtasks = subtasks.size();
+            final int totalSubtasks = task.subtaskTotal;
 
             // Always show the progress badge at top right corner
             if (holder.ivProgressBadge != null) {
@@ -429,8 +537,9 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
                     break;
             }
 
-            // Show subtask names if enabled
-            if (showNames && holder.subtaskSection != null && holder.subtasksList != null) {
+            // Show subtask names if enabled; only these need the subtask rows
+            List<SubTask> subtasks = showNames ? getSubTasks(position, task.id) : null;
+            if (subtasks != null && holder.subtaskSection != null && holder.subtasksList != null) {
                 holder.subtasksList.removeAllViews();
 
                 for (int i = 0; i < subtasks.size(); i++) {
@@ -469,7 +578,9 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
                     final SubTask finalSt = st;
                     subtaskView.setOnClickListener(v -> {
                         finalSt.isCompleted = finalSt.isCompleted == 1 ? 0 : 1;
-                        dm.updateSubTask(finalSt);
+                        // Mirror the trigger so the row is right until the list reloads
+                        task.subtaskDone += finalSt.isCompleted == 1 ? 1 : -1;
+                        dm.updateSubTaskAsync(finalSt);
                         notifyItemChanged(position);
                     });
 
@@ -512,7 +623,7 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
             task.check = status;
             long completedAt = status == 1 ? System.currentTimeMillis() : 0;
             task.completedAt = completedAt;
-            dm.updateStatusAndCompletedAt(task.id, status, completedAt);
+            dm.updateStatusAndCompletedAtAsync(task.id, status, completedAt);
 
             // Animate disappearance if completed
             if (status == 1) {
@@ -677,7 +788,7 @@ public class TaskListAdaptar extends RecyclerView.Adapter<TaskListAdaptar.viewHo
         }
     }
 
-    private void renderMarker(@NonNull viewHolder holder, @NonNull TaskList task) {
+    private void renderMarker(@NonNull viewHolder holder, @NonNull TaskRow task) {
         try {
             String type = task.markerType == null ? "" : task.markerType;
             String value = task.markerValue == null ? "" : task.markerValue;
@@ -0,0 +1,41 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+/**
+ * A forecast day of a pending recurring task: a day after its due day that its
+ * rule (see RecurrenceRule) repeats on, up to the horizon DataManager keeps
+ * the table filled to. The calendar reads its dots and projected tasks from
+ * here instead of evaluating every rule for every day it shows.
+ */
+@Entity(tableName = "task_occurrences", primaryKeys = { "task_id", "day" }, foreignKeys = @ForeignKey(entity = TaskList.class, parentColumns = "id", childColumns = "task_id", onDelete = CASCADE), indices = {
+        @Index("day") })
+public class TaskOccurrence {
+
+    @ColumnInfo(name = "task_id")
+    public int taskId;
+
+    // Epoch day, see EpochDays
+    @ColumnInfo(name = "day")
+    public int day;
+
+    // Local time of the task's due date, in minutes after midnight
+    @ColumnInfo(name = "minute_of_day")
+    public int minuteOfDay;
+
+    public TaskOccurrence() {
+    }
+
+    @Ignore
+    public TaskOccurrence(int taskId, int day, int minuteOfDay) {
+        this.taskId = taskId;
+        this.day = day;
+        this.minuteOfDay = minuteOfDay;
+    }
+}
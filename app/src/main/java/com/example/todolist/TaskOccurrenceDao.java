@@ -0,0 +1,51 @@
+package com.example.todolist;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface TaskOccurrenceDao {
+    // Id of the first task of the series a row of tasks belongs to
+    String SERIES_OF_TASKS = "(CASE WHEN tasks.recurring_parent_id > 0 THEN tasks.recurring_parent_id ELSE tasks.id END)";
+
+    // Rows can be regenerated over days they already cover
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<TaskOccurrence> occurrences);
+
+    @Query("DELETE FROM task_occurrences WHERE task_id = :taskId")
+    void deleteForTask(int taskId);
+
+    @Query("DELETE FROM task_occurrences WHERE task_id IN (:taskIds)")
+    void deleteForTasks(List<Integer> taskIds);
+
+    @Query("DELETE FROM task_occurrences")
+    void deleteAll();
+
+    @Query("SELECT EXISTS(SELECT 1 FROM task_occurrences)")
+    boolean hasAny();
+
+    // Calendar dots, from the day index
+    @Query("SELECT DISTINCT day FROM task_occurrences WHERE day BETWEEN :startDay AND :endDay")
+    List<Integer> getDaysBetween(int startDay, int endDay);
+
+    /**
+     * The recurring tasks forecast on {@code day}, except series that already
+     * have a real task that day (the first task of the series, or one of its
+     * instances), by time of day. A series with several pending tasks (the
+     * generator keeps instances a few days ahead) is forecast from its latest.
+     */
+    @Query("SELECT " + TaskDao.ROW_COLUMNS + " FROM task_occurrences JOIN tasks ON tasks.id = task_id "
+            + "WHERE day = :day "
+            + "AND NOT EXISTS (SELECT 1 FROM tasks parent WHERE parent.id = " + SERIES_OF_TASKS
+            + " AND parent.due_day = :day) "
+            + "AND NOT EXISTS (SELECT 1 FROM tasks instance WHERE instance.recurring_parent_id = " + SERIES_OF_TASKS
+            + " AND instance.due_day = :day) "
+            + "AND NOT EXISTS (SELECT 1 FROM tasks later WHERE later.recurring_parent_id = " + SERIES_OF_TASKS
+            + " AND later.due_day > tasks.due_day AND later.check_status = 0) "
+            + "ORDER BY minute_of_day, tasks.id")
+    List<TaskRow> getForecastRows(int day);
+}
@@ -0,0 +1,225 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * The columns a task list row, widget row or calendar cell needs.
+ *
+ * TaskList extends this with the remaining columns (reminders, attachments,
+ * ...). List screens load rows through the *Rows queries in TaskDao, which
+ * also clip the free-text notes ({@code time}) and rejection reason, so a row
+ * is never a complete task: load the TaskList by id before editing it.
+ */
+public class TaskRow {
+
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    @ColumnInfo(name = "check_status")
+    public int check;
+
+    @ColumnInfo(name = "task")
+    public String task;
+
+    @ColumnInfo(name = "time")
+    public String time;
+
+    @ColumnInfo(name = "category")
+    public String category = "All";
+
+    // Row id of the task's category; null when no category has that name.
+    // DataManager keeps it in sync with the name on every insert and update.
+    @ColumnInfo(name = "category_id")
+    public Integer categoryId;
+
+    @ColumnInfo(name = "is_starred")
+    public int isStarred = 0;
+
+    @ColumnInfo(name = "due_date")
+    public long dueDate = 0;
+
+    // Local epoch day of due_date (EpochDays.NONE without one). Set by TaskDao on
+    // every insert and update; recomputed when the time zone changes.
+    @ColumnInfo(name = "due_day", defaultValue = "0")
+    public int dueDay = 0;
+
+    @ColumnInfo(name = "repeat_type")
+    public String repeatType = "none";
+
+    @ColumnInfo(name = "repeat_interval")
+    public int repeatInterval = 1;
+
+    @ColumnInfo(name = "task_time")
+    public String taskTime = "";
+
+    @ColumnInfo(name = "completed_at")
+    public long completedAt = 0;
+
+    @ColumnInfo(name = "marker_type")
+    public String markerType;
+
+    @ColumnInfo(name = "marker_value")
+    public String markerValue;
+
+    @ColumnInfo(name = "marker_color")
+    public int markerColor = 0;
+
+    @ColumnInfo(name = "rejection_reason")
+    public String rejectionReason = "";
+
+    @ColumnInfo(name = "repeat_days")
+    public String repeatDays = "";
+
+    // ID of the parent recurring task (0 if this is the original or non-recurring)
+    @ColumnInfo(name = "recurring_parent_id")
+    public int recurringParentId = 0;
+
+    // Subtask counts, maintained by triggers on the subtasks table (see
+    // AppDatabase). Read-only for the app: TaskDao.update recounts them.
+    @ColumnInfo(name = "subtask_total", defaultValue = "0")
+    public int subtaskTotal = 0;
+
+    @ColumnInfo(name = "subtask_done", defaultValue = "0")
+    public int subtaskDone = 0;
+
+    // UI-only fields for date headers (not stored in DB)
+    @Ignore
+    public boolean isHeader = false;
+
+    @Ignore
+    public String headerTitle = "";
+
+    public TaskRow() {
+    }
+
+    // Getters and setters
+    public int getId() {
+        return id;
+    }
+
+    public int getCheck() {
+        return check;
+    }
+
+    public void setCheck(int check) {
+        this.check = check;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public void setTask(String task) {
+        this.task = task;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public void setTime(String time) {
+        this.time = time;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public int getIsStarred() {
+        return isStarred;
+    }
+
+    public void setStarred(int isStarred) {
+        this.isStarred = isStarred;
+    }
+
+    public long getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(long dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    public int getDueDay() {
+        return dueDay;
+    }
+
+    public void setStatus(int status) {
+        this.check = status;
+    }
+
+    public int getStatus() {
+        return check;
+    }
+
+    public String getRepeatType() {
+        return repeatType;
+    }
+
+    public void setRepeatType(String repeatType) {
+        this.repeatType = repeatType;
+    }
+
+    public int getRepeatInterval() {
+        return repeatInterval;
+    }
+
+    public void setRepeatInterval(int repeatInterval) {
+        this.repeatInterval = repeatInterval;
+    }
+
+    public String getTaskTime() {
+        return taskTime;
+    }
+
+    public void setTaskTime(String taskTime) {
+        this.taskTime = taskTime;
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(long completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getRepeatDays() {
+        return repeatDays;
+    }
+
+    public void setRepeatDays(String repeatDays) {
+        this.repeatDays = repeatDays;
+    }
+
+    public int getRecurringParentId() {
+        return recurringParentId;
+    }
+
+    public void setRecurringParentId(int recurringParentId) {
+        this.recurringParentId = recurringParentId;
+    }
+
+    public int getSubtaskTotal() {
+        return subtaskTotal;
+    }
+
+    public int getSubtaskDone() {
+        return subtaskDone;
+    }
+
+    public String getRejectionReason() {
+        return rejectionReason;
+    }
+
+    public void setRejectionReason(String rejectionReason) {
+        this.rejectionReason = rejectionReason;
+    }
+}
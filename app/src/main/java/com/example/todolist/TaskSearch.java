@@ -0,0 +1,30 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over task titles, notes and subtask titles. One row per
+ * task, keyed by the task id. Kept in sync by the triggers created in
+ * AppDatabase, so nothing writes to it directly.
+ */
+@Fts4
+@Entity(tableName = "task_search")
+public class TaskSearch {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    public int rowid;
+
+    @ColumnInfo(name = "title")
+    public String title;
+
+    @ColumnInfo(name = "notes")
+    public String notes;
+
+    // Titles of the task's subtasks, space separated
+    @ColumnInfo(name = "subtasks")
+    public String subtasks;
+}
@@ -0,0 +1,54 @@
+package com.example.todolist;
+
+import androidx.room.ColumnInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A task row returned by TaskDao.searchTaskRows, with the FTS offsets() of the
+ * match so the list can highlight it.
+ */
+public class TaskSearchResult extends TaskRow {
+
+    // Column indices in task_search, as reported by offsets()
+    public static final int COLUMN_TITLE = 0;
+    public static final int COLUMN_NOTES = 1;
+    public static final int COLUMN_SUBTASKS = 2;
+
+    // Space separated groups of four: column, query term, byte offset, byte length
+    @ColumnInfo(name = "match_offsets")
+    public String matchOffsets;
+
+    public TaskSearchResult() {
+    }
+
+    /**
+     * Character ranges of the matches in the title, as {start, end} pairs.
+     * offsets() counts UTF-8 bytes, so they are converted against the title.
+     */
+    public List<int[]> getTitleMatchRanges() {
+        List<int[]> ranges = new ArrayList<>();
+        if (matchOffsets == null || matchOffsets.isEmpty() || task == null)
+            return ranges;
+        String[] parts = matchOffsets.trim().split(" ");
+        byte[] titleBytes = task.getBytes(StandardCharsets.UTF_8);
+        try {
+            for (int i = 0; i + 3 < parts.length; i += 4) {
+                if (Integer.parseInt(parts[i]) != COLUMN_TITLE)
+                    continue;
+                int byteStart = Integer.parseInt(parts[i + 2]);
+                int byteEnd = byteStart + Integer.parseInt(parts[i + 3]);
+                if (byteEnd > titleBytes.length)
+                    continue;
+                int start = new String(titleBytes, 0, byteStart, StandardCharsets.UTF_8).length();
+                int end = new String(titleBytes, 0, byteEnd, StandardCharsets.UTF_8).length();
+                ranges.add(new int[] { start, end });
+            }
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+        }
+        return ranges;
+    }
+}
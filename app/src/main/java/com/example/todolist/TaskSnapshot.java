@@ -0,0 +1,265 @@
+package com.example.todolist;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the tasks table: tasks by id, plus tasks by status,
+ * due day, category and star so the list filters and counters touch only the
+ * matching tasks.
+ *
+ * DataManager publishes one behind a volatile field and replaces it on every
+ * write with {@link #with} / {@link #without}, which share all but the changed
+ * paths with the previous snapshot (see PersistentIntMap). Readers use
+ * whichever snapshot they picked up without taking a lock, and always see a
+ * consistent table.
+ *
+ * The tasks inside are never modified once stored. The copying reads
+ * ({@link #get}, {@link #withStatus}, ...) hand out copies that callers may
+ * edit; the shared reads ({@link #tasks()}, {@link #tasksWithStatus}) do not
+ * copy, and their tasks must be treated as read-only.
+ */
+final class TaskSnapshot {
+
+    // Category key of tasks without a category_id
+    static final int UNLINKED = 0;
+
+    static final TaskSnapshot EMPTY = new TaskSnapshot(PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    private final PersistentIntMap<TaskList> byId;
+    private final PersistentIntMap<PersistentIntMap<TaskList>> byStatus;
+    private final PersistentIntMap<PersistentIntMap<TaskList>> byDueDay;
+    private final PersistentIntMap<PersistentIntMap<TaskList>> byCategory;
+    private final PersistentIntMap<TaskList> starred;
+
+    private TaskSnapshot(PersistentIntMap<TaskList> byId, PersistentIntMap<PersistentIntMap<TaskList>> byStatus,
+            PersistentIntMap<PersistentIntMap<TaskList>> byDueDay,
+            PersistentIntMap<PersistentIntMap<TaskList>> byCategory, PersistentIntMap<TaskList> starred) {
+        this.byId = byId;
+        this.byStatus = byStatus;
+        this.byDueDay = byDueDay;
+        this.byCategory = byCategory;
+        this.starred = starred;
+    }
+
+    static TaskSnapshot of(List<TaskList> tasks) {
+        TaskSnapshot snapshot = EMPTY;
+        for (TaskList task : tasks) {
+            snapshot = snapshot.with(task);
+        }
+        return snapshot;
+    }
+
+    // ==================== CHANGES ====================
+
+    /**
+     * A snapshot with a copy of {@code task} stored, as read from or inserted
+     * into the table.
+     */
+    TaskSnapshot with(TaskList task) {
+        return without(task.id).add(new TaskList(task));
+    }
+
+    /**
+     * A snapshot with a copy of an updated task stored. The subtask counts are
+     * kept from the stored task: the table's triggers own them, and
+     * TaskDao.update recounts rather than writes them.
+     */
+    TaskSnapshot withUpdated(TaskList task) {
+        TaskList copy = new TaskList(task);
+        TaskList old = byId.get(task.id);
+        if (old != null) {
+            copy.subtaskTotal = old.subtaskTotal;
+            copy.subtaskDone = old.subtaskDone;
+        }
+        return without(task.id).add(copy);
+    }
+
+    TaskSnapshot without(int id) {
+        TaskList old = byId.get(id);
+        if (old == null)
+            return this;
+        return new TaskSnapshot(byId.minus(id), unindex(byStatus, old.check, id),
+                unindex(byDueDay, old.dueDay, id), unindex(byCategory, categoryKey(old.categoryId), id),
+                starred.minus(id));
+    }
+
+    private TaskSnapshot add(TaskList task) {
+        return new TaskSnapshot(byId.plus(task.id, task), index(byStatus, task.check, task),
+                index(byDueDay, task.dueDay, task), index(byCategory, categoryKey(task.categoryId), task),
+                task.isStarred == 1 ? starred.plus(task.id, task) : starred);
+    }
+
+    // ==================== SHARED READS ====================
+    // No copies: the tasks are shared with every other reader. Do not modify.
+
+    Iterable<TaskList> tasks() {
+        return byId;
+    }
+
+    Iterable<TaskList> tasksWithStatus(int status) {
+        PersistentIntMap<TaskList> tasks = byStatus.get(status);
+        return tasks != null ? tasks : PersistentIntMap.<TaskList>empty();
+    }
+
+    /**
+     * Whether a task of the series started by {@code seriesId} (that task or
+     * one of its instances) is due on {@code day}.
+     */
+    boolean hasSeriesTaskOn(int seriesId, int day) {
+        PersistentIntMap<TaskList> tasks = byDueDay.get(day);
+        if (tasks == null)
+            return false;
+        if (tasks.get(seriesId) != null)
+            return true;
+        for (TaskList task : tasks) {
+            if (task.recurringParentId == seriesId)
+                return true;
+        }
+        return false;
+    }
+
+    // ==================== COPYING READS ====================
+
+    TaskList get(int id) {
+        TaskList task = byId.get(id);
+        return task != null ? new TaskList(task) : null;
+    }
+
+    void all(Collection<? super TaskList> out) {
+        copyInto(byId, out);
+    }
+
+    /**
+     * Tasks with {@code status}, limited to the given category keys (category
+     * ids or {@link #UNLINKED}) unless {@code categoryKeys} is null.
+     */
+    void withStatus(int status, int[] categoryKeys, Collection<? super TaskList> out) {
+        if (categoryKeys == null) {
+            copyInto(byStatus.get(status), out);
+            return;
+        }
+        for (int key : categoryKeys) {
+            PersistentIntMap<TaskList> tasks = byCategory.get(key);
+            if (tasks == null)
+                continue;
+            for (TaskList task : tasks) {
+                if (task.check == status)
+                    out.add(new TaskList(task));
+            }
+        }
+    }
+
+    /**
+     * Tasks with {@code status} due between two epoch days, inclusive, ordered
+     * by day. {@code categoryKeys} as in {@link #withStatus}.
+     */
+    void withStatusDueDays(int status, int[] categoryKeys, int fromDay, int toDay,
+            Collection<? super TaskList> out) {
+        byDueDay.forEachInRange(fromDay, toDay, (tasks, day) -> {
+            for (TaskList task : tasks) {
+                if (task.check == status && inCategories(task, categoryKeys))
+                    out.add(new TaskList(task));
+            }
+        });
+    }
+
+    void starred(Collection<? super TaskList> out) {
+        copyInto(starred, out);
+    }
+
+    // ==================== COUNTERS ====================
+
+    int countWithStatus(int status) {
+        PersistentIntMap<TaskList> tasks = byStatus.get(status);
+        return tasks != null ? tasks.size() : 0;
+    }
+
+    int countWithStatus(int status, int[] categoryKeys) {
+        int count = 0;
+        for (int key : categoryKeys) {
+            PersistentIntMap<TaskList> tasks = byCategory.get(key);
+            if (tasks == null)
+                continue;
+            for (TaskList task : tasks) {
+                if (task.check == status)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    int countWithStatusDueDays(int status, int fromDay, int toDay) {
+        int[] count = new int[1];
+        byDueDay.forEachInRange(fromDay, toDay, (tasks, day) -> {
+            for (TaskList task : tasks) {
+                if (task.check == status)
+                    count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Number of tasks with {@code status} per category key, for categories
+     * that have any.
+     */
+    Map<Integer, Integer> countWithStatusByCategory(int status) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        byCategory.forEach((tasks, key) -> {
+            int count = 0;
+            for (TaskList task : tasks) {
+                if (task.check == status)
+                    count++;
+            }
+            if (count > 0)
+                counts.put(key, count);
+        });
+        return counts;
+    }
+
+    // ==================== INTERNALS ====================
+
+    static int categoryKey(Integer categoryId) {
+        return categoryId != null ? categoryId : UNLINKED;
+    }
+
+    private static boolean inCategories(TaskList task, int[] categoryKeys) {
+        if (categoryKeys == null)
+            return true;
+        int key = categoryKey(task.categoryId);
+        for (int k : categoryKeys) {
+            if (k == key)
+                return true;
+        }
+        return false;
+    }
+
+    private static void copyInto(PersistentIntMap<TaskList> tasks, Collection<? super TaskList> out) {
+        if (tasks == null)
+            return;
+        for (TaskList task : tasks) {
+            out.add(new TaskList(task));
+        }
+    }
+
+    private static PersistentIntMap<PersistentIntMap<TaskList>> index(
+            PersistentIntMap<PersistentIntMap<TaskList>> index, int key, TaskList task) {
+        PersistentIntMap<TaskList> tasks = index.get(key);
+        if (tasks == null)
+            tasks = PersistentIntMap.empty();
+        return index.plus(key, tasks.plus(task.id, task));
+    }
+
+    private static PersistentIntMap<PersistentIntMap<TaskList>> unindex(
+            PersistentIntMap<PersistentIntMap<TaskList>> index, int key, int id) {
+        PersistentIntMap<TaskList> tasks = index.get(key);
+        if (tasks == null)
+            return index;
+        tasks = tasks.minus(id);
+        return tasks.isEmpty() ? index.minus(key) : index.plus(key, tasks);
+    }
+}
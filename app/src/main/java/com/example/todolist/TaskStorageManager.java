@@ -25,6 +25,13 @@ public class TaskStorageManager {
     private static final String CATEGORIES_FOLDER = "Categories";
     private static final String BACKUPS_FOLDER = "Backups";
 
+    // Last change_journal sequence number covered by an export
+    private static final String EXPORT_CHECKPOINT_KEY = "export_checkpoint_seq";
+
+    // Archived tasks are read a page at a time; the archive can be far larger
+    // than the tasks table
+    private static final int ARCHIVE_PAGE_SIZE = 500;
+
     private final Context context;
     private DataManager dm;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
@@ -110,12 +117,23 @@ public class TaskStorageManager {
 
     /**
      * Exports all tasks. Set showToasts=false for silent/background exports.
+     * Only the categories changed since the last export are written again
+     * (read from the change journal); the first export writes them all.
      */
     public boolean exportAllTasks(boolean showToasts) {
         try {
             File appDir = getAppDirectory();
             File tasksDir = new File(appDir, TASKS_FOLDER);
 
+            android.content.SharedPreferences prefs = context.getSharedPreferences("app_prefs",
+                    Context.MODE_PRIVATE);
+            long latestSeq = getDataManager().getLatestChangeSeq();
+            // null: export every category
+            java.util.Set<Integer> changed = prefs.contains(EXPORT_CHECKPOINT_KEY)
+                    ? getDataManager().getCategoryIdsChangedBetween(prefs.getLong(EXPORT_CHECKPOINT_KEY, 0),
+                            latestSeq)
+                    : null;
+
             // Create timestamp for file
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.getDefault());
             String timestamp = sdf.format(new Date());
@@ -124,9 +142,13 @@ public class TaskStorageManager {
             List<Category> categories = getDataManager().getAllCategories();
 
             for (Category category : categories) {
+                if (changed != null && !changed.contains(category.id))
+                    continue;
                 List<TaskList> tasks = getDataManager().getTasksByCategory(category.getName());
+                JSONArray archivedArray = new JSONArray();
+                putArchivedTasks(category.getName(), archivedArray);
 
-                if (!tasks.isEmpty()) {
+                if (!tasks.isEmpty() || archivedArray.length() > 0) {
                     JSONObject categoryJson = new JSONObject();
                     categoryJson.put("category", category.getName());
                     categoryJson.put("color", category.getColor());
@@ -134,16 +156,7 @@ public class TaskStorageManager {
 
                     JSONArray tasksArray = new JSONArray();
                     for (TaskList task : tasks) {
-                        JSONObject taskJson = new JSONObject();
-                        taskJson.put("id", task.getId());
-                        taskJson.put("title", task.getTask());
-                        taskJson.put("details", task.getTime());
-                        taskJson.put("category", task.getCategory());
-                        taskJson.put("dueDate", task.getDueDate());
-                        taskJson.put("isStarred", task.getIsStarred());
-                        taskJson.put("isCompleted", task.getCheck());
-                        taskJson.put("repeatType", task.getRepeatType());
-                        taskJson.put("repeatInterval", task.getRepeatInterval());
+                        JSONObject taskJson = toJson(task);
 
                         // Add subtasks
                         List<SubTask> subtasks = getDataManager().getSubTasksForTask(task.getId());
@@ -160,8 +173,12 @@ public class TaskStorageManager {
 
                         tasksArray.put(taskJson);
                     }
+                    // Archived tasks lost their subtasks when they were archived
+                    for (int i = 0; i < archivedArray.length(); i++) {
+                        tasksArray.put(archivedArray.get(i));
+                    }
                     categoryJson.put("tasks", tasksArray);
-                    categoryJson.put("taskCount", tasks.size());
+                    categoryJson.put("taskCount", tasksArray.length());
 
                     // Save to file
                     String fileName = category.getName().replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp + ".json";
@@ -174,7 +191,13 @@ public class TaskStorageManager {
             }
 
             // Create master summary file
-            createSummaryFile(timestamp);
+            if (changed == null || !changed.isEmpty()) {
+                createSummaryFile(timestamp);
+            }
+
+            // Changes made while exporting are past latestSeq and go out next time
+            prefs.edit().putLong(EXPORT_CHECKPOINT_KEY, latestSeq).apply();
+            getDataManager().trimChangeJournal(latestSeq);
 
             if (showToasts) {
                 showToast("Tasks exported successfully", Toast.LENGTH_LONG);
@@ -204,6 +227,7 @@ public class TaskStorageManager {
         summary.put("completedTasks", getDataManager().getCompletedTaskCount());
         summary.put("pendingTasks", getDataManager().getPendingTaskCount());
         summary.put("starredTasks", getDataManager().getStarredTasks().size());
+        summary.put("archivedTasks", getDataManager().getArchivedTaskCount());
 
         // Category breakdown
         JSONArray categoriesArray = new JSONArray();
@@ -230,6 +254,7 @@ public class TaskStorageManager {
             File appDir = getAppDirectory();
 
             // Save Tasks
+            java.util.Map<Integer, List<TaskAttachment>> attachments = getDataManager().getAllAttachmentsByTask();
             JSONArray tasksArray = new JSONArray();
             for (TaskList task : tasks) {
                 JSONObject taskJson = new JSONObject();
@@ -247,7 +272,7 @@ public class TaskStorageManager {
                 taskJson.put("screenLock", task.getScreenLock());
                 taskJson.put("taskTime", task.getTaskTime());
                 taskJson.put("completedAt", task.getCompletedAt());
-                taskJson.put("attachments", task.getAttachments());
+                putAttachments(taskJson, attachments.get(task.getId()));
                 taskJson.put("repeatDays", task.getRepeatDays());
                 taskJson.put("createdFrom", task.getCreatedFrom());
                 tasksArray.put(taskJson);
@@ -332,7 +357,13 @@ public class TaskStorageManager {
                 t.setScreenLock(obj.optInt("screenLock"));
                 t.setTaskTime(obj.optString("taskTime"));
                 t.setCompletedAt(obj.optLong("completedAt", 0));
-                t.setAttachments(obj.optString("attachments"));
+                // An array of attachment rows, or the legacy comma-joined string
+                JSONArray attachmentsArray = obj.optJSONArray("attachments");
+                if (attachmentsArray != null) {
+                    t.importedAttachments = readAttachments(attachmentsArray);
+                } else {
+                    t.setAttachments(obj.optString("attachments"));
+                }
                 t.setRepeatDays(obj.optString("repeatDays", ""));
                 t.setCreatedFrom(obj.optString("createdFrom", "tasks"));
                 list.add(t);
@@ -436,6 +467,76 @@ public class TaskStorageManager {
         return sb.toString();
     }
 
+    // The task fields written by exports and backups
+    private JSONObject toJson(TaskRow task) throws JSONException {
+        JSONObject taskJson = new JSONObject();
+        taskJson.put("id", task.getId());
+        taskJson.put("title", task.getTask());
+        taskJson.put("details", task.getTime());
+        taskJson.put("category", task.getCategory());
+        taskJson.put("dueDate", task.getDueDate());
+        taskJson.put("isStarred", task.getIsStarred());
+        taskJson.put("isCompleted", task.getCheck());
+        taskJson.put("repeatType", task.getRepeatType());
+        taskJson.put("repeatInterval", task.getRepeatInterval());
+        return taskJson;
+    }
+
+    // Writes a task's attachment rows, if it has any, as an "attachments" array
+    private void putAttachments(JSONObject taskJson, List<TaskAttachment> attachments) throws JSONException {
+        if (attachments == null || attachments.isEmpty())
+            return;
+        JSONArray array = new JSONArray();
+        for (TaskAttachment attachment : attachments) {
+            JSONObject attachmentJson = new JSONObject();
+            attachmentJson.put("uri", attachment.uri);
+            attachmentJson.put("name", attachment.displayName);
+            attachmentJson.put("type", attachment.mimeType);
+            attachmentJson.put("size", attachment.size);
+            attachmentJson.put("addedAt", attachment.addedAt);
+            array.put(attachmentJson);
+        }
+        taskJson.put("attachments", array);
+    }
+
+    // The rows written by putAttachments, without a task id yet
+    private List<TaskAttachment> readAttachments(JSONArray array) {
+        List<TaskAttachment> attachments = new java.util.ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.optJSONObject(i);
+            if (obj == null || obj.optString("uri").isEmpty())
+                continue;
+            TaskAttachment attachment = new TaskAttachment(0, obj.optString("uri"));
+            // Missing metadata is looked up again when the task is opened
+            attachment.displayName = obj.isNull("name") ? null : obj.optString("name");
+            attachment.mimeType = obj.isNull("type") ? null : obj.optString("type");
+            attachment.size = obj.optLong("size", -1);
+            attachment.addedAt = obj.optLong("addedAt", attachment.addedAt);
+            attachments.add(attachment);
+        }
+        return attachments;
+    }
+
+    /**
+     * Appends the archived tasks of {@code category} (all of them if null) to
+     * {@code out}, marked "archived" with their completion time. Archived ids
+     * never clash with live ones: archiving moves the row with its id.
+     */
+    private void putArchivedTasks(String category, JSONArray out) throws JSONException {
+        int afterId = 0;
+        List<ArchivedTask> page;
+        do {
+            page = getDataManager().getArchivedTasksPage(category, afterId, ARCHIVE_PAGE_SIZE);
+            for (ArchivedTask task : page) {
+                JSONObject taskJson = toJson(task);
+                taskJson.put("completedAt", task.getCompletedAt());
+                taskJson.put("archived", true);
+                out.put(taskJson);
+                afterId = task.getId();
+            }
+        } while (page.size() == ARCHIVE_PAGE_SIZE);
+    }
+
     /**
      * Creates a full backup of all data
      */
@@ -454,19 +555,14 @@ public class TaskStorageManager {
             // Export all tasks
             JSONArray allTasks = new JSONArray();
             List<TaskList> tasks = getDataManager().getAllTasks();
+            java.util.Map<Integer, List<TaskAttachment>> attachments = getDataManager().getAllAttachmentsByTask();
             for (TaskList task : tasks) {
-                JSONObject taskJson = new JSONObject();
-                taskJson.put("id", task.getId());
-                taskJson.put("title", task.getTask());
-                taskJson.put("details", task.getTime());
-                taskJson.put("category", task.getCategory());
-                taskJson.put("dueDate", task.getDueDate());
-                taskJson.put("isStarred", task.getIsStarred());
-                taskJson.put("isCompleted", task.getCheck());
-                taskJson.put("repeatType", task.getRepeatType());
-                taskJson.put("repeatInterval", task.getRepeatInterval());
+                JSONObject taskJson = toJson(task);
+                putAttachments(taskJson, attachments.get(task.getId()));
                 allTasks.put(taskJson);
             }
+            // Archived tasks too, or a full backup would miss the older history
+            putArchivedTasks(null, allTasks);
             backup.put("tasks", allTasks);
 
             // Export categories
@@ -1,20 +1,56 @@
 package com.example.todolist;
 
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
 /**
- * Simple TaskTemplate model (Room annotations removed)
+ * TaskTemplate model for Room database.
+ *
+ * Templates are ranked by frecency: every use adds a weight that halves each
+ * FRECENCY_HALF_LIFE_MS, so recent uses count more than old ones. The stored
+ * score is log2 of the summed weights measured against a fixed epoch instead
+ * of now, which scales every template by the same factor as time passes. The
+ * order never changes without a use, so it can be read straight off an index.
  */
+@Entity(tableName = "task_templates", indices = { @Index(value = "frecency"),
+        @Index(value = { "category", "frecency" }) })
 public class TaskTemplate {
 
+    public static final long FRECENCY_HALF_LIFE_MS = 14L * 24 * 60 * 60 * 1000;
+    // 2020-01-01 UTC; every use after it scores above 0, the never-used score
+    private static final long FRECENCY_EPOCH_MS = 1577836800000L;
+
+    @PrimaryKey(autoGenerate = true)
     public int id;
+
+    @ColumnInfo(name = "name")
     public String name;
+
+    @ColumnInfo(name = "emoji")
     public String emoji;
+
+    @ColumnInfo(name = "category")
     public String category;
+
+    @ColumnInfo(name = "is_built_in")
     public int isBuiltIn = 0;
+
+    @ColumnInfo(name = "usage_count")
     public int usageCount = 0;
 
+    @ColumnInfo(name = "last_used_at")
+    public long lastUsedAt = 0;
+
+    @ColumnInfo(name = "frecency")
+    public double frecency = 0;
+
     public TaskTemplate() {
     }
 
+    @Ignore
     public TaskTemplate(String name, String emoji, String category, int isBuiltIn, int usageCount) {
         this.name = name;
         this.emoji = emoji;
@@ -22,6 +58,23 @@ public class TaskTemplate {
         this.isBuiltIn = isBuiltIn;
         this.usageCount = usageCount;
     }
+
+    /**
+     * Count one use at {@code now} and fold it into the frecency score.
+     */
+    public void recordUse(long now) {
+        double use = (double) (now - FRECENCY_EPOCH_MS) / FRECENCY_HALF_LIFE_MS;
+        if (usageCount == 0 || frecency <= 0) {
+            frecency = use;
+        } else {
+            // log2(2^a + 2^b) without leaving log space
+            double high = Math.max(frecency, use);
+            double low = Math.min(frecency, use);
+            frecency = high + Math.log1p(Math.pow(2, low - high)) / Math.log(2);
+        }
+        usageCount++;
+        lastUsedAt = now;
+    }
     
     public int getId() { return id; }
     public String getName() { return name; }
@@ -32,6 +85,8 @@ public class TaskTemplate {
     public void setEmoji(String emoji) { this.emoji = emoji; }
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
+    public int getUsageCount() { return usageCount; }
+    public long getLastUsedAt() { return lastUsedAt; }
     public boolean isNew() { return isBuiltIn == 1; }
     public boolean isPopular() { return usageCount > 0; }
 }
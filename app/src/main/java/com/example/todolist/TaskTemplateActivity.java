@@ -53,27 +53,22 @@ public class TaskTemplateActivity extends AppCompatActivity {
 
     private void loadTemplates() {
         if (dm == null || rvTemplates == null) return;
-        List<TaskTemplate> templates;
-        try {
-            templates = dm.getAllTemplates();
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(this, "Unable to load templates", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
-        
-        // Initialize templates if empty
-        if (templates.isEmpty()) {
-            try {
+        dm.runAsync(() -> {
+            List<TaskTemplate> templates = dm.getAllTemplates();
+            // Seeded by initializeData; only empty if that has not run yet
+            if (templates.isEmpty()) {
                 dm.initializeDefaultData();
                 templates = dm.getAllTemplates();
-            } catch (Exception e) {
-                e.printStackTrace();
             }
-        }
-        
-        // Group templates by category
+            return templates;
+        }, templates -> {
+            if (!isFinishing() && !isDestroyed()) showTemplates(templates);
+        });
+    }
+
+    private void showTemplates(List<TaskTemplate> templates) {
+        // Group templates by category. Templates arrive most frecent first, so
+        // categories are ordered by their top template and keep that order inside.
         Map<String, List<TaskTemplate>> groupedTemplates = new LinkedHashMap<>();
         for (TaskTemplate template : templates) {
             if (template == null) continue;
@@ -98,7 +93,8 @@ public class TaskTemplateActivity extends AppCompatActivity {
             newTask.setCategory(template.getCategory());
             newTask.setStatus(0);
             newTask.setStarred(0);
-            dm.insertTask(newTask);
+            dm.insertTaskAsync(newTask, null);
+            dm.recordTemplateUsageAsync(template.getId());
             
             Toast.makeText(this, "Task created from template", Toast.LENGTH_SHORT).show();
             finish();
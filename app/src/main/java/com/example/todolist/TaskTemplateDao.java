@@ -0,0 +1,33 @@
+package com.example.todolist;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface TaskTemplateDao {
+    // Both orderings are served by the frecency indices on task_templates
+    @Query("SELECT * FROM task_templates ORDER BY frecency DESC")
+    List<TaskTemplate> getAllByFrecency();
+
+    @Query("SELECT * FROM task_templates WHERE category = :category ORDER BY frecency DESC")
+    List<TaskTemplate> getByCategoryByFrecency(String category);
+
+    @Query("SELECT * FROM task_templates WHERE id = :id")
+    TaskTemplate getById(int id);
+
+    @Query("SELECT COUNT(*) FROM task_templates")
+    int getCount();
+
+    @Insert
+    long insert(TaskTemplate template);
+
+    @Insert
+    void insertAll(List<TaskTemplate> templates);
+
+    @Update
+    void update(TaskTemplate template);
+}
@@ -30,6 +30,7 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.room.InvalidationTracker;
 
 import com.google.android.material.chip.Chip;
 import com.google.android.material.snackbar.Snackbar;
@@ -37,6 +38,7 @@ import com.google.android.material.snackbar.Snackbar;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.Set;
 import java.text.SimpleDateFormat;
 import java.util.Locale;
 
@@ -45,8 +47,8 @@ public class TasksFragment extends Fragment {
     private RecyclerView recyclerTasks;
     private LinearLayout emptyState;
     private TaskListAdaptar adapter;
-    private ArrayList<TaskList> taskList;
-    private ArrayList<TaskList> allTasksForSearch;
+    private ArrayList<TaskRow> taskList;
+    private ArrayList<TaskRow> allTasksForSearch;
     private DataManager dm;
 
     private Chip chipAll;
@@ -54,12 +56,31 @@ public class TasksFragment extends Fragment {
     private ImageButton btnMoreOptions;
     private String currentCategory = "All";
     private String currentFilter = "all";
+    private int loadGeneration = 0;
+    // Local epoch day of the last header added; each day has its own header
+    private int lastHeaderDay = Integer.MIN_VALUE;
+
+    // The "completed" filter pages through history as the list scrolls
+    private static final int COMPLETED_PAGE_SIZE = 50;
+    private long completedCursorAt = Long.MAX_VALUE;
+    private int completedCursorId = Integer.MAX_VALUE;
+    private boolean completedHasMore = false;
+    private boolean loadingCompletedPage = false;
+    // Set when a table this screen reads changes while it is not showing
+    private boolean stale = false;
+    private InvalidationTracker.Observer tableObserver;
 
     // Search components
     private CardView searchContainer;
     private EditText etSearch;
     private ImageButton btnClearSearch;
     private boolean isSearchActive = false;
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    private static final int SEARCH_RESULT_LIMIT = 200;
+    private final android.os.Handler searchHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    private Runnable pendingSearch;
+    // Bumped for every keystroke; results of older queries are dropped
+    private int searchGeneration = 0;
 
     private List<Category> allCategories = new ArrayList<>();
     private List<Chip> categoryChips = new ArrayList<>();
@@ -114,7 +135,7 @@ public class TasksFragment extends Fragment {
                     Snackbar.make(recyclerTasks, "Task completed", Snackbar.LENGTH_LONG)
                             .setAction("UNDO", v -> {
                                 // Restore task to incomplete
-                                dm.updateStatusAndCompletedAt(task.id, 0, 0);
+                                dm.updateStatusAndCompletedAtAsync(task.id, 0, 0);
                                 task.check = 0;
                                 task.completedAt = 0;
                                 int insertPos = Math.min(position, taskList.size());
@@ -142,17 +163,42 @@ public class TasksFragment extends Fragment {
             // Long-press edit/delete removed (requested)
 
             recyclerTasks.setAdapter(adapter);
+            recyclerTasks.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                    LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                    if (dy > 0 && lm != null && lm.findLastVisibleItemPosition() >= lm.getItemCount() - 10) {
+                        loadMoreCompleted();
+                    }
+                }
+            });
 
             attachSwipeGestures();
 
             setupCategoryChips();
             setupMoreOptionsMenu();
             loadTasks();
+
+            tableObserver = dm.addTableObserver(this::onTablesChanged,
+                    DataManager.TABLE_TASKS, DataManager.TABLE_CATEGORIES, DataManager.TABLE_SUBTASKS);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private void onTablesChanged(Set<String> tables) {
+        if (getView() == null)
+            return;
+        if (tables.contains(DataManager.TABLE_CATEGORIES)) {
+            setupCategoryChips();
+        }
+        if (isResumed() && !isHidden()) {
+            loadTasks();
+        } else {
+            stale = true;
+        }
+    }
+
     private void attachSwipeGestures() {
         final float buttonWidth = dpToPx(72);
         final int buttonCount = 3;
@@ -259,11 +305,11 @@ public class TasksFragment extends Fragment {
                     return;
                 }
 
-                TaskList task = taskList.get(position);
+                TaskRow task = taskList.get(position);
 
                 // Mark complete
                 long completedAt = System.currentTimeMillis();
-                dm.updateStatusAndCompletedAt(task.id, 1, completedAt);
+                dm.updateStatusAndCompletedAtAsync(task.id, 1, completedAt);
                 task.check = 1;
                 task.completedAt = completedAt;
                 taskList.remove(position);
@@ -271,7 +317,7 @@ public class TasksFragment extends Fragment {
 
                 Snackbar.make(recyclerTasks, "Task completed", Snackbar.LENGTH_LONG)
                         .setAction("UNDO", v -> {
-                            dm.updateStatusAndCompletedAt(task.id, 0, 0);
+                            dm.updateStatusAndCompletedAtAsync(task.id, 0, 0);
                             task.check = 0;
                             task.completedAt = 0;
                             int insertPos = Math.min(position, taskList.size());
@@ -459,7 +505,7 @@ public class TasksFragment extends Fragment {
     private void handleSwipeAction(int actionIndex, int position) {
         if (position < 0 || position >= taskList.size())
             return;
-        TaskList task = taskList.get(position);
+        TaskRow task = taskList.get(position);
         if (task == null)
             return;
 
@@ -470,7 +516,7 @@ public class TasksFragment extends Fragment {
             case 0: // Star
                 int newStarred = task.isStarred == 1 ? 0 : 1;
                 task.isStarred = newStarred;
-                dm.updateStarred(task.id, newStarred);
+                dm.updateStarredAsync(task.id, newStarred);
                 adapter.notifyItemChanged(position);
                 break;
             case 1: // Reject - Show dialog for reason
@@ -481,8 +527,7 @@ public class TasksFragment extends Fragment {
                         .setTitle("Delete Task")
                         .setMessage("Are you sure you want to delete \"" + task.task + "\"?")
                         .setPositiveButton("Delete", (d, w) -> {
-                            dm.deleteTask(task);
-                            loadTasks();
+                            dm.deleteTaskAsync(task.id, this::loadTasks);
                         })
                         .setNegativeButton("Cancel", null)
                         .show();
@@ -490,7 +535,7 @@ public class TasksFragment extends Fragment {
         }
     }
 
-    private void showMarkSymbolSheet(TaskList task) {
+    private void showMarkSymbolSheet(TaskRow task) {
         try {
             if (task == null)
                 return;
@@ -508,10 +553,11 @@ public class TasksFragment extends Fragment {
             View btnClear = v.findViewById(R.id.btn_clear);
             if (btnClear != null) {
                 btnClear.setOnClickListener(x -> {
-                    task.markerType = "";
-                    task.markerValue = "";
-                    task.markerColor = 0;
-                    dm.updateTask(task);
+                    dm.editTaskAsync(task.id, t -> {
+                        t.markerType = "";
+                        t.markerValue = "";
+                        t.markerColor = 0;
+                    }, null);
                     dialog.dismiss();
                     loadTasks();
                 });
@@ -572,22 +618,23 @@ public class TasksFragment extends Fragment {
         }
     }
 
-    private void setMarkerClick(View view, TaskList task,
+    private void setMarkerClick(View view, TaskRow task,
             AlertDialog dialog,
             String type, String value, int color) {
         if (view == null || task == null)
             return;
         view.setOnClickListener(v -> {
-            task.markerType = type;
-            task.markerValue = value;
-            task.markerColor = color;
-            dm.updateTask(task);
+            dm.editTaskAsync(task.id, t -> {
+                t.markerType = type;
+                t.markerValue = value;
+                t.markerColor = color;
+            }, null);
             dialog.dismiss();
             loadTasks();
         });
     }
 
-    private void showInlineDatePicker(TaskList task) {
+    private void showInlineDatePicker(TaskRow task) {
         try {
             Calendar cal = Calendar.getInstance();
             if (task.dueDate > 0) {
@@ -606,8 +653,8 @@ public class TasksFragment extends Fragment {
                 c.set(Calendar.MINUTE, 0);
                 c.set(Calendar.SECOND, 0);
                 c.set(Calendar.MILLISECOND, 0);
-                task.dueDate = c.getTimeInMillis();
-                dm.updateTask(task);
+                long dueDate = c.getTimeInMillis();
+                dm.editTaskAsync(task.id, t -> t.dueDate = dueDate, null);
                 loadTasks();
             }, year, month, day).show();
         } catch (Exception e) {
@@ -615,21 +662,26 @@ public class TasksFragment extends Fragment {
         }
     }
 
-    private void openTaskEditDialog(TaskList task) {
+    private void openTaskEditDialog(TaskRow task) {
         try {
             if (task == null || getActivity() == null)
                 return;
-            AddTaskBottomSheet bottomSheet = AddTaskBottomSheet.newInstanceForEdit(task);
-            bottomSheet.setOnTaskAddedListener(() -> {
-                loadTasks();
+            // List rows are projections; the editor needs the full task
+            dm.getTaskByIdAsync(task.id, full -> {
+                if (full == null || !isAdded())
+                    return;
+                AddTaskBottomSheet bottomSheet = AddTaskBottomSheet.newInstanceForEdit(full);
+                bottomSheet.setOnTaskAddedListener(() -> {
+                    loadTasks();
+                });
+                bottomSheet.show(getParentFragmentManager(), "EditTaskBottomSheet");
             });
-            bottomSheet.show(getParentFragmentManager(), "EditTaskBottomSheet");
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void showRejectDialog(TaskList task, int position) {
+    private void showRejectDialog(TaskRow task, int position) {
         try {
             if (task == null || getActivity() == null)
                 return;
@@ -652,9 +704,11 @@ public class TasksFragment extends Fragment {
                         if (reason.isEmpty()) {
                             reason = "No reason provided";
                         }
-                        task.setStatus(2); // Set status to Rejected
-                        task.setRejectionReason(reason);
-                        dm.updateTask(task);
+                        String finalReason = reason;
+                        dm.editTaskAsync(task.id, t -> {
+                            t.setStatus(2); // Set status to Rejected
+                            t.setRejectionReason(finalReason);
+                        }, null);
                         loadTasks();
                         android.widget.Toast.makeText(requireContext(),
                                 "Task rejected: " + reason,
@@ -718,19 +772,18 @@ public class TasksFragment extends Fragment {
         }
 
         // Load categories from data manager
-        try {
-            List<Category> dbCategories = dm.getAllCategories();
-            if (dbCategories != null) {
-                allCategories = new ArrayList<>(dbCategories);
-                // Remove "No Category" from visible chips
-                allCategories
-                        .removeIf(cat -> cat != null && cat.getName() != null && cat.getName().equals("No Category"));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            allCategories = new ArrayList<>();
-        }
+        dm.getAllCategoriesAsync(dbCategories -> {
+            if (!isAdded() || getView() == null)
+                return;
+            allCategories = new ArrayList<>(dbCategories);
+            // Remove "No Category" from visible chips
+            allCategories
+                    .removeIf(cat -> cat != null && cat.getName() != null && cat.getName().equals("No Category"));
+            showCategoryChips();
+        });
+    }
 
+    private void showCategoryChips() {
         if (dynamicChipsContainer != null) {
             dynamicChipsContainer.removeAllViews();
         }
@@ -1065,126 +1118,131 @@ public class TasksFragment extends Fragment {
     }
 
     public void loadTasks() {
-        try {
-            if (taskList == null)
-                taskList = new ArrayList<>();
-            taskList.clear();
+        if (dm == null)
+            return;
+        stale = false;
 
-            // Reset swipe state when reloading tasks
-            if (adapter != null) {
-                adapter.setOpenSwipeTask(-1, 0f);
-            }
+        // Reset swipe state when reloading tasks
+        if (adapter != null) {
+            adapter.setOpenSwipeTask(-1, 0f);
+        }
 
-            List<TaskList> tasks = new ArrayList<>();
+        final String filter = currentFilter;
+        final String category = currentCategory;
+        final int generation = ++loadGeneration;
+        loadingCompletedPage = false;
+        dm.runAsync(() -> queryTasks(filter, category), tasks -> {
+            // Skip results superseded by a newer load or arriving after the view is gone
+            if (generation != loadGeneration || !isAdded() || getView() == null)
+                return;
+            completedHasMore = false;
+            if ("completed".equals(filter))
+                onCompletedPageLoaded(tasks);
+            showTasks(tasks);
+        });
+    }
 
-            // Check current filter to determine what to load
-            if ("completed".equals(currentFilter)) {
-                if (currentCategory == null || currentCategory.equals("All")) {
-                    tasks = dm.getTasksByStatus(1);
-                } else {
-                    tasks = dm.getTasksByStatusAndCategory(1, currentCategory);
-                }
-            } else if ("previous".equals(currentFilter)) { // Overdue
-                long todayStart = getTodayStartTimestamp();
-                List<TaskList> allPending;
-                if (currentCategory == null || currentCategory.equals("All")) {
-                    allPending = dm.getTasksByStatus(0);
-                } else {
-                    allPending = dm.getTasksByStatusAndCategory(0, currentCategory);
-                }
-                // Filter for overdue
-                for (TaskList t : allPending) {
-                    if (t.dueDate > 0 && t.dueDate < todayStart) {
-                        tasks.add(t);
-                    }
-                }
-            } else if ("today".equals(currentFilter)) {
-                long todayStart = getTodayStartTimestamp();
-                long todayEnd = getTodayEndTimestamp();
-                List<TaskList> allPending;
-                if (currentCategory == null || currentCategory.equals("All")) {
-                    allPending = dm.getTasksByStatus(0);
-                } else {
-                    allPending = dm.getTasksByStatusAndCategory(0, currentCategory);
-                }
-                for (TaskList t : allPending) {
-                    if (t.dueDate >= todayStart && t.dueDate <= todayEnd) {
-                        tasks.add(t);
-                    }
-                }
-            } else if ("future".equals(currentFilter)) {
-                long todayEnd = getTodayEndTimestamp();
-                List<TaskList> allPending;
-                if (currentCategory == null || currentCategory.equals("All")) {
-                    allPending = dm.getTasksByStatus(0);
-                } else {
-                    allPending = dm.getTasksByStatusAndCategory(0, currentCategory);
-                }
-                for (TaskList t : allPending) {
-                    if (t.dueDate > todayEnd) {
-                        tasks.add(t);
-                    }
-                }
-            } else if ("starred".equals(currentFilter)) {
-                tasks = dm.getStarredTasks();
-            } else if ("rejected".equals(currentFilter)) {
-                tasks = dm.getTasksByStatus(2);
-            } else { // Default: Pending + Today's Completed
-                long todayStart = getTodayStartTimestamp();
-                long todayEnd = getTodayEndTimestamp();
-
-                List<TaskList> pendingTasks;
-                List<TaskList> completedTasks;
-
-                if (currentCategory == null || currentCategory.equals("All")) {
-                    pendingTasks = dm.getTasksByStatus(0);
-                    completedTasks = dm.getTasksByStatus(1);
-                } else {
-                    pendingTasks = dm.getTasksByStatusAndCategory(0, currentCategory);
-                    completedTasks = dm.getTasksByStatusAndCategory(1, currentCategory);
-                }
+    private void loadMoreCompleted() {
+        if (!"completed".equals(currentFilter) || !completedHasMore || loadingCompletedPage || isSearchActive)
+            return;
+        loadingCompletedPage = true;
+        final String category = currentCategory;
+        final long beforeCompletedAt = completedCursorAt;
+        final int beforeId = completedCursorId;
+        final int generation = loadGeneration;
+        dm.runAsync(() -> dm.getCompletedTaskRowsPage(category, beforeCompletedAt, beforeId, COMPLETED_PAGE_SIZE),
+                page -> {
+                    if (generation != loadGeneration || !isAdded() || getView() == null)
+                        return;
+                    loadingCompletedPage = false;
+                    onCompletedPageLoaded(page);
+                    int start = taskList.size();
+                    appendWithHeaders(page);
+                    adapter.notifyItemRangeInserted(start, taskList.size() - start);
+                });
+    }
 
-                // 1. Add ALL Pending tasks (including future)
-                tasks.addAll(pendingTasks);
+    private void onCompletedPageLoaded(List<TaskRow> page) {
+        completedHasMore = page.size() == COMPLETED_PAGE_SIZE;
+        if (!page.isEmpty()) {
+            TaskRow last = page.get(page.size() - 1);
+            completedCursorAt = last.completedAt;
+            completedCursorId = last.id;
+        }
+    }
 
-                // 2. Add Completed tasks (Completed Today)
-                for (TaskList t : completedTasks) {
-                    if (t.completedAt >= todayStart && t.completedAt <= todayEnd) {
-                        tasks.add(t);
-                    }
+    /**
+     * Runs on the DataManager database thread.
+     */
+    private List<TaskRow> queryTasks(String filter, String category) {
+        List<TaskRow> tasks = new ArrayList<>();
+
+        // Check current filter to determine what to load
+        if ("completed".equals(filter)) {
+            // First page only, already newest completion first; more pages load on scroll
+            return dm.getCompletedTaskRowsPage(category, Long.MAX_VALUE, Integer.MAX_VALUE, COMPLETED_PAGE_SIZE);
+        } else if ("previous".equals(filter)) { // Overdue: dated before today
+            tasks = dm.getTaskRowsByStatusAndDueDays(0, category, EpochDays.NONE + 1, EpochDays.today() - 1);
+        } else if ("today".equals(filter)) {
+            int today = EpochDays.today();
+            tasks = dm.getTaskRowsByStatusAndDueDays(0, category, today, today);
+        } else if ("future".equals(filter)) {
+            tasks = dm.getTaskRowsByStatusAndDueDays(0, category, EpochDays.today() + 1, Integer.MAX_VALUE);
+        } else if ("starred".equals(filter)) {
+            tasks = dm.getStarredTaskRows();
+        } else if ("rejected".equals(filter)) {
+            tasks = dm.getTaskRowsByStatus(2);
+        } else { // Default: Pending + Today's Completed
+            long todayStart = getTodayStartTimestamp();
+            long todayEnd = getTodayEndTimestamp();
+
+            List<TaskRow> pendingTasks;
+            List<TaskRow> completedTasks;
+
+            if (category == null || category.equals("All")) {
+                pendingTasks = dm.getTaskRowsByStatus(0);
+                completedTasks = dm.getTaskRowsByStatus(1);
+            } else {
+                pendingTasks = dm.getTaskRowsByStatusAndCategory(0, category);
+                completedTasks = dm.getTaskRowsByStatusAndCategory(1, category);
+            }
+
+            // 1. Add ALL Pending tasks (including future)
+            tasks.addAll(pendingTasks);
+
+            // 2. Add Completed tasks (Completed Today)
+            for (TaskRow t : completedTasks) {
+                if (t.completedAt >= todayStart && t.completedAt <= todayEnd) {
+                    tasks.add(t);
                 }
             }
+        }
 
-            if (tasks != null && !tasks.isEmpty()) {
-                // Sort tasks by due date (earliest first, null dates last)
-                java.util.Collections.sort(tasks, (t1, t2) -> {
-                    if (t1.dueDate == 0 && t2.dueDate == 0)
-                        return 0;
-                    if (t1.dueDate == 0)
-                        return 1; // null dates go to end
-                    if (t2.dueDate == 0)
-                        return -1;
-                    return Long.compare(t1.dueDate, t2.dueDate);
-                });
+        // Sort tasks by due date (earliest first, null dates last)
+        java.util.Collections.sort(tasks, (t1, t2) -> {
+            if (t1.dueDate == 0 && t2.dueDate == 0)
+                return 0;
+            if (t1.dueDate == 0)
+                return 1; // null dates go to end
+            if (t2.dueDate == 0)
+                return -1;
+            return Long.compare(t1.dueDate, t2.dueDate);
+        });
+        return tasks;
+    }
 
-                // Group tasks by date with headers
-                String lastDateHeader = "";
-                for (TaskList task : tasks) {
-                    String dateHeader = getDateHeader(task.dueDate);
-
-                    // Insert header if date changed
-                    if (!dateHeader.equals(lastDateHeader)) {
-                        TaskList header = new TaskList();
-                        header.isHeader = true;
-                        header.headerTitle = dateHeader;
-                        taskList.add(header);
-                        lastDateHeader = dateHeader;
-                    }
+    private void showTasks(List<TaskRow> tasks) {
+        try {
+            if (taskList == null)
+                taskList = new ArrayList<>();
+            taskList.clear();
+            lastHeaderDay = Integer.MIN_VALUE;
 
-                    taskList.add(task);
-                }
+            if (tasks != null && !tasks.isEmpty()) {
+                appendWithHeaders(tasks);
             }
             if (adapter != null) {
+                adapter.invalidateSubtasks();
                 adapter.notifyDataSetChanged();
             }
 
@@ -1205,29 +1263,38 @@ public class TasksFragment extends Fragment {
         }
     }
 
+    /**
+     * Appends tasks to the list, grouped by date with headers. Completed history
+     * is grouped by completion day, everything else by due date.
+     */
+    private void appendWithHeaders(List<TaskRow> tasks) {
+        boolean byCompletion = "completed".equals(currentFilter);
+        for (TaskRow task : tasks) {
+            int day = byCompletion ? EpochDays.ofDueDate(task.completedAt) : task.dueDay;
+
+            // Insert header if date changed
+            if (day != lastHeaderDay) {
+                TaskRow header = new TaskRow();
+                header.isHeader = true;
+                header.headerTitle = getDateHeader(day);
+                taskList.add(header);
+                lastHeaderDay = day;
+            }
+
+            taskList.add(task);
+        }
+    }
+
     /**
      * Returns a WhatsApp-style date header: "Today", "Yesterday", "Tomorrow", or
-     * formatted date
+     * formatted date. {@code day} is a local epoch day (see EpochDays).
      */
-    private String getDateHeader(long dueDate) {
-        if (dueDate == 0) {
+    private String getDateHeader(int day) {
+        if (day == EpochDays.NONE) {
             return "No Due Date";
         }
 
-        java.util.Calendar taskCal = java.util.Calendar.getInstance();
-        taskCal.setTimeInMillis(dueDate);
-        taskCal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        taskCal.set(java.util.Calendar.MINUTE, 0);
-        taskCal.set(java.util.Calendar.SECOND, 0);
-        taskCal.set(java.util.Calendar.MILLISECOND, 0);
-
-        java.util.Calendar todayCal = java.util.Calendar.getInstance();
-        todayCal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        todayCal.set(java.util.Calendar.MINUTE, 0);
-        todayCal.set(java.util.Calendar.SECOND, 0);
-        todayCal.set(java.util.Calendar.MILLISECOND, 0);
-
-        long daysDiff = (taskCal.getTimeInMillis() - todayCal.getTimeInMillis()) / (1000 * 60 * 60 * 24);
+        int daysDiff = day - EpochDays.today();
 
         if (daysDiff == 0) {
             return "Today";
@@ -1238,11 +1305,11 @@ public class TasksFragment extends Fragment {
         } else if (daysDiff < -1 && daysDiff >= -7) {
             // Within last week: show day name
             SimpleDateFormat sdf = new SimpleDateFormat("EEEE", Locale.getDefault());
-            return sdf.format(taskCal.getTime());
+            return sdf.format(new java.util.Date(EpochDays.startOf(day)));
         } else {
             // Show formatted date
             SimpleDateFormat sdf = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
-            return sdf.format(taskCal.getTime());
+            return sdf.format(new java.util.Date(EpochDays.startOf(day)));
         }
     }
 
@@ -1315,15 +1382,43 @@ public class TasksFragment extends Fragment {
     public void onResume() {
         super.onResume();
         try {
-            loadTasks();
+            // Only re-query if something was written since the last load
+            if (stale) {
+                loadTasks();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (!hidden && stale) {
+            loadTasks();
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (pendingSearch != null)
+            searchHandler.removeCallbacks(pendingSearch);
+        if (dm != null) {
+            dm.removeTableObserver(tableObserver);
+        }
+        tableObserver = null;
+    }
+
     private void showManageCategoriesDialog() {
         // Show dialog with list of categories to manage
-        List<Category> categories = dm.getAllCategories();
+        dm.getAllCategoriesAsync(categories -> {
+            if (isAdded())
+                showManageCategoriesDialog(categories);
+        });
+    }
+
+    private void showManageCategoriesDialog(List<Category> categories) {
         if (categories == null || categories.isEmpty()) {
             Toast.makeText(requireContext(), "No categories to manage", Toast.LENGTH_SHORT).show();
             return;
@@ -1492,7 +1587,7 @@ public class TasksFragment extends Fragment {
                     .setMessage("Are you sure you want to delete \"" + category.getName()
                             + "\"? Tasks in this category will be moved to 'All'.")
                     .setPositiveButton("Delete", (d, w) -> {
-                        dm.deleteCategory(category.getId());
+                        dm.deleteCategoryAsync(category.getId(), null);
                         setupCategoryChips();
                         loadTasks();
                         dialog.dismiss();
@@ -1511,20 +1606,25 @@ public class TasksFragment extends Fragment {
                 return;
             }
 
-            String oldName = category.getName();
+            // Category names are unique ignoring case ("No Category" is not in the chip list)
+            boolean nameTaken = "No Category".equalsIgnoreCase(newName)
+                    && !"No Category".equalsIgnoreCase(category.getName());
+            for (Category other : allCategories) {
+                if (other.id != category.id && newName.equalsIgnoreCase(other.getName())) {
+                    nameTaken = true;
+                }
+            }
+            if (nameTaken) {
+                Toast.makeText(requireContext(), "A category with that name already exists",
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
+
             category.setName(newName);
             category.setColor(selectedColor[0]);
             category.setIcon(selectedIcon[0]);
-            dm.updateCategory(category);
-
-            // Update tasks with old category name to new name
-            if (!oldName.equals(newName)) {
-                List<TaskList> tasksInCategory = dm.getTasksByCategory(oldName);
-                for (TaskList task : tasksInCategory) {
-                    task.setCategory(newName);
-                    dm.updateTask(task);
-                }
-            }
+            // Also renames the category on its tasks
+            dm.runAsync(() -> dm.updateCategory(category));
 
             setupCategoryChips();
             loadTasks();
@@ -1600,6 +1700,9 @@ public class TasksFragment extends Fragment {
 
     private void hideSearch() {
         isSearchActive = false;
+        searchGeneration++;
+        if (pendingSearch != null)
+            searchHandler.removeCallbacks(pendingSearch);
         if (searchContainer != null) {
             searchContainer.setVisibility(View.GONE);
         }
@@ -1622,19 +1725,28 @@ public class TasksFragment extends Fragment {
         if (!isSearchActive)
             return;
 
-        taskList.clear();
+        final int generation = ++searchGeneration;
+        if (pendingSearch != null)
+            searchHandler.removeCallbacks(pendingSearch);
 
-        if (query.isEmpty()) {
-            taskList.addAll(allTasksForSearch);
-        } else {
-            String lowerQuery = query.toLowerCase();
-            for (TaskList task : allTasksForSearch) {
-                if (task.getTask() != null && task.getTask().toLowerCase().contains(lowerQuery)) {
-                    taskList.add(task);
-                }
-            }
+        if (query.trim().isEmpty()) {
+            showSearchResults(new ArrayList<>(allTasksForSearch));
+            return;
         }
 
+        // Wait for typing to pause, then query the full-text index off the main thread
+        pendingSearch = () -> dm.runAsync(() -> dm.searchTaskRows(query, SEARCH_RESULT_LIMIT), results -> {
+            if (generation != searchGeneration || !isSearchActive || !isAdded() || getView() == null)
+                return;
+            showSearchResults(new ArrayList<TaskRow>(results));
+        });
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    private void showSearchResults(List<TaskRow> results) {
+        taskList.clear();
+        taskList.addAll(results);
+
         if (adapter != null) {
             adapter.notifyDataSetChanged();
         }
@@ -1696,7 +1808,7 @@ public class TasksFragment extends Fragment {
         Toast.makeText(requireContext(), "Sorted by Priority", Toast.LENGTH_SHORT).show();
     }
 
-    private int getPriorityValue(TaskList t) {
+    private int getPriorityValue(TaskRow t) {
         if ("priority".equals(t.markerType) && t.markerValue != null) {
             switch (t.markerValue) {
                 case "Urgent":
@@ -1783,8 +1895,8 @@ public class TasksFragment extends Fragment {
     private void generatePDF(boolean includeCompleted) {
         try {
             // Filter list based on selection
-            List<TaskList> tasksToPrint = new ArrayList<>();
-            for (TaskList t : taskList) {
+            List<TaskRow> tasksToPrint = new ArrayList<>();
+            for (TaskRow t : taskList) {
                 if (includeCompleted || t.getCheck() == 0) {
                     tasksToPrint.add(t);
                 }
@@ -1825,7 +1937,7 @@ public class TasksFragment extends Fragment {
             html.append(
                     "<tr><th style='width: 60%'>Task Details</th><th style='width: 25%'>Due Date</th><th style='width: 15%'>Status</th></tr>");
 
-            for (TaskList task : tasksToPrint) {
+            for (TaskRow task : tasksToPrint) {
                 html.append("<tr>");
 
                 // Task Name and Priority
@@ -1898,21 +2010,11 @@ public class TasksFragment extends Fragment {
     }
 
     private long getTodayStartTimestamp() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return calendar.getTimeInMillis();
+        return EpochDays.startOf(EpochDays.today());
     }
 
     private long getTodayEndTimestamp() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
-        return calendar.getTimeInMillis();
+        return EpochDays.startOf(EpochDays.today() + 1) - 1;
     }
 
     private void updateEmptyState() {
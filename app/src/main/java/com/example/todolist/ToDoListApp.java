@@ -2,6 +2,8 @@ package com.example.todolist;
 
 import android.app.Application;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
 
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
@@ -13,6 +15,15 @@ public class ToDoListApp extends Application {
     public void onCreate() {
         super.onCreate();
 
+        // Debug builds flag any disk access that sneaks back onto the UI thread
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+        }
+
         try {
             Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
             Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
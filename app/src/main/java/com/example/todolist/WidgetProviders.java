@@ -3,7 +3,6 @@ package com.example.todolist;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
@@ -18,8 +17,22 @@ public class WidgetProviders {
 
         protected abstract int getLayoutId();
 
+        @Override
+        public void onEnabled(Context context) {
+            super.onEnabled(context);
+            WidgetRefreshDispatcher.getInstance(context).invalidateWidgetIds();
+        }
+
+        @Override
+        public void onDeleted(Context context, int[] appWidgetIds) {
+            super.onDeleted(context, appWidgetIds);
+            WidgetRefreshDispatcher.getInstance(context).invalidateWidgetIds();
+        }
+
         @Override
         public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+            // Also fires when another widget of an already-enabled provider is placed
+            WidgetRefreshDispatcher.getInstance(context).invalidateWidgetIds();
             for (int appWidgetId : appWidgetIds) {
                 try {
                     updateAppWidget(context, appWidgetManager, appWidgetId, getFilterType(), getThemeType(),
@@ -54,18 +67,25 @@ public class WidgetProviders {
                 if (taskId != -1) {
                     try {
                         DataManager dm = DataManager.getInstance(context);
-                        // Mark task as completed
-                        dm.updateStatusAndCompletedAt(taskId, 1, System.currentTimeMillis());
+                        // Mark task as completed; DataManager refreshes the affected widgets.
+                        // Keep the broadcast alive until the write and the refresh are done.
+                        PendingResult completeResult = goAsync();
+                        long completedAt = System.currentTimeMillis();
+                        dm.runAsync(() -> {
+                            try {
+                                dm.updateStatusAndCompletedAt(taskId, 1, completedAt);
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                            }
+                        }, () -> {
+                            WidgetRefreshDispatcher.getInstance(context).flushNow();
+                            completeResult.finish();
+                        });
 
                         // Show feedback
                         android.widget.Toast.makeText(context, "Task completed", android.widget.Toast.LENGTH_SHORT)
                                 .show();
 
-                        // Force update all widgets to reflect change
-                        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-                        int[] appWidgetIds = appWidgetManager.getAppWidgetIds(new ComponentName(context, getClass()));
-                        appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.lv_widget_tasks);
-
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
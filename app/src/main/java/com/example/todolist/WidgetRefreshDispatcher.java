@@ -0,0 +1,211 @@
+package com.example.todolist;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.List;
+
+/**
+ * Collapses bursts of task changes into a single widget refresh.
+ *
+ * Writes report the rows they touched; only the widget filters those rows
+ * can appear in (see WidgetService) are marked, and after a short quiet
+ * window each marked filter's widgets get one notifyAppWidgetViewDataChanged.
+ * Installed widget ids are cached and reloaded when a provider reports that
+ * widgets were added or removed.
+ */
+public class WidgetRefreshDispatcher {
+
+    private static final String TAG = "WidgetRefresh";
+
+    // Same numbering as WidgetService's filter_type
+    public static final int FILTER_ALL = 0;
+    public static final int FILTER_TODAY = 1;
+    public static final int FILTER_STARRED = 2;
+    public static final int FILTER_WORK = 3;
+    public static final int FILTER_PERSONAL = 4;
+    private static final int ALL_FILTERS = (1 << 5) - 1;
+
+    // Categories the Work and Personal widgets list, see DataManager.getWidgetCategoryId
+    public static final String WORK_CATEGORY = "Work";
+    public static final String PERSONAL_CATEGORY = "Personal";
+
+    private static final long QUIET_WINDOW_MS = 300;
+
+    private static final Class<?>[][] PROVIDERS_BY_FILTER = {
+            { WidgetProviders.AllDark.class, WidgetProviders.AllLight.class, WidgetProviders.AllTrans.class },
+            { WidgetProviders.TodayDark.class, WidgetProviders.TodayLight.class, WidgetProviders.TodayTrans.class },
+            { WidgetProviders.StarredDark.class, WidgetProviders.StarredLight.class,
+                    WidgetProviders.StarredTrans.class },
+            { WidgetProviders.WorkDark.class, WidgetProviders.WorkLight.class, WidgetProviders.WorkTrans.class },
+            { WidgetProviders.PersonalDark.class, WidgetProviders.PersonalLight.class,
+                    WidgetProviders.PersonalTrans.class }
+    };
+
+    private static WidgetRefreshDispatcher instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+
+    // Bit (1 << filter) set for every filter waiting to be refreshed
+    private int pendingFilters = 0;
+    // Installed widget ids per filter; null until loaded or after invalidation
+    private int[][] widgetIds;
+
+    private WidgetRefreshDispatcher(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized WidgetRefreshDispatcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new WidgetRefreshDispatcher(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Called by the providers when widgets are added or removed.
+     */
+    public synchronized void invalidateWidgetIds() {
+        widgetIds = null;
+    }
+
+    /**
+     * True if at least one widget is installed. Lets callers skip work (such as
+     * reading a row's previous state) that only matters for widgets.
+     */
+    public synchronized boolean hasWidgets() {
+        int[][] ids = getWidgetIds();
+        for (int[] forFilter : ids) {
+            if (forFilter.length > 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Report a single row change. {@code before} is the row as it was (null for
+     * an insert or if unknown) and {@code after} as it is now (null for a delete).
+     */
+    public void taskChanged(TaskList before, TaskList after) {
+        schedule(filtersFor(before) | filtersFor(after));
+    }
+
+    public void tasksChanged(List<TaskList> changed) {
+        int mask = 0;
+        for (TaskList t : changed) {
+            mask |= filtersFor(t);
+        }
+        schedule(mask);
+    }
+
+    public void refreshAll() {
+        schedule(ALL_FILTERS);
+    }
+
+    /**
+     * Runs a scheduled refresh now instead of after the quiet window. For
+     * broadcast receivers, whose process may be killed once they finish.
+     */
+    public void flushNow() {
+        synchronized (this) {
+            if (pendingFilters == 0)
+                return;
+            handler.removeCallbacks(flushRunnable);
+        }
+        flush();
+    }
+
+    private synchronized void schedule(int mask) {
+        if (mask == 0)
+            return;
+        pendingFilters |= mask;
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, QUIET_WINDOW_MS);
+    }
+
+    private void flush() {
+        int mask;
+        int[][] ids;
+        synchronized (this) {
+            mask = pendingFilters;
+            pendingFilters = 0;
+            ids = getWidgetIds();
+        }
+        try {
+            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+            for (int filter = 0; filter < ids.length; filter++) {
+                if ((mask & (1 << filter)) != 0 && ids[filter].length > 0) {
+                    appWidgetManager.notifyAppWidgetViewDataChanged(ids[filter], R.id.lv_widget_tasks);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Widget refresh failed", e);
+        }
+    }
+
+    private int[][] getWidgetIds() {
+        if (widgetIds != null)
+            return widgetIds;
+        int[][] loaded = new int[PROVIDERS_BY_FILTER.length][];
+        try {
+            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+            for (int filter = 0; filter < PROVIDERS_BY_FILTER.length; filter++) {
+                int total = 0;
+                int[][] perProvider = new int[PROVIDERS_BY_FILTER[filter].length][];
+                for (int i = 0; i < perProvider.length; i++) {
+                    int[] found = appWidgetManager
+                            .getAppWidgetIds(new ComponentName(context, PROVIDERS_BY_FILTER[filter][i]));
+                    perProvider[i] = found != null ? found : new int[0];
+                    total += perProvider[i].length;
+                }
+                int[] merged = new int[total];
+                int pos = 0;
+                for (int[] found : perProvider) {
+                    System.arraycopy(found, 0, merged, pos, found.length);
+                    pos += found.length;
+                }
+                loaded[filter] = merged;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Could not load widget ids", e);
+            for (int filter = 0; filter < loaded.length; filter++) {
+                if (loaded[filter] == null)
+                    loaded[filter] = new int[0];
+            }
+            return loaded; // Not cached so the next flush retries
+        }
+        widgetIds = loaded;
+        return widgetIds;
+    }
+
+    /**
+     * Bit mask of the widget filters this row is listed under. Mirrors the
+     * filtering in WidgetService: every filter shows pending tasks only.
+     */
+    private int filtersFor(TaskList t) {
+        if (t == null || t.check != 0)
+            return 0;
+        int mask = 1 << FILTER_ALL;
+
+        // From due_date rather than due_day, which a caller's copy may not have yet
+        if (t.dueDate > 0 && EpochDays.of(t.dueDate) == EpochDays.today())
+            mask |= 1 << FILTER_TODAY;
+
+        if (t.isStarred == 1)
+            mask |= 1 << FILTER_STARRED;
+        if (t.categoryId != null) {
+            DataManager dm = DataManager.getInstance(context);
+            if (t.categoryId.equals(dm.getWidgetCategoryId(WORK_CATEGORY)))
+                mask |= 1 << FILTER_WORK;
+            if (t.categoryId.equals(dm.getWidgetCategoryId(PERSONAL_CATEGORY)))
+                mask |= 1 << FILTER_PERSONAL;
+        }
+        return mask;
+    }
+}
@@ -18,7 +18,7 @@ public class WidgetService extends RemoteViewsService {
 
 class WidgetRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory {
     private Context context;
-    private List<TaskList> taskList = new ArrayList<>();
+    private List<TaskRow> taskList = new ArrayList<>();
     private DataManager dm;
     private int filterType = 0; // 0=All, 1=Today, 2=Starred, 3=Work, 4=Personal
     private int theme = 0; // 0=Dark, 1=Light
@@ -71,21 +71,11 @@ class WidgetRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
             // method for it.
             // For now, we trust initializeData() was called.
 
-            long todayStart = 0;
-            long todayEnd = 0;
+            int today = EpochDays.today();
 
-            // Simple calculation for today
-            java.util.Calendar cal = java.util.Calendar.getInstance();
-            cal.set(java.util.Calendar.HOUR_OF_DAY, 0);
-            cal.set(java.util.Calendar.MINUTE, 0);
-            cal.set(java.util.Calendar.SECOND, 0);
-            cal.set(java.util.Calendar.MILLISECOND, 0);
-            todayStart = cal.getTimeInMillis();
-            todayEnd = todayStart + (24 * 60 * 60 * 1000) - 1;
-
-            List<TaskList> all = new ArrayList<>();
+            List<TaskRow> all = new ArrayList<>();
             if (dm != null) {
-                all = dm.getAllTasks();
+                all = dm.getAllTaskRows();
             }
 
             // Fallback: Read manually from JSON if empty (Double check)
@@ -107,12 +97,13 @@ class WidgetRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
                         all = new ArrayList<>();
                         for (int i = 0; i < array.length(); i++) {
                             org.json.JSONObject obj = array.getJSONObject(i);
-                            TaskList t = new TaskList();
+                            TaskRow t = new TaskRow();
                             t.id = obj.optInt("id");
                             t.setTask(obj.optString("title"));
                             t.setTime(obj.optString("details"));
                             t.setCategory(obj.optString("category", "All"));
                             t.setDueDate(obj.optLong("dueDate"));
+                            t.dueDay = EpochDays.ofDueDate(t.dueDate);
                             t.setStarred(obj.optInt("isStarred"));
                             t.setStatus(obj.optInt("isCompleted"));
                             t.setTaskTime(obj.optString("taskTime", ""));
@@ -129,7 +120,7 @@ class WidgetRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
             if (all == null || all.isEmpty()) {
                 if (all == null)
                     all = new ArrayList<>();
-                TaskList dummy = new TaskList();
+                TaskRow dummy = new TaskRow();
                 dummy.id = -999;
                 dummy.setTask("Widget Connected - No Data");
                 dummy.setTime("Tap + to add tasks");
@@ -141,37 +132,34 @@ class WidgetRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
 
             switch (filterType) {
                 case 0: // All Pending
-                    for (TaskList t : all) {
+                    for (TaskRow t : all) {
                         if (t.check == 0)
                             taskList.add(t);
                     }
                     break;
                 case 1: // Today
-                    for (TaskList t : all) {
-                        if (t.check == 0 && t.dueDate >= todayStart && t.dueDate <= todayEnd)
+                    for (TaskRow t : all) {
+                        if (t.check == 0 && t.dueDay == today)
                             taskList.add(t);
                     }
                     break;
                 case 2: // Starred
-                    for (TaskList t : all) {
+                    for (TaskRow t : all) {
                         if (t.check == 0 && t.isStarred == 1)
                             taskList.add(t);
                     }
                     break;
                 case 3: // Work
-                    for (TaskList t : all) {
-                        if (t.check == 0 && "Work".equalsIgnoreCase(t.category))
-                            taskList.add(t);
-                    }
-                    break;
                 case 4: // Personal
-                    for (TaskList t : all) {
-                        if (t.check == 0 && "Personal".equalsIgnoreCase(t.category))
+                    Integer categoryId = dm.getWidgetCategoryId(filterType == 3
+                            ? WidgetRefreshDispatcher.WORK_CATEGORY : WidgetRefreshDispatcher.PERSONAL_CATEGORY);
+                    for (TaskRow t : all) {
+                        if (t.check == 0 && categoryId != null && categoryId.equals(t.categoryId))
                             taskList.add(t);
                     }
                     break;
                 default: // Fallback all
-                    for (TaskList t : all) {
+                    for (TaskRow t : all) {
                         if (t.check == 0)
                             taskList.add(t);
                     }
@@ -200,7 +188,7 @@ class WidgetRemoteViewsFactory implements RemoteViewsService.RemoteViewsFactory
 
         int layoutId = (theme == 1) ? R.layout.item_widget_task_light : R.layout.item_widget_task;
         RemoteViews views = new RemoteViews(context.getPackageName(), layoutId);
-        TaskList task = taskList.get(position);
+        TaskRow task = taskList.get(position);
 
         views.setTextViewText(R.id.tv_widget_task_title, task.task);
         if (task.time != null && !task.time.isEmpty()) {
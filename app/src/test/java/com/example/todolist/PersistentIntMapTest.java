@@ -0,0 +1,225 @@
+package com.example.todolist;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks PersistentIntMap against a TreeMap under random plus/minus sequences,
+ * including the extreme and negative keys the sign-flipped trie order has to
+ * get right.
+ */
+public class PersistentIntMapTest {
+
+    private static final int[] EDGE_KEYS = { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1_000_000, -32, -1, 0, 1,
+            31, 32, 1023, 1024, 1 << 30, Integer.MAX_VALUE - 1, Integer.MAX_VALUE };
+
+    @Test
+    public void emptyMap() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.get(Integer.MIN_VALUE));
+        assertFalse(map.iterator().hasNext());
+        assertSame(map, map.minus(5));
+        map.forEachInRange(Integer.MIN_VALUE, Integer.MAX_VALUE, (v, k) -> fail("visited " + k));
+    }
+
+    @Test
+    public void edgeKeysKeepSignedOrder() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        // Insert in reverse so the order comes from the trie, not the inserts
+        for (int i = EDGE_KEYS.length - 1; i >= 0; i--) {
+            map = map.plus(EDGE_KEYS[i], "v" + EDGE_KEYS[i]);
+            expected.put(EDGE_KEYS[i], "v" + EDGE_KEYS[i]);
+        }
+        assertMatches(expected, map);
+        assertEquals("v" + Integer.MIN_VALUE, map.iterator().next());
+        assertRanges(expected, map, new Random(1), 200);
+    }
+
+    @Test
+    public void plusOfSameValueReturnsSameMap() {
+        String value = "a";
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().plus(7, value);
+        assertSame(map, map.plus(7, value));
+        PersistentIntMap<String> replaced = map.plus(7, "b");
+        assertEquals(1, replaced.size());
+        assertEquals("b", replaced.get(7));
+        assertEquals("a", map.get(7));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullValuesAreRejected() {
+        PersistentIntMap.<String>empty().plus(1, null);
+    }
+
+    @Test
+    public void iteratorEndsWithNoSuchElement() {
+        Iterator<String> it = PersistentIntMap.<String>empty().plus(Integer.MAX_VALUE, "x").iterator();
+        assertEquals("x", it.next());
+        assertFalse(it.hasNext());
+        try {
+            it.next();
+            fail("expected NoSuchElementException");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchTreeMap() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            PersistentIntMap<Integer> map = PersistentIntMap.empty();
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int op = 0; op < 2000; op++) {
+                int key = randomKey(random, expected);
+                if (random.nextInt(3) == 0) {
+                    map = map.minus(key);
+                    expected.remove(key);
+                } else {
+                    int value = random.nextInt();
+                    map = map.plus(key, value);
+                    expected.put(key, value);
+                }
+                if (op % 250 == 0) {
+                    assertMatches(expected, map);
+                    assertRanges(expected, map, random, 20);
+                }
+            }
+            assertMatches(expected, map);
+            assertRanges(expected, map, random, 100);
+
+            // Remove everything: back to an empty map
+            for (int key : new ArrayList<>(expected.keySet())) {
+                map = map.minus(key);
+            }
+            assertTrue(map.isEmpty());
+            assertFalse(map.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void olderVersionsStayUnchanged() {
+        Random random = new Random(42);
+        List<PersistentIntMap<Integer>> versions = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> snapshots = new ArrayList<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int op = 0; op < 3000; op++) {
+            int key = randomKey(random, expected);
+            if (random.nextInt(3) == 0) {
+                map = map.minus(key);
+                expected.remove(key);
+            } else {
+                map = map.plus(key, op);
+                expected.put(key, op);
+            }
+            if (op % 100 == 0) {
+                versions.add(map);
+                snapshots.add(new TreeMap<>(expected));
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertMatches(snapshots.get(i), versions.get(i));
+        }
+    }
+
+    // Mostly keys near each other (shared trie paths), some existing keys to
+    // replace or remove, plus the edge keys and the full int range
+    private static int randomKey(Random random, TreeMap<Integer, Integer> current) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return EDGE_KEYS[random.nextInt(EDGE_KEYS.length)];
+            case 1:
+                return random.nextInt();
+            case 2:
+                if (!current.isEmpty()) {
+                    Integer key = current.ceilingKey(random.nextInt());
+                    return key != null ? key : current.firstKey();
+                }
+                return random.nextInt(200) - 100;
+            default:
+                return random.nextInt(200) - 100;
+        }
+    }
+
+    private static <V> void assertMatches(TreeMap<Integer, V> expected, PersistentIntMap<V> map) {
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.isEmpty(), map.isEmpty());
+        for (Map.Entry<Integer, V> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+        for (int key : EDGE_KEYS) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        List<V> iterated = new ArrayList<>();
+        for (V value : map) {
+            iterated.add(value);
+        }
+        assertEquals(new ArrayList<>(expected.values()), iterated);
+
+        List<Integer> keys = new ArrayList<>();
+        List<V> values = new ArrayList<>();
+        map.forEach((v, k) -> {
+            keys.add(k);
+            values.add(v);
+        });
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        assertEquals(new ArrayList<>(expected.values()), values);
+    }
+
+    private static <V> void assertRanges(TreeMap<Integer, V> expected, PersistentIntMap<V> map, Random random,
+            int count) {
+        assertRange(expected, map, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertRange(expected, map, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        assertRange(expected, map, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertRange(expected, map, -1, 0);
+        assertRange(expected, map, 5, 4);
+        for (int i = 0; i < count; i++) {
+            int a = randomKey(random, new TreeMap<>());
+            int b = random.nextBoolean() ? randomKey(random, new TreeMap<>()) : a + random.nextInt(64);
+            if (b < a && random.nextBoolean()) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            assertRange(expected, map, a, b);
+        }
+    }
+
+    private static <V> void assertRange(TreeMap<Integer, V> expected, PersistentIntMap<V> map, int from, int to) {
+        List<Integer> expectedKeys = new ArrayList<>();
+        List<V> expectedValues = new ArrayList<>();
+        if (from <= to) {
+            for (Map.Entry<Integer, V> e : expected.subMap(from, true, to, true).entrySet()) {
+                expectedKeys.add(e.getKey());
+                expectedValues.add(e.getValue());
+            }
+        }
+        List<Integer> keys = new ArrayList<>();
+        List<V> values = new ArrayList<>();
+        map.forEachInRange(from, to, (v, k) -> {
+            keys.add(k);
+            values.add(v);
+        });
+        assertEquals("keys in [" + from + ", " + to + "]", expectedKeys, keys);
+        assertEquals(expectedValues, values);
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.todolist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks RecurrenceRule and EpochDays against the Calendar arithmetic they
+ * replaced, day by day over several years.
+ *
+ * The reference repeats of a series are its due date plus k periods, computed
+ * with Calendar.add as DataManager did before the rules were compiled. Each
+ * repeat is counted from the due date, not from the previous repeat, so a
+ * month-end start clamps in short months without drifting (Jan 31 -> Feb 28
+ * -> Mar 31). Custom days step through the calendar a day at a time and match
+ * Calendar.DAY_OF_WEEK.
+ */
+public class RecurrenceRuleTest {
+
+    private static final String[] SIMPLE_TYPES = { "days", "weeks", "months", "years" };
+    private static final int[][] INTERVALS = { { 1, 2, 3, 10 }, { 1, 2, 3 }, { 1, 2, 3, 5, 12 }, { 1, 2, 4 } };
+    private static final String[] CUSTOM_DAYS = { "1", "4", "1,7", "2,3,4,5,6", "1,2,3,4,5,6,7" };
+
+    // DST zones, including a half-hour shift (Lord Howe) and transitions at
+    // midnight (Sao Paulo until 2019, Santiago)
+    private static final String[] DST_ZONES = { "America/New_York", "Europe/London", "Australia/Lord_Howe",
+            "America/Sao_Paulo", "America/Santiago" };
+
+    private TimeZone hostZone;
+    private Locale hostLocale;
+
+    // Results must not depend on the host: every check runs in a zone it
+    // picks, and Calendar.getInstance() must be Gregorian
+    @Before
+    public void pinZoneAndLocale() {
+        hostZone = TimeZone.getDefault();
+        hostLocale = Locale.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        Locale.setDefault(Locale.US);
+        EpochDays.onTimeZoneChanged();
+    }
+
+    @After
+    public void restoreZoneAndLocale() {
+        TimeZone.setDefault(hostZone);
+        Locale.setDefault(hostLocale);
+        EpochDays.onTimeZoneChanged();
+    }
+
+    @Test
+    public void monthEndAndLeapDayStartsMatchCalendar() {
+        for (String zone : new String[] { "UTC", "America/New_York" }) {
+            inZone(zone, () -> {
+                for (int year = 2019; year <= 2024; year++) {
+                    for (int[] monthDay : new int[][] { { 1, 29 }, { 1, 30 }, { 1, 31 }, { 3, 31 }, { 4, 30 },
+                            { 8, 31 }, { 12, 31 }, { 6, 15 } }) {
+                        checkAllRules(dueDate(year, monthDay[0], monthDay[1], 9, 0), 6);
+                    }
+                }
+                checkAllRules(dueDate(2019, 2, 28, 18, 30), 8);
+                checkAllRules(dueDate(2020, 2, 29, 0, 0), 8);
+                checkAllRules(dueDate(2024, 2, 29, 23, 59), 8);
+            });
+        }
+    }
+
+    @Test
+    public void dstTransitionStartsMatchCalendar() {
+        for (String zone : DST_ZONES) {
+            inZone(zone, () -> {
+                TimeZone tz = TimeZone.getDefault();
+                // Start on every transition day of 2016-2020, at times around the
+                // jump (midnight, in and next to the usual 1-3 am window) and noon
+                for (int day = EpochDays.of(dueDate(2016, 1, 1, 12, 0));
+                        day < EpochDays.of(dueDate(2021, 1, 1, 12, 0)); day++) {
+                    long noon = EpochDays.startOf(day) + 12 * 3600_000L;
+                    if (tz.getOffset(noon - 86_400_000L) == tz.getOffset(noon + 86_400_000L))
+                        continue;
+                    int[] date = civil(noon);
+                    for (int[] time : new int[][] { { 0, 0 }, { 0, 30 }, { 1, 30 }, { 2, 30 }, { 12, 0 } }) {
+                        checkAllRules(dueDate(date[0], date[1], date[2], time[0], time[1]), 4);
+                    }
+                }
+            });
+        }
+    }
+
+    @Test
+    public void epochDaysMatchCalendarAcrossDst() {
+        for (String zone : DST_ZONES) {
+            inZone(zone, () -> {
+                Calendar cal = Calendar.getInstance();
+                cal.clear();
+                cal.set(2010, Calendar.JANUARY, 1, 12, 0);
+                for (int i = 0; i < 366 * 15; i++) {
+                    long noon = cal.getTimeInMillis();
+                    int day = EpochDays.of(noon);
+                    assertEquals(day - 1, EpochDays.of(EpochDays.startOf(day) - 1));
+                    assertEquals(day, EpochDays.of(EpochDays.startOf(day)));
+                    assertEquals(startOfDayByCalendar(noon), EpochDays.startOf(day));
+                    assertEquals(startOfDayByCalendar(noon), EpochDays.startOfDay(noon));
+                    assertEquals(day, EpochDays.ofDueDate(noon));
+                    assertEquals(12 * 3600_000L, EpochDays.timeOfDay(noon));
+                    cal.add(Calendar.DAY_OF_YEAR, 1);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void monthEndsClampWithoutDrifting() {
+        inZone("UTC", () -> {
+            RecurrenceRule monthly = RecurrenceRule.of(task(dueDate(2024, 1, 31, 9, 0), "months", 1, null));
+            int day = EpochDays.of(dueDate(2024, 1, 31, 9, 0));
+            day = monthly.nextAfter(day);
+            assertEquals(EpochDays.of(dueDate(2024, 2, 29, 9, 0)), day);
+            day = monthly.nextAfter(day);
+            assertEquals(EpochDays.of(dueDate(2024, 3, 31, 9, 0)), day);
+            day = monthly.nextAfter(day);
+            assertEquals(EpochDays.of(dueDate(2024, 4, 30, 9, 0)), day);
+
+            RecurrenceRule yearly = RecurrenceRule.of(task(dueDate(2024, 2, 29, 9, 0), "years", 1, null));
+            assertTrue(yearly.occursOn(EpochDays.of(dueDate(2025, 2, 28, 9, 0))));
+            assertFalse(yearly.occursOn(EpochDays.of(dueDate(2025, 3, 1, 9, 0))));
+            assertTrue(yearly.occursOn(EpochDays.of(dueDate(2028, 2, 29, 9, 0))));
+            assertFalse(yearly.occursOn(EpochDays.of(dueDate(2028, 2, 28, 9, 0))));
+        });
+    }
+
+    @Test
+    public void rulesWithoutScheduleNeverOccur() {
+        inZone("UTC", () -> {
+            long due = dueDate(2024, 5, 1, 9, 0);
+            int day = EpochDays.of(due);
+            for (TaskRow task : new TaskRow[] { task(0, "days", 1, null), task(due, null, 1, null),
+                    task(due, "none", 1, null), task(due, "custom_days", 1, ""),
+                    task(due, "custom_days", 1, null), task(due, "custom_days", 1, "0,8,12") }) {
+                RecurrenceRule rule = RecurrenceRule.of(task);
+                for (int d = day - 10; d < day + 30; d++) {
+                    assertFalse(rule.occursOn(d));
+                }
+                assertEquals(EpochDays.NONE, rule.nextAfter(day));
+            }
+        });
+    }
+
+    @Test
+    public void dayOfWeekMatchesCalendar() {
+        inZone("UTC", () -> {
+            Calendar cal = Calendar.getInstance();
+            cal.clear();
+            cal.set(1900, Calendar.JANUARY, 1, 12, 0);
+            for (int i = 0; i < 200 * 366; i++) {
+                assertEquals(cal.get(Calendar.DAY_OF_WEEK), RecurrenceRule.dayOfWeek(EpochDays.of(cal.getTimeInMillis())));
+                cal.add(Calendar.DAY_OF_YEAR, 1);
+            }
+        });
+    }
+
+    // ==================== CHECKS ====================
+
+    // Every repeat type and interval, plus the custom day sets, starting at
+    // dueDate and checked for the given number of years
+    private static void checkAllRules(long dueDate, int years) {
+        for (int t = 0; t < SIMPLE_TYPES.length; t++) {
+            for (int interval : INTERVALS[t]) {
+                checkRule(task(dueDate, SIMPLE_TYPES[t], interval, null), years);
+            }
+        }
+        for (String days : CUSTOM_DAYS) {
+            checkRule(task(dueDate, "custom_days", 1, days), years);
+        }
+    }
+
+    private static void checkRule(TaskRow task, int years) {
+        String label = task.repeatType + "/" + task.repeatInterval + "/" + task.repeatDays + " from " + task.dueDate
+                + " in " + TimeZone.getDefault().getID();
+        int anchor = EpochDays.of(task.dueDate);
+        int from = anchor - 40;
+        int to = anchor + 366 * years;
+        java.util.Map<Integer, Long> expected = calendarRepeats(task, to);
+        RecurrenceRule rule = RecurrenceRule.of(task);
+
+        BitSet expectedDays = new BitSet();
+        for (int day : expected.keySet()) {
+            expectedDays.set(day - from);
+        }
+        for (int d = from; d <= to; d++) {
+            assertEquals(label + " on day " + d, expectedDays.get(d - from), rule.occursOn(d));
+        }
+
+        for (int d = from - 1; d < to; d++) {
+            int next = expectedDays.nextSetBit(d + 1 - from);
+            if (next >= 0) {
+                assertEquals(label + " after day " + d, from + next, rule.nextAfter(d));
+            } else {
+                int actual = rule.nextAfter(d);
+                assertTrue(label + " after day " + d, actual == EpochDays.NONE || actual > to);
+            }
+        }
+
+        BitSet added = new BitSet();
+        rule.addOccurrences(from, to, from, added);
+        assertEquals(label, expectedDays, added);
+
+        // Days, weeks, months and years keep the wall-clock time as Calendar.add
+        // does. Calendar is inconsistent where that time does not exist once
+        // (add moves a skipped time back, set moves it forward; set takes the
+        // later of a repeated time), so there the instant must be java.time's:
+        // moved forward by the gap, or the earlier of the two.
+        if (!"custom_days".equals(task.repeatType)) {
+            long timeOfDay = EpochDays.timeOfDay(task.dueDate);
+            ZoneId zone = TimeZone.getDefault().toZoneId();
+            for (java.util.Map.Entry<Integer, Long> e : expected.entrySet()) {
+                String at = label + " time on day " + e.getKey();
+                long actual = EpochDays.at(e.getKey(), timeOfDay);
+                LocalDateTime local = LocalDate.ofEpochDay(e.getKey())
+                        .atTime(LocalTime.ofNanoOfDay(timeOfDay * 1_000_000L));
+                if (zone.getRules().getValidOffsets(local).size() == 1) {
+                    assertEquals(at, (long) e.getValue(), actual);
+                } else {
+                    assertEquals(at, ZonedDateTime.of(local, zone).toInstant().toEpochMilli(), actual);
+                }
+            }
+        }
+    }
+
+    // Day -> instant of each repeat up to day {@code to}, by Calendar
+    private static java.util.Map<Integer, Long> calendarRepeats(TaskRow task, int to) {
+        java.util.Map<Integer, Long> repeats = new java.util.TreeMap<>();
+        Calendar anchor = Calendar.getInstance();
+        anchor.setTimeInMillis(task.dueDate);
+        if ("custom_days".equals(task.repeatType)) {
+            Set<Integer> allowed = new HashSet<>();
+            for (String d : task.repeatDays.split(",")) {
+                allowed.add(Integer.parseInt(d.trim()));
+            }
+            Calendar cal = (Calendar) anchor.clone();
+            for (int day = EpochDays.of(task.dueDate); day <= to; day++) {
+                if (allowed.contains(cal.get(Calendar.DAY_OF_WEEK)))
+                    repeats.put(day, cal.getTimeInMillis());
+                cal.add(Calendar.DAY_OF_YEAR, 1);
+            }
+            return repeats;
+        }
+        int field;
+        switch (task.repeatType) {
+            case "days":
+                field = Calendar.DAY_OF_YEAR;
+                break;
+            case "weeks":
+                field = Calendar.WEEK_OF_YEAR;
+                break;
+            case "months":
+                field = Calendar.MONTH;
+                break;
+            default:
+                field = Calendar.YEAR;
+                break;
+        }
+        for (int k = 0;; k++) {
+            Calendar cal = (Calendar) anchor.clone();
+            cal.add(field, k * task.repeatInterval);
+            int day = EpochDays.of(cal.getTimeInMillis());
+            if (day > to)
+                return repeats;
+            repeats.put(day, cal.getTimeInMillis());
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private static TaskRow task(long dueDate, String repeatType, int repeatInterval, String repeatDays) {
+        TaskRow task = new TaskRow();
+        task.dueDate = dueDate;
+        task.repeatType = repeatType;
+        task.repeatInterval = repeatInterval;
+        task.repeatDays = repeatDays;
+        return task;
+    }
+
+    // Local date and time in the default zone, month 1..12
+    private static long dueDate(int year, int month, int day, int hour, int minute) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day, hour, minute);
+        return cal.getTimeInMillis();
+    }
+
+    private static int[] civil(long millis) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(millis);
+        return new int[] { cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH) };
+    }
+
+    private static long startOfDayByCalendar(long millis) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(millis);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
+    }
+
+    private static void inZone(String zoneId, Runnable body) {
+        TimeZone previous = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(zoneId));
+        EpochDays.onTimeZoneChanged();
+        try {
+            body.run();
+        } finally {
+            TimeZone.setDefault(previous);
+            EpochDays.onTimeZoneChanged();
+        }
+    }
+}